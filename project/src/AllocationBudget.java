@@ -0,0 +1,184 @@
+import base.Board;
+import base.BoardConstraints;
+import base.BoardShape;
+import base.NQueenSolver;
+import base.SearchEngine;
+import base.SolveMode;
+import base.StateManager;
+import base.SubtreeCounter;
+import base.SubtreeSolver;
+import base.SuperQueenRule;
+import base.ThreadManager;
+import base.ToroidalQueenRule;
+import base.WideBitboardSolver;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Bytes allocated per search node and per solution on the solver hot path, for
+ * every engine in COUNT and ENUMERATE and for the visual NQueenSolver, measured
+ * with com.sun.management.ThreadMXBean on the thread doing the search.
+ *
+ * Each kernel is made once and run repeatedly, so its own tables and the JIT's
+ * warm-up are not counted: what is left is what the search allocates. A
+ * count-only run must stay within COUNT_BUDGET bytes, whatever the node count;
+ * one allocation per node or per column fails it. Every kernel is measured on
+ * one run after a warm-up run, except that the batch kernel warms up for at
+ * least BATCH_WARM_UP_NODES nodes: the Vector API boxes its vectors until C2
+ * has compiled it, which takes many more nodes than one run at a small n.
+ * ENUMERATE and the visual solver are reported only (the visual one copies the
+ * board on every step by design).
+ * The ThreadManager rows are the whole process' allocation over a 1-thread run,
+ * planning and thread start included, against MANAGED_BUDGET.
+ * Exits with status 1 if any budget is exceeded.
+ *
+ * Usage: AllocationBudget [n]
+ */
+public class AllocationBudget {
+
+    static final long COUNT_BUDGET = 4096; // bytes per count-only kernel run, after warm-up
+    static final long MANAGED_BUDGET = 1 << 20; // bytes per 1-thread ThreadManager COUNT run
+    static final long BATCH_WARM_UP_NODES = 20_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final class Case {
+        final String name;
+        final SolveMode mode;
+        final int branches;
+        final Supplier<SubtreeCounter> kernel; // a SubtreeSolver for ENUMERATE
+        final long warmUpNodes; // warm-up runs go on until this many nodes; at least one
+
+        Case(String name, SolveMode mode, int branches, Supplier<SubtreeCounter> kernel) {
+            this(name, mode, branches, kernel, 0);
+        }
+
+        Case(String name, SolveMode mode, int branches, Supplier<SubtreeCounter> kernel, long warmUpNodes) {
+            this.name = name;
+            this.mode = mode;
+            this.branches = branches;
+            this.kernel = kernel;
+            this.warmUpNodes = warmUpNodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM doesn't measure allocation per thread");
+            System.exit(1);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        BoardConstraints constraints = new BoardConstraints(n);
+        constraints.placeQueen(n / 2, 1); // a queen off row 0, so every column still has a search
+        BoardShape shape = BoardShape.square(n);
+        List<Case> cases = new ArrayList<>();
+        for (SolveMode mode : new SolveMode[] {SolveMode.COUNT, SolveMode.ENUMERATE}) {
+            cases.add(new Case("bitboard", mode, n, () -> SearchEngine.BITBOARD.create(n, null)));
+            cases.add(new Case("wide bitboard", mode, n, () -> new WideBitboardSolver(n)));
+            cases.add(new Case("dlx", mode, n, () -> SearchEngine.DANCING_LINKS.create(n, null)));
+            cases.add(new Case("completion", mode, n, () -> SearchEngine.BITBOARD.create(n, constraints)));
+            cases.add(new Case("toroidal", mode, shape.getBranches(), () -> new ToroidalQueenRule().createKernel(shape)));
+            cases.add(new Case("superqueens", mode, shape.getBranches(), () -> new SuperQueenRule().createKernel(shape)));
+        }
+        cases.add(new Case("batch", SolveMode.COUNT, n, () -> SearchEngine.BATCH.createCounter(n, null), BATCH_WARM_UP_NODES));
+
+        System.out.printf("n = %d, count budget %d bytes per run, managed budget %d bytes per run%n", n, COUNT_BUDGET, MANAGED_BUDGET);
+        System.out.printf("%-14s %-10s %12s %12s %12s %12s %10s  %s%n", "engine", "mode", "nodes", "solutions",
+                "bytes", "bytes/node", "bytes/sol", "result");
+        int failed = 0;
+        for (Case c : cases) {
+            long[] measured = measureKernel(c);
+            boolean budgeted = c.mode == SolveMode.COUNT;
+            boolean ok = !budgeted || measured[2] <= COUNT_BUDGET;
+            if (!ok) failed++;
+            print(c.name, c.mode.name(), measured, budgeted ? (ok ? "ok" : "OVER BUDGET") : "-");
+        }
+
+        long[] visual = measureVisual(n);
+        print("visual", "ENUMERATE", visual, "-");
+        for (int frontierTasks : new int[] {0, 256}) {
+            long[] managed = measureManaged(n, frontierTasks);
+            boolean ok = managed[2] <= MANAGED_BUDGET;
+            if (!ok) failed++;
+            print(frontierTasks > 0 ? "managed/front" : "managed/rows", "COUNT", managed, ok ? "ok" : "OVER BUDGET");
+        }
+        System.out.println(failed == 0 ? "PASS" : "FAIL: " + failed + " over budget");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    private static void print(String name, String mode, long[] measured, String result) {
+        System.out.printf("%-14s %-10s %12d %12d %12d %12.4f %10.1f  %s%n", name, mode, measured[0], measured[1], measured[2],
+                (double) measured[2] / Math.max(1, measured[0]), (double) measured[2] / Math.max(1, measured[1]), result);
+    }
+
+    // {nodes, solutions, bytes} of one full run of a kernel on this thread, after its warm-up
+    private static long[] measureKernel(Case c) {
+        SubtreeCounter kernel = c.kernel.get();
+        long[] found = {0};
+        do {
+            runAll(c, kernel, found);
+        } while (kernel.getNodes() < c.warmUpNodes);
+        found[0] = 0;
+        long nodes = kernel.getNodes();
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        runAll(c, kernel, found);
+        long[] measured = new long[3];
+        measured[2] = THREADS.getCurrentThreadAllocatedBytes() - before;
+        measured[0] = kernel.getNodes() - nodes;
+        measured[1] = found[0];
+        return measured;
+    }
+
+    private static void runAll(Case c, SubtreeCounter kernel, long[] found) {
+        for (int branch = 0; branch < c.branches; branch++) {
+            if (c.mode == SolveMode.COUNT) {
+                found[0] += kernel.countWithFirstQueen(branch);
+            } else {
+                ((SubtreeSolver) kernel).enumerateWithFirstQueen(branch, 0, (thread_id, cols) -> found[0]++);
+            }
+        }
+    }
+
+    // The step-by-step solver behind the GUI, without a StateManager so no StepBoards are kept
+    private static long[] measureVisual(int n) {
+        long[] measured = new long[3];
+        for (int pass = 0; pass < 2; pass++) { // the first one is the warm-up
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            measured[0] = 0;
+            measured[1] = 0;
+            for (int col = 0; col < n; col++) {
+                NQueenSolver solver = new NQueenSolver(new Board(n, col));
+                solver.solveFromRow(1);
+                measured[0] += solver.getNodes();
+                measured[1] += solver.getSolutions().size();
+            }
+            measured[2] = THREADS.getCurrentThreadAllocatedBytes() - before;
+        }
+        return measured;
+    }
+
+    // Whole-process allocation of a 1-thread ThreadManager COUNT run, split on row 0 or on a frontier
+    private static long[] measureManaged(int n, int frontierTasks) {
+        long[] measured = new long[3];
+        for (int pass = 0; pass < 2; pass++) {
+            ThreadManager manager = new ThreadManager();
+            manager.setMode(SolveMode.COUNT);
+            manager.setFrontierTasks(frontierTasks);
+            StateManager state = new StateManager();
+            state.setVerbose(false);
+            long before = THREADS.getTotalThreadAllocatedBytes();
+            manager.startSolving(n, 1, state);
+            manager.waitForCompletion();
+            measured[2] = THREADS.getTotalThreadAllocatedBytes() - before;
+            measured[0] = manager.getNodesVisited();
+            measured[1] = state.getTotalCount();
+        }
+        return measured;
+    }
+}
@@ -0,0 +1,66 @@
+import base.BatchKernel;
+import base.BatchSolver;
+import base.BitboardSolver;
+import base.ScalarBatchKernel;
+import base.SubtreeCounter;
+
+import java.util.function.Supplier;
+
+/**
+ * Single-threaded counting time of the one-node-at-a-time BitboardSolver against
+ * BatchSolver with the scalar kernel and, when the JVM was started with
+ * --add-modules jdk.incubator.vector, the Vector API kernel, for n = 10 .. maxN
+ * (default 15). Each time is the best of three runs on the same CPU, so the
+ * columns are directly comparable; all three counts must agree.
+ */
+public class BatchBenchmark {
+
+    public static void main(String[] args) {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+        BatchKernel best = BatchKernel.best();
+        boolean vector = !(best instanceof ScalarBatchKernel);
+        System.out.println("Kernel: " + best.getName() + (vector ? "" : " (Vector API not available, run with --add-modules jdk.incubator.vector)"));
+
+        // Warm up all engines; the vector intrinsics need a fair number of C2 compilations
+        for (int i = 0; i < 20; i++) {
+            count(new BitboardSolver(12), 12);
+            count(new BatchSolver(12, new ScalarBatchKernel()), 12);
+            count(new BatchSolver(12, best), 12);
+        }
+
+        System.out.printf("%4s %12s %14s %14s %14s %10s%n", "n", "solutions", "bitboard (ms)", "scalar (ms)", "vector (ms)", "vec/bit");
+        for (int size = 10; size <= maxN; size++) {
+            int n = size;
+            long[] bitboard = time(() -> new BitboardSolver(n), n);
+            long[] scalar = time(() -> new BatchSolver(n, new ScalarBatchKernel()), n);
+            long[] simd = vector ? time(() -> new BatchSolver(n, best), n) : null;
+            if (scalar[0] != bitboard[0] || (simd != null && simd[0] != bitboard[0])) {
+                System.out.println("MISMATCH for n = " + n);
+                System.exit(1);
+            }
+            System.out.printf("%4d %12d %14.1f %14.1f %14s %10s%n", n, bitboard[0], bitboard[1] / 1e6, scalar[1] / 1e6,
+                    simd != null ? String.format("%.1f", simd[1] / 1e6) : "-",
+                    simd != null ? String.format("%.2fx", (double) bitboard[1] / simd[1]) : "-");
+        }
+    }
+
+    // {count, best time in ns}
+    private static long[] time(Supplier<SubtreeCounter> engine, int n) {
+        long bestNs = Long.MAX_VALUE;
+        long total = 0;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            total = count(engine.get(), n);
+            bestNs = Math.min(bestNs, System.nanoTime() - start);
+        }
+        return new long[]{total, bestNs};
+    }
+
+    private static long count(SubtreeCounter solver, int n) {
+        long total = 0;
+        for (int col = 0; col < n; col++) {
+            total += solver.countWithFirstQueen(col);
+        }
+        return total;
+    }
+}
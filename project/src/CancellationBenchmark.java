@@ -0,0 +1,76 @@
+import base.SolveMode;
+import base.StateManager;
+import base.SubtreeScope;
+import base.ThreadManager;
+
+import java.util.Arrays;
+
+/**
+ * How long ThreadManager.stopAll takes to stop a running count, for SolverThreads
+ * splitting on row 0, SolverThreads on a breadth-first frontier, and one virtual
+ * thread per frontier task in a SubtreeScope. Each round starts a count of an
+ * n x n board (default 16, far too big to finish), lets it run for delayMs, then
+ * stops it and checks that nothing is left running. Prints the worst and median
+ * stop time per mode and exits with status 1 if the virtual-thread worst case is
+ * above boundMs.
+ *
+ * Usage: CancellationBenchmark [n] [frontierTasks] [rounds] [delayMs] [boundMs]
+ */
+public class CancellationBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int frontierTasks = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long delayMs = args.length > 3 ? Long.parseLong(args[3]) : 200;
+        long boundMs = args.length > 4 ? Long.parseLong(args[4]) : 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("n = %d, %d threads, frontier target %d tasks, at most %d virtual threads at a time, %d rounds%n",
+                n, threads, frontierTasks, SubtreeScope.DEFAULT_MAX_IN_FLIGHT, rounds);
+        System.out.printf("%-22s %10s %14s %14s%n", "mode", "tasks", "worst (ms)", "median (ms)");
+        measure("row-0 SolverThreads", n, threads, 0, false, rounds, delayMs);
+        measure("frontier SolverThreads", n, threads, frontierTasks, false, rounds, delayMs);
+        double worst = measure("virtual threads", n, threads, frontierTasks, true, rounds, delayMs);
+        if (worst > boundMs) {
+            System.out.println("FAIL: virtual-thread cancellation took " + worst + " ms, bound is " + boundMs + " ms");
+            System.exit(1);
+        }
+        System.out.println("OK: virtual-thread cancellation within " + boundMs + " ms");
+    }
+
+    // Worst stop time in ms
+    private static double measure(String name, int n, int threads, int frontierTasks, boolean virtual,
+                                  int rounds, long delayMs) throws InterruptedException {
+        double[] ms = new double[rounds];
+        long tasks = 0;
+        for (int round = 0; round < rounds; round++) {
+            ThreadManager manager = new ThreadManager();
+            manager.setMode(SolveMode.COUNT);
+            manager.setFrontierTasks(frontierTasks);
+            manager.setVirtualThreads(virtual);
+            StateManager state = new StateManager();
+            state.setVerbose(false);
+            manager.startSolving(n, threads, state);
+            Thread.sleep(delayMs);
+
+            long start = System.nanoTime();
+            manager.stopAll();
+            ms[round] = (System.nanoTime() - start) / 1e6;
+            if (manager.isRunning()) {
+                System.out.println("FAIL: " + name + " still running after stopAll");
+                System.exit(1);
+            }
+            SubtreeScope scope = manager.getScope();
+            if (scope != null) {
+                ms[round] = scope.getCancelLatencyNanos() / 1e6; // cancel() to last return, same span
+                tasks = scope.getTaskCount();
+            } else {
+                tasks = manager.getFrontier() != null ? manager.getFrontier().size() : n;
+            }
+        }
+        Arrays.sort(ms);
+        System.out.printf("%-22s %10d %14.2f %14.2f%n", name, tasks, ms[rounds - 1], ms[rounds / 2]);
+        return ms[rounds - 1];
+    }
+}
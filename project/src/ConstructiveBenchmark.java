@@ -0,0 +1,60 @@
+import base.ConstructiveSolver;
+import base.SolutionVerifier;
+
+import java.io.Writer;
+
+/**
+ * Times the closed-form construction and its verification for n = 10^3 .. 10^maxExponent
+ * (default 8). The construction is streamed to a discarding writer, so memory stays small;
+ * verification needs about 5n bits. Linear growth shows as a flat ns/queen column.
+ */
+public class ConstructiveBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int maxExponent = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+
+        Writer discard = new Writer() {
+            @Override public void write(char[] buffer, int offset, int length) { }
+            @Override public void flush() { }
+            @Override public void close() { }
+        };
+
+        // Warm up so the first timed sizes aren't measuring the JIT
+        for (int i = 0; i < 20; i++) {
+            int size = 100_000 + i;
+            ConstructiveSolver.write(size, discard);
+            SolutionVerifier.isValid(size, row -> ConstructiveSolver.columnOf(size, row));
+        }
+
+        System.out.printf("%12s %14s %14s %16s  %s%n", "n", "write (ms)", "verify (ms)", "ns/queen (both)", "valid");
+        double smallestRate = 0;
+        double largestRate = 0;
+        for (int exponent = 3; exponent <= maxExponent; exponent++) {
+            int n = (int) Math.pow(10, exponent);
+            for (int k = 0; k < 6; k++) { // all six residues mod 6
+                int size = n + k;
+                long start = System.nanoTime();
+                ConstructiveSolver.write(size, discard);
+                long written = System.nanoTime();
+                boolean valid = SolutionVerifier.isValid(size, row -> ConstructiveSolver.columnOf(size, row));
+                long verified = System.nanoTime();
+
+                double rate = (double) (verified - start) / size;
+                if (k == 0) {
+                    System.out.printf("%12d %14.2f %14.2f %16.2f  %s%n", size,
+                            (written - start) / 1e6, (verified - written) / 1e6, rate, valid);
+                    if (exponent == 6) smallestRate = rate; // below 10^6 timings are mostly noise
+                    if (exponent == maxExponent) largestRate = rate;
+                }
+                if (!valid) {
+                    System.out.println("INVALID placement for n = " + size);
+                    System.exit(1);
+                }
+            }
+        }
+        if (maxExponent > 6 && smallestRate > 0) {
+            System.out.printf("ns/queen at 10^%d vs 10^6: %.2fx (linear time keeps this near 1)%n",
+                    maxExponent, largestRate / smallestRate);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import base.DynamicOrderSolver;
+import base.SolutionVerifier;
+import base.WideBitboardSolver;
+
+/**
+ * Time to first solution, row-order backtracking (WideBitboardSolver, lexicographic)
+ * against most-constrained-line ordering (DynamicOrderSolver), for n = 8 .. maxN
+ * (default 200). Each engine gets timeLimitSeconds per size (default 2); sizes where
+ * row order runs out of time show as "timeout".
+ */
+public class FirstSolutionBenchmark {
+
+    public static void main(String[] args) {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long limitMs = (args.length > 1 ? Long.parseLong(args[1]) : 2) * 1000;
+
+        // Warm up both engines on sizes both finish quickly
+        for (int i = 0; i < 50; i++) {
+            new WideBitboardSolver(16 + i % 8).findFirst(1, (thread_id, cols) -> { });
+            new DynamicOrderSolver(30 + i).solve();
+        }
+
+        System.out.printf("%6s %14s %14s %14s %14s%n", "n", "row (ms)", "row nodes", "dynamic (ms)", "dynamic nodes");
+        int rowSolved = 0;
+        int dynamicSolved = 0;
+        int sizes = 0;
+        for (int n = 8; n <= maxN; n += (n < 40 ? 1 : 10)) {
+            sizes++;
+            WideBitboardSolver rowOrder = new WideBitboardSolver(n);
+            rowOrder.setTimeLimitMillis(limitMs);
+            int[][] rowSolution = new int[1][];
+            long start = System.nanoTime();
+            rowOrder.findFirst(1, (thread_id, cols) -> rowSolution[0] = cols.clone());
+            long rowNs = System.nanoTime() - start;
+
+            DynamicOrderSolver dynamic = new DynamicOrderSolver(n);
+            dynamic.setTimeLimitMillis(limitMs);
+            start = System.nanoTime();
+            int[] dynamicSolution = dynamic.solve();
+            long dynamicNs = System.nanoTime() - start;
+
+            if (rowSolution[0] != null) rowSolved++;
+            if (dynamicSolution != null) dynamicSolved++;
+            if ((rowSolution[0] != null && !SolutionVerifier.isValid(rowSolution[0]))
+                    || (dynamicSolution != null && !SolutionVerifier.isValid(dynamicSolution))) {
+                System.out.println("INVALID solution for n = " + n);
+                System.exit(1);
+            }
+            System.out.printf("%6d %14s %14d %14s %14d%n", n,
+                    rowSolution[0] != null ? String.format("%.2f", rowNs / 1e6) : "timeout", rowOrder.getNodes(),
+                    dynamicSolution != null ? String.format("%.2f", dynamicNs / 1e6) : "timeout", dynamic.getNodes());
+        }
+        System.out.printf("solved within %d ms: row order %d/%d, dynamic order %d/%d%n",
+                limitMs, rowSolved, sizes, dynamicSolved, sizes);
+    }
+}
@@ -0,0 +1,84 @@
+import base.Frontier;
+import base.SolveMode;
+import base.StateManager;
+import base.ThreadManager;
+
+/**
+ * Task granularity of a parallel count: the row-0 split (one task per column)
+ * against a breadth-first Frontier of at least threads * tasksPerThread tasks,
+ * for n = 10 .. maxN (default 15) with the given thread count (default: all
+ * processors). For each it prints the wall time, the number of tasks, and the
+ * largest task's share of all nodes searched, which bounds how evenly the work
+ * can be spread; the frontier's depth and memory are printed with it.
+ *
+ * Usage: FrontierBenchmark [maxN] [threads] [tasksPerThread]
+ */
+public class FrontierBenchmark {
+
+    public static void main(String[] args) {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int perThread = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        System.out.println("Threads: " + threads + ", frontier target " + (threads * perThread) + " tasks");
+
+        for (int i = 0; i < 10; i++) {
+            run(12, threads, 0);
+            run(12, threads, threads * perThread);
+        }
+
+        System.out.printf("%4s %12s %10s %8s %10s %10s %8s %10s %6s %10s%n", "n", "solutions",
+                "row0 (ms)", "tasks", "largest", "bfs (ms)", "tasks", "largest", "depth", "memory");
+        for (int n = 10; n <= maxN; n++) {
+            Run row = run(n, threads, 0);
+            Run bfs = run(n, threads, threads * perThread);
+            if (row.count != bfs.count) {
+                System.out.println("MISMATCH for n = " + n);
+                System.exit(1);
+            }
+            System.out.printf("%4d %12d %10.1f %8d %9.2f%% %10.1f %8d %9.2f%% %6d %7.1f KB%n", n, row.count,
+                    row.nanos / 1e6, row.tasks, row.largestShare, bfs.nanos / 1e6, bfs.tasks, bfs.largestShare,
+                    bfs.frontier.getDepth(), bfs.frontier.getMemoryBytes() / 1024.0);
+        }
+        System.out.println();
+        System.out.println("Last frontier: " + run(maxN, threads, threads * perThread).frontier.getStats());
+    }
+
+    private static class Run {
+        long count;
+        long nanos;
+        int tasks;
+        double largestShare; // percent of all nodes
+        Frontier frontier;
+    }
+
+    private static Run run(int n, int threads, int frontierTasks) {
+        ThreadManager manager = new ThreadManager();
+        manager.setMode(SolveMode.COUNT);
+        manager.setFrontierTasks(frontierTasks);
+        StateManager state = new StateManager();
+        state.setVerbose(false);
+        long start = System.nanoTime();
+        manager.startSolving(n, threads, state);
+        manager.waitForCompletion();
+
+        Run run = new Run();
+        run.nanos = System.nanoTime() - start;
+        run.count = state.getTotalCount();
+        run.frontier = manager.getFrontier();
+        if (run.frontier != null) {
+            run.tasks = run.frontier.size();
+            run.largestShare = run.frontier.getLargestTaskShare() * 100;
+        } else {
+            long total = 0;
+            long largest = 0;
+            for (int col = 0; col < n; col++) {
+                long nodes = manager.getColumnNodes(col);
+                total += nodes;
+                largest = Math.max(largest, nodes);
+            }
+            run.tasks = n;
+            run.largestShare = 100.0 * largest / total;
+        }
+        return run;
+    }
+}
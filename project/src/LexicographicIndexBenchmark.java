@@ -0,0 +1,76 @@
+import base.BitboardSolver;
+import base.LexicographicIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * LexicographicIndex in two parts.
+ *
+ * Round trip, n = 6 .. 11: enumerates every solution in order and checks that
+ * unrank(k) is the k-th one and rank gives k back.
+ *
+ * Page access, n = 12 .. maxN (default 15): search nodes spent on 20 random pages
+ * of 10 solutions, first cold (fresh index) and then again on the warm index,
+ * as a share of the nodes of one full count.
+ *
+ * Usage: LexicographicIndexBenchmark [maxN]
+ */
+public class LexicographicIndexBenchmark {
+
+    public static void main(String[] args) {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+
+        for (int n = 6; n <= 11; n++) {
+            List<int[]> all = new ArrayList<>();
+            BitboardSolver solver = new BitboardSolver(n);
+            for (int col = 0; col < n; col++) {
+                solver.enumerateWithFirstQueen(col, 0, (thread_id, cols) -> all.add(cols.clone()));
+            }
+            LexicographicIndex index = new LexicographicIndex(n, 1);
+            for (int k = 0; k < all.size(); k++) {
+                if (!Arrays.equals(index.unrank(k), all.get(k)) || index.rank(all.get(k)) != k) {
+                    System.out.println("MISMATCH for n = " + n + " at " + k);
+                    System.exit(1);
+                }
+            }
+            System.out.println("n = " + n + ": " + all.size() + " solutions round-trip");
+        }
+
+        System.out.println();
+        System.out.printf("%4s %14s %14s %10s %14s %10s %10s %10s%n", "n", "solutions", "count nodes",
+                "cold ms", "cold nodes", "cold %", "warm %", "memo");
+        SplittableRandom random = new SplittableRandom(42);
+        for (int n = 12; n <= maxN; n++) {
+            BitboardSolver full = new BitboardSolver(n);
+            for (int col = 0; col < n; col++) full.countWithFirstQueen(col);
+
+            LexicographicIndex index = new LexicographicIndex(n, 1);
+            long size = index.size(); // row-0 counts, from the cache or one count
+            long[] pages = new long[20];
+            for (int i = 0; i < pages.length; i++) pages[i] = random.nextLong(size);
+
+            long start = System.nanoTime();
+            readPages(index, pages);
+            double coldMs = (System.nanoTime() - start) / 1e6;
+            long coldNodes = index.getNodes();
+            readPages(index, pages);
+            long warmNodes = index.getNodes() - coldNodes;
+
+            System.out.printf("%4d %14d %14d %10.1f %14d %9.2f%% %9.3f%% %10d%n", n, size, full.getNodes(), coldMs,
+                    coldNodes, 100.0 * coldNodes / full.getNodes(), 100.0 * warmNodes / full.getNodes(),
+                    index.getMemoSize());
+        }
+    }
+
+    private static void readPages(LexicographicIndex index, long[] pages) {
+        for (long first : pages) {
+            for (long k = first; k < Math.min(index.size(), first + 10); k++) {
+                int[] solution = index.unrank(k);
+                if (index.rank(solution) != k) throw new IllegalStateException("rank(unrank(" + k + ")) != " + k);
+            }
+        }
+    }
+}
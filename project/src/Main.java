@@ -1,30 +1,87 @@
 import gui.GUI;
+import server.CommandClient;
+import server.CommandServer;
+import server.HttpSolveServer;
+import server.RequestRunner;
+import server.SolveRequest;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.net.ServerSocket;
 
 public class Main {
     private static final int PORT = 65432;
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("http")) {
+            startHttpService(args);
+            return;
+        }
+
+        boolean serve = args.length == 1 && args[0].equals("serve");
+        SolveRequest request = null;
+        if (!serve) {
+            try {
+                request = SolveRequest.fromArgs(args);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+                System.out.println(SolveRequest.USAGE);
+                System.exit(1);
+            }
+        }
+
+        // CLI solves prefer the warm instance and fall back to solving here
+        if (request != null && request.isHeadless()) {
+            int status = CommandClient.forward(request, PORT);
+            if (status < 0) {
+                PrintWriter out = new PrintWriter(System.out);
+                status = RequestRunner.run(request, out, null);
+            }
+            System.exit(status);
+        }
+
         try (ServerSocket serverSocket = new ServerSocket(PORT)) {
             System.out.println("Application started. No other instance detected.");
+            CommandServer commandServer = new CommandServer(serverSocket);
 
-            javax.swing.SwingUtilities.invokeLater(() -> {
-                new GUI().setVisible(true);
-            });
-            
-            while (true) {
-                try {
-                    serverSocket.accept();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+            if (!serve) {
+                SolveRequest initial = request;
+                javax.swing.SwingUtilities.invokeLater(() -> {
+                    GUI gui = new GUI();
+                    gui.setVisible(true);
+                    commandServer.setGui(gui);
+                    if (initial != null) {
+                        try {
+                            gui.submitSolve(initial.n, initial.threads, initial.constraints);
+                        } catch (IllegalArgumentException e) {
+                            System.out.println(e.getMessage()); // Keep the window, just don't start the solve
+                        }
+                    }
+                });
             }
 
+            commandServer.acceptForever();
+
         } catch (IOException e) {
             System.out.println("Another instance is already running!");
-            System.exit(0);
+            if (serve) System.exit(0);
+            // Hand our request to it instead of dropping it
+            SolveRequest forwarded = request != null ? request : new SolveRequest(SolveRequest.Command.SHOW, 0, 0);
+            int status = CommandClient.forward(forwarded, PORT);
+            System.exit(Math.max(status, 0));
+        }
+    }
+
+    private static void startHttpService(String[] args) {
+        try {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : HttpSolveServer.DEFAULT_PORT;
+            new HttpSolveServer(port).start();
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid port: " + args[1]);
+            System.exit(1);
+        } catch (IOException e) {
+            System.out.println("Could not start the HTTP solve service: " + e.getMessage());
+            System.exit(1);
         }
     }
 }
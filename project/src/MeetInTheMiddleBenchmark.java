@@ -0,0 +1,60 @@
+import base.BitboardSolver;
+import base.MeetInTheMiddleCounter;
+
+/**
+ * Single-threaded counting time of plain backtracking (BitboardSolver) against
+ * MeetInTheMiddleCounter in memory and with a small state cap that forces the
+ * partitioned join through disk, for n = 8 .. maxN (default 16). Also prints the
+ * join's size: distinct top and bottom signatures and the pairs it had to AND,
+ * which is what decides whether the join can beat the search. All counts must agree.
+ *
+ * Usage: MeetInTheMiddleBenchmark [maxN] [spillCap]
+ */
+public class MeetInTheMiddleBenchmark {
+
+    public static void main(String[] args) {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int spillCap = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 14;
+
+        for (int i = 0; i < 5; i++) {
+            count(new BitboardSolver(12), 12);
+            new MeetInTheMiddleCounter(12).count(1);
+        }
+
+        System.out.printf("%4s %12s %12s %12s %12s %12s %14s %10s %12s %10s%n", "n", "solutions", "bitboard ms",
+                "mitm ms", "spilled ms", "top states", "bottom states", "pairs", "peak MB", "spill MB");
+        for (int n = 8; n <= maxN; n++) {
+            long start = System.nanoTime();
+            long expected = count(new BitboardSolver(n), n);
+            double bitboardMs = (System.nanoTime() - start) / 1e6;
+
+            MeetInTheMiddleCounter memory = new MeetInTheMiddleCounter(n);
+            start = System.nanoTime();
+            long joined = memory.count(1);
+            double memoryMs = (System.nanoTime() - start) / 1e6;
+
+            MeetInTheMiddleCounter spilled = new MeetInTheMiddleCounter(n);
+            spilled.setMaxStates(spillCap);
+            start = System.nanoTime();
+            long spilledCount = spilled.count(1);
+            double spilledMs = (System.nanoTime() - start) / 1e6;
+
+            if (joined != expected || spilledCount != expected) {
+                System.out.println("MISMATCH for n = " + n + ": " + expected + " / " + joined + " / " + spilledCount);
+                System.exit(1);
+            }
+            System.out.printf("%4d %12d %12.1f %12.1f %12.1f %12d %14d %10.3g %12.1f %10.1f%n", n, expected,
+                    bitboardMs, memoryMs, spilled.didSpill() ? spilledMs : Double.NaN,
+                    memory.getTopStates(), memory.getBottomStates(), (double) memory.getPairChecks(),
+                    memory.getPeakTableBytes() / 1e6, spilled.getSpilledBytes() / 1e6);
+        }
+    }
+
+    private static long count(BitboardSolver solver, int n) {
+        long total = 0;
+        for (int col = 0; col < n; col++) {
+            total += solver.countWithFirstQueen(col);
+        }
+        return total;
+    }
+}
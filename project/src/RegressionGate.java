@@ -0,0 +1,443 @@
+import base.AttackRule;
+import base.BitboardSolver;
+import base.BoardConstraints;
+import base.BoardShape;
+import base.DynamicOrderSolver;
+import base.MeetInTheMiddleCounter;
+import base.ResultCache;
+import base.SearchEngine;
+import base.SolutionVerifier;
+import base.SolveMode;
+import base.SolveSession;
+import base.StateManager;
+import base.SubtreeSolver;
+import base.SuperQueenRule;
+import base.SweepScheduler;
+import base.ThreadManager;
+import base.ToroidalQueenRule;
+import base.WideBitboardSolver;
+import base.WorkerPool;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Correctness and performance gate: every engine and mode against the known
+ * solution counts (OEIS A000170), counts up to symmetry (A002562) and the
+ * toroidal (A051906) and superqueens (A051223) counts, with a wall-clock budget
+ * per case and a timing check against a stored baseline.
+ * Runs locally with the result cache turned off, so every case really searches.
+ *
+ * Cases, for n = 1 .. maxN (default 17) where the engine supports it:
+ *   kernel          one BitboardSolver, every row-0 column
+ *   mirror          half the row-0 columns, doubled, plus the middle one
+ *   fundamental     enumerated solutions that are the smallest of their 8 symmetric images
+ *   count/rows tN   ThreadManager COUNT, split on row 0, N = 1, 2, 4 .. maxThreads
+ *   count/frontier  the same on a breadth-first frontier
+ *   count/virtual   the same with one virtual thread per task
+ *   enumerate tN    ordered ENUMERATE; every solution verified and in lexicographic order
+ *   dlx, batch      the other per-column engines, 4 threads
+ *   wide            one WideBitboardSolver, every row-0 column
+ *   completion      ThreadManager COUNT of an empty BoardConstraints, on CompletionSolver kernels
+ *   toroidal, superqueens
+ *                   ThreadManager COUNT of the attack-rule variants on the square board
+ *   dynamic         DynamicOrderSolver's first FIRST_K solutions, each verified and distinct
+ *   mitm            meet-in-the-middle counter, n <= 21
+ *   session         COUNT session on a WorkerPool of maxThreads workers
+ *   sweep           one SweepScheduler job for 4 .. maxN
+ * Enumeration, dancing links and the wide kernel stop two sizes below maxN.
+ *
+ * A case fails if its count is wrong, it runs over its budget, or it is more
+ * than tolerance percent slower than its baseline (cases under MIN_MS are not
+ * timed). Without a baseline file nothing is timed, and the gate says so loudly
+ * before and after the run; record one with gate.update=true. A case over its
+ * budget is stopped through its engine's own stop (ThreadManager.stopAll,
+ * requestStop, SolveSession.cancel), so it doesn't go on searching under the
+ * cases after it. A case that takes under REPEAT_MS is run once more than gate.runs
+ * times, the first to warm up the JIT, and timed by the median of the others, so
+ * a run stalled by compilation or GC doesn't fail it; a case found slow is
+ * measured a second time, and fails only if that is slow too. Exits with
+ * status 1 if any case failed. The full default run takes a long time (a single
+ * thread counts n = 17 in a minute or two); pass a smaller maxN for a quick check.
+ *
+ * Properties:
+ *   gate.baseline=path      baseline timings (default regression-baseline.properties)
+ *   gate.update=true        write this run's timings of passing cases as the new baseline
+ *   gate.tolerance=percent  allowed slowdown (default 25)
+ *   gate.budget.ms=ms       wall-clock budget per run of a case (default 600000)
+ *   gate.runs=count         timed runs of a case under REPEAT_MS, after a warm-up (default 3)
+ *
+ * Usage: RegressionGate [maxN] [maxThreads]
+ */
+public class RegressionGate {
+
+    // A000170: solutions of the n-queens problem, n = 0 .. 17
+    static final long[] SOLUTIONS = {1, 1, 0, 0, 2, 10, 4, 40, 92, 352, 724, 2680, 14200, 73712, 365596,
+            2279184, 14772512, 95815104};
+
+    // A002562: solutions up to rotation and reflection, n = 0 .. 17
+    static final long[] FUNDAMENTAL = {1, 1, 0, 0, 1, 2, 1, 6, 12, 46, 92, 341, 1787, 9233, 45752,
+            285053, 1846955, 11977939};
+
+    // A051906: toroidal n-queens solutions, n = 0 .. 17
+    static final long[] TOROIDAL = {1, 1, 0, 0, 0, 10, 0, 28, 0, 0, 0, 88, 0, 4524, 0, 0, 0, 140692};
+
+    // A051223: superqueens (queen plus knight moves) solutions, n = 0 .. 17
+    static final long[] SUPERQUEENS = {1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 4, 44, 156, 1876, 5180, 32516, 202900, 1330622};
+
+    private static final int FIRST_K = 10; // solutions the dynamic-order case asks for
+
+    private static final long MIN_MS = 50; // faster cases are too noisy to compare with the baseline
+    private static final long REPEAT_MS = 5000; // slower cases run once: long enough to time reliably
+    private static final long STOP_WAIT_MS = 10_000; // how long a stopped case gets to return
+
+    // One run of a case; it hands onStop what cancels it, for when it runs over its budget
+    private interface Run {
+        long call(Consumer<Runnable> onStop) throws Exception;
+    }
+
+    private static final class Case {
+        final String name;
+        final int n;
+        final long expected;
+        final Run run;
+        long count = -1;
+        long ms = -1;
+        String status = "";
+
+        Case(String name, int n, long expected, Run run) {
+            this.name = name;
+            this.n = n;
+            this.expected = expected;
+            this.run = run;
+        }
+
+        String key() {
+            return name + "|" + n;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : SOLUTIONS.length - 1;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+        if (maxN < 1 || maxN >= SOLUTIONS.length) {
+            throw new IllegalArgumentException("maxN must be between 1 and " + (SOLUTIONS.length - 1));
+        }
+        if (System.getProperty("nqueens.cache.dir") == null) System.setProperty("nqueens.cache.dir", "none");
+        Path baselineFile = Paths.get(System.getProperty("gate.baseline", "regression-baseline.properties"));
+        boolean update = Boolean.getBoolean("gate.update");
+        double tolerance = Double.parseDouble(System.getProperty("gate.tolerance", "25"));
+        long budgetMs = Long.getLong("gate.budget.ms", 600_000);
+        int runs = Math.max(1, Integer.getInteger("gate.runs", 3));
+
+        Properties baseline = new Properties();
+        if (Files.exists(baselineFile)) {
+            try (Reader in = Files.newBufferedReader(baselineFile)) {
+                baseline.load(in);
+            }
+        }
+
+        List<Case> cases = buildCases(maxN, maxThreads);
+        System.out.printf("%d cases, n up to %d, up to %d threads, budget %d ms per run, tolerance %.0f%%, baseline %s%n",
+                cases.size(), maxN, maxThreads, budgetMs, tolerance, Files.exists(baselineFile) ? baselineFile : "none");
+        String noBaseline = "WARNING: no baseline at " + baselineFile.toAbsolutePath()
+                + ", so no case is checked for slowdowns; record one with -Dgate.update=true";
+        if (baseline.isEmpty()) System.out.println(noBaseline);
+        System.out.printf("%-18s %4s %12s %10s %10s  %s%n", "case", "n", "count", "ms", "baseline", "result");
+
+        int failed = 0;
+        int untimed = 0; // timed cases with no baseline to compare with
+        Map<String, String> timings = new TreeMap<>();
+        for (Case c : cases) {
+            runMedian(c, runs, budgetMs);
+            String base = baseline.getProperty(c.key());
+            if (base == null && c.ms >= MIN_MS) untimed++;
+            if (c.status.isEmpty() && base != null && c.ms >= MIN_MS) {
+                long limit = (long) (Long.parseLong(base) * (1 + tolerance / 100));
+                if (isSlow(c, base, limit)) {
+                    long first = c.ms;
+                    runMedian(c, runs, budgetMs); // measured again, so a stall of the whole machine doesn't fail it
+                    c.ms = Math.min(first, c.ms);
+                    if (c.status.isEmpty() && isSlow(c, base, limit)) c.status = "SLOW: over " + limit + " ms";
+                }
+            }
+            if (c.status.isEmpty()) {
+                c.status = "ok";
+                timings.put(c.key(), Long.toString(c.ms));
+            } else {
+                failed++;
+            }
+            System.out.printf("%-18s %4d %12d %10d %10s  %s%n", c.name, c.n, c.count, c.ms, base != null ? base : "-", c.status);
+        }
+
+        if (update) {
+            Properties updated = new Properties();
+            updated.putAll(baseline);
+            updated.putAll(timings);
+            try (Writer out = Files.newBufferedWriter(baselineFile)) {
+                updated.store(out, "RegressionGate timings in ms, case|n");
+            }
+            System.out.println("Baseline written to " + baselineFile);
+        } else if (baseline.isEmpty()) {
+            System.out.println(noBaseline);
+        } else if (untimed > 0) {
+            System.out.println("WARNING: " + untimed + " cases have no baseline timing and were not checked for slowdowns");
+        }
+        System.out.println(failed == 0 ? "PASS: " + cases.size() + " cases" : "FAIL: " + failed + " of " + cases.size() + " cases");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    private static List<Case> buildCases(int maxN, int maxThreads) {
+        List<Case> cases = new ArrayList<>();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int t = 1; t < maxThreads; t *= 2) threadCounts.add(t);
+        threadCounts.add(maxThreads);
+
+        for (int n = 1; n <= maxN; n++) {
+            int size = n;
+            long expected = SOLUTIONS[n];
+            cases.add(new Case("kernel", n, expected, stop -> countKernel(new BitboardSolver(size), size, stop)));
+            cases.add(new Case("mirror", n, expected, stop -> countMirror(size, stop)));
+            if (n <= maxN - 2) cases.add(new Case("fundamental", n, FUNDAMENTAL[n], stop -> countFundamental(size, stop)));
+            if (n <= maxN - 2) cases.add(new Case("wide", n, expected, stop -> countKernel(new WideBitboardSolver(size), size, stop)));
+            cases.add(new Case("dynamic", n, Math.min(FIRST_K, expected), stop -> findFirstDynamic(size, stop)));
+            if (n < 4) continue; // the managed and engine paths need n >= 4
+
+            for (int threads : threadCounts) {
+                cases.add(new Case("count/rows t" + threads, n, expected,
+                        stop -> countManaged(size, threads, 0, false, SearchEngine.BITBOARD, stop)));
+                cases.add(new Case("count/frontier t" + threads, n, expected,
+                        stop -> countManaged(size, threads, threads * 256, false, SearchEngine.BITBOARD, stop)));
+                if (n <= maxN - 2) cases.add(new Case("enumerate t" + threads, n, expected, stop -> enumerateOrdered(size, threads, stop)));
+            }
+            cases.add(new Case("count/virtual", n, expected,
+                    stop -> countManaged(size, maxThreads, maxThreads * 256, true, SearchEngine.BITBOARD, stop)));
+            if (n <= maxN - 2) {
+                cases.add(new Case("dlx", n, expected, stop -> countManaged(size, 4, 0, false, SearchEngine.DANCING_LINKS, stop)));
+            }
+            cases.add(new Case("batch", n, expected, stop -> countManaged(size, 4, 0, false, SearchEngine.BATCH, stop)));
+            cases.add(new Case("completion", n, expected, stop -> countCompletion(size, maxThreads, stop)));
+            cases.add(new Case("toroidal", n, TOROIDAL[n], stop -> countVariant(new ToroidalQueenRule(), size, maxThreads, stop)));
+            cases.add(new Case("superqueens", n, SUPERQUEENS[n], stop -> countVariant(new SuperQueenRule(), size, maxThreads, stop)));
+            cases.add(new Case("session", n, expected, stop -> countSession(size, maxThreads, stop)));
+            if (n <= MeetInTheMiddleCounter.MAX_N) { // can't be stopped: it is abandoned at its budget
+                cases.add(new Case("mitm", n, expected, stop -> new MeetInTheMiddleCounter(size).count(maxThreads)));
+            }
+        }
+        if (maxN >= 4) {
+            long expected = 0;
+            for (int n = 4; n <= maxN; n++) expected += SOLUTIONS[n];
+            cases.add(new Case("sweep 4.." + maxN, maxN, expected, stop -> {
+                ResultCache.getDefault().clearMemory();
+                SweepScheduler sweep = new SweepScheduler(4, maxN, maxThreads);
+                stop.accept(sweep::requestStop);
+                long total = 0;
+                for (long[] counts : sweep.run(null)) total += sum(counts);
+                return total;
+            }));
+        }
+        return cases;
+    }
+
+    private static boolean isSlow(Case c, String base, long limit) {
+        return c.ms > limit && c.ms - Long.parseLong(base) >= MIN_MS;
+    }
+
+    // A fast case gets one untimed warm-up run, then runs timed ones (up to the first failure) and keeps the median
+    private static void runMedian(Case c, int runs, long budgetMs) {
+        run(c, budgetMs);
+        if (!c.status.isEmpty() || c.ms >= REPEAT_MS) return;
+        long[] times = new long[runs];
+        int done = 0;
+        while (done < runs) {
+            run(c, budgetMs);
+            times[done++] = c.ms;
+            if (!c.status.isEmpty()) break;
+        }
+        Arrays.sort(times, 0, done);
+        c.ms = times[done / 2];
+    }
+
+    // Runs one case on its own thread so a hung or slow case can be stopped, or at worst abandoned, at its budget
+    private static void run(Case c, long budgetMs) {
+        long[] result = {-1};
+        Throwable[] error = {null};
+        List<Runnable> stops = new ArrayList<>(); // guarded by itself
+        Thread worker = new Thread(() -> {
+            try {
+                result[0] = c.run.call(stop -> {
+                    synchronized (stops) {
+                        stops.add(stop);
+                    }
+                });
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "gate-" + c.name);
+        worker.setDaemon(true); // an abandoned case must not keep the JVM alive
+        long start = System.nanoTime();
+        worker.start();
+        try {
+            worker.join(budgetMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        c.ms = (System.nanoTime() - start) / 1_000_000;
+        if (worker.isAlive()) {
+            synchronized (stops) {
+                for (Runnable stop : stops) stop.run();
+            }
+            worker.interrupt();
+            try {
+                worker.join(STOP_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            c.status = "TIMEOUT: over " + budgetMs + " ms" + (worker.isAlive() ? ", still running" : "");
+        } else if (error[0] != null) {
+            c.status = "ERROR: " + error[0];
+        } else {
+            c.count = result[0];
+            if (c.count != c.expected) c.status = "WRONG: expected " + c.expected;
+        }
+    }
+
+    private static long countKernel(SubtreeSolver solver, int n, Consumer<Runnable> onStop) {
+        onStop.accept(solver::requestStop);
+        long total = 0;
+        for (int col = 0; col < n; col++) total += solver.countWithFirstQueen(col);
+        return total;
+    }
+
+    // Mirror symmetry on row 0: columns c and n-1-c have the same count
+    private static long countMirror(int n, Consumer<Runnable> onStop) {
+        BitboardSolver solver = new BitboardSolver(n);
+        onStop.accept(solver::requestStop);
+        long total = 0;
+        for (int col = 0; col < n / 2; col++) total += 2 * solver.countWithFirstQueen(col);
+        if (n % 2 == 1) total += solver.countWithFirstQueen(n / 2);
+        return total;
+    }
+
+    private static long countFundamental(int n, Consumer<Runnable> onStop) {
+        BitboardSolver solver = new BitboardSolver(n);
+        onStop.accept(solver::requestStop);
+        long[] found = {0};
+        int[] image = new int[n];
+        int[] rotated = new int[n];
+        for (int col = 0; col < n; col++) {
+            solver.enumerateWithFirstQueen(col, 0, (thread_id, cols) -> {
+                // Counted once per orbit: only by its lexicographically smallest member
+                System.arraycopy(cols, 0, image, 0, n);
+                for (int turn = 0; turn < 4; turn++) {
+                    if (Arrays.compare(image, cols) < 0 || Arrays.compare(mirror(image), cols) < 0) return;
+                    for (int row = 0; row < n; row++) rotated[image[row]] = n - 1 - row; // quarter turn
+                    System.arraycopy(rotated, 0, image, 0, n);
+                }
+                found[0]++;
+            });
+        }
+        return found[0];
+    }
+
+    private static int[] mirror(int[] cols) {
+        int n = cols.length;
+        int[] mirrored = new int[n];
+        for (int row = 0; row < n; row++) mirrored[row] = n - 1 - cols[row];
+        return mirrored;
+    }
+
+    private static long countManaged(int n, int threads, int frontierTasks, boolean virtual, SearchEngine engine,
+                                     Consumer<Runnable> onStop) {
+        ThreadManager manager = new ThreadManager();
+        manager.setMode(SolveMode.COUNT);
+        manager.setEngine(engine);
+        manager.setFrontierTasks(frontierTasks);
+        manager.setVirtualThreads(virtual);
+        return countManaged(manager, n, threads, onStop);
+    }
+
+    // An empty BoardConstraints still goes through CompletionSolver, with its propagation
+    private static long countCompletion(int n, int threads, Consumer<Runnable> onStop) {
+        ThreadManager manager = new ThreadManager();
+        manager.setMode(SolveMode.COUNT);
+        manager.setConstraints(new BoardConstraints(n));
+        return countManaged(manager, n, threads, onStop);
+    }
+
+    private static long countVariant(AttackRule rule, int n, int threads, Consumer<Runnable> onStop) {
+        ThreadManager manager = new ThreadManager();
+        manager.setMode(SolveMode.COUNT);
+        manager.setVariant(rule, BoardShape.square(n));
+        return countManaged(manager, n, threads, onStop);
+    }
+
+    private static long countManaged(ThreadManager manager, int n, int threads, Consumer<Runnable> onStop) {
+        StateManager state = new StateManager();
+        state.setVerbose(false);
+        onStop.accept(manager::stopAll);
+        manager.startSolving(n, threads, state);
+        manager.waitForCompletion();
+        return state.getTotalCount();
+    }
+
+    private static long countSession(int n, int threads, Consumer<Runnable> onStop) {
+        try (WorkerPool pool = new WorkerPool(threads)) {
+            SolveSession session = new SolveSession(n, SolveMode.COUNT);
+            onStop.accept(session::cancel);
+            return pool.submit(session).await();
+        }
+    }
+
+    // Returns how many it found, once each is checked to be a solution and new
+    private static long findFirstDynamic(int n, Consumer<Runnable> onStop) {
+        DynamicOrderSolver solver = new DynamicOrderSolver(n);
+        onStop.accept(solver::requestStop);
+        Set<String> seen = new HashSet<>();
+        return solver.findFirst(FIRST_K, (thread_id, cols) -> {
+            if (!SolutionVerifier.isValid(cols)) throw new IllegalStateException("Not a solution: " + Arrays.toString(cols));
+            if (!seen.add(Arrays.toString(cols))) throw new IllegalStateException("Found twice: " + Arrays.toString(cols));
+        });
+    }
+
+    private static long enumerateOrdered(int n, int threads, Consumer<Runnable> onStop) {
+        ThreadManager manager = new ThreadManager();
+        onStop.accept(manager::stopAll);
+        manager.setMode(SolveMode.ENUMERATE);
+        manager.setFrontierTasks(threads * 256);
+        manager.setOrdered(true);
+        StateManager state = new StateManager();
+        state.setVerbose(false);
+        int[] previous = new int[n];
+        long[] seen = {0};
+        state.setSolutionListener((thread_id, cols) -> { // called under the StateManager lock
+            if (!SolutionVerifier.isValid(cols)) throw new IllegalStateException("Not a solution: " + Arrays.toString(cols));
+            if (seen[0]++ > 0 && Arrays.compare(previous, cols) >= 0) {
+                throw new IllegalStateException("Out of order: " + Arrays.toString(cols));
+            }
+            System.arraycopy(cols, 0, previous, 0, n);
+        });
+        manager.startSolving(n, threads, state);
+        manager.waitForCompletion();
+        return state.getTotalCount();
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) total += count;
+        return total;
+    }
+}
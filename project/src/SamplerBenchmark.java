@@ -0,0 +1,87 @@
+import base.BitboardSolver;
+import base.RandomSolutionSampler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * RandomSolutionSampler in two parts.
+ *
+ * Uniformity, n = 6 .. 10, where every solution is known: draws 50 samples per
+ * solution and compares the frequencies with uniform. chi2/df should be close to
+ * 1 and z = (chi2 - df) / sqrt(2 df) within a few units; the total variation
+ * distance is shown next to the one an ideal sampler would get at that sample size.
+ *
+ * Throughput, n = 20 .. maxN (default 40) in steps of 5: samples per second with
+ * one chain per thread (default: all processors), plus one chain's acceptance rate.
+ *
+ * Usage: SamplerBenchmark [maxN] [threads] [samples]
+ */
+public class SamplerBenchmark {
+
+    public static void main(String[] args) {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long samples = args.length > 2 ? Long.parseLong(args[2]) : 2000;
+        long seed = 20240601L;
+
+        System.out.println("Uniformity (50 samples per solution)");
+        System.out.printf("%4s %10s %10s %10s %8s %10s %12s %12s%n",
+                "n", "solutions", "samples", "chi2", "df", "z", "TV", "ideal TV");
+        for (int n = 6; n <= 10; n++) {
+            uniformity(n, threads, seed + n);
+        }
+
+        System.out.println();
+        System.out.println("Throughput (" + threads + " threads, " + samples + " samples)");
+        System.out.printf("%4s %14s %12s %12s%n", "n", "samples/s", "acceptance", "restarts");
+        for (int n = 20; n <= maxN; n += 5) {
+            RandomSolutionSampler.sample(n, Math.max(threads, samples / 10), threads, seed, (thread_id, cols) -> { }); // warm-up
+            long start = System.nanoTime();
+            long drawn = RandomSolutionSampler.sample(n, samples, threads, seed + n, (thread_id, cols) -> { });
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            RandomSolutionSampler chain = new RandomSolutionSampler(n, new SplittableRandom(seed));
+            for (int i = 0; i < 200; i++) chain.next();
+            System.out.printf("%4d %14.1f %11.1f%% %12d%n", n, drawn / seconds,
+                    chain.getAcceptanceRate() * 100, chain.getRestarts());
+        }
+    }
+
+    private static void uniformity(int n, int threads, long seed) {
+        Map<String, Integer> index = new HashMap<>();
+        BitboardSolver solver = new BitboardSolver(n);
+        for (int col = 0; col < n; col++) {
+            solver.enumerateWithFirstQueen(col, 0, (thread_id, cols) -> index.put(key(cols), index.size()));
+        }
+        int solutions = index.size();
+        long[] hits = new long[solutions];
+        long samples = 50L * solutions;
+        RandomSolutionSampler.sample(n, samples, threads, seed, (thread_id, cols) -> {
+            Integer i = index.get(key(cols));
+            if (i == null) throw new IllegalStateException("Sampler returned a non-solution for n = " + n);
+            hits[i]++;
+        });
+
+        double expected = (double) samples / solutions;
+        double chi2 = 0;
+        double tv = 0;
+        for (long h : hits) {
+            chi2 += (h - expected) * (h - expected) / expected;
+            tv += Math.abs(h - expected) / samples;
+        }
+        tv /= 2;
+        int df = solutions - 1;
+        // E|Binomial - mean| ~ sqrt(2 / pi) * sd, summed over all solutions
+        double idealTv = 0.5 * solutions * Math.sqrt(2 / Math.PI) * Math.sqrt(expected * (1 - 1.0 / solutions)) / samples;
+        System.out.printf("%4d %10d %10d %10.1f %8d %10.2f %12.4f %12.4f%n",
+                n, solutions, samples, chi2, df, (chi2 - df) / Math.sqrt(2.0 * df), tv, idealTv);
+    }
+
+    private static String key(int[] cols) {
+        StringBuilder key = new StringBuilder();
+        for (int col : cols) key.append(col).append(',');
+        return key.toString();
+    }
+}
@@ -0,0 +1,149 @@
+import base.BitboardSolver;
+import base.HeadlessSolver;
+import base.SolveMode;
+import base.SolveSession;
+import base.StateManager;
+import base.ThreadManager;
+import base.WorkerPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Small counts arriving while one huge count runs: their latency when every job
+ * is its own ThreadManager run, one at a time (as the GUI and the old services
+ * did), against sessions on one shared WorkerPool. The small sizes cycle through
+ * 8 .. 12 and arrive every 50 ms from 100 ms after the huge one started. Also checks
+ * that ENUMERATE sessions come out in order, that a thread quota holds, and that
+ * cancel() stops a session. Runs without the result cache.
+ *
+ * Usage: SessionBenchmark [hugeN] [smallCount] [threads]
+ */
+public class SessionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int hugeN = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+        int smallCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        if (hugeN >= RegressionGate.SOLUTIONS.length) {
+            throw new IllegalArgumentException("hugeN must be at most " + (RegressionGate.SOLUTIONS.length - 1));
+        }
+
+        try (WorkerPool pool = new WorkerPool(threads)) {
+            checkSessions(pool, threads);
+            runPooled(pool, 12, 5); // warm-up
+            long[] pooled = runPooled(pool, hugeN, smallCount);
+            long[] serial = runSerial(threads, hugeN, smallCount);
+            System.out.printf("%d threads, huge n = %d, %d small counts (n = 8 .. 12)%n", threads, hugeN, smallCount);
+            System.out.printf("%-22s %12s %12s %12s%n", "", "small p50 ms", "small max ms", "huge ms");
+            print("one job at a time", serial);
+            print("shared pool", pooled);
+        }
+    }
+
+    private static void print(String name, long[] latencies) {
+        long huge = latencies[latencies.length - 1];
+        long[] small = Arrays.copyOf(latencies, latencies.length - 1);
+        Arrays.sort(small);
+        System.out.printf("%-22s %12d %12d %12d%n", name, small[small.length / 2], small[small.length - 1], huge);
+    }
+
+    // Latency of every small count, then the huge count's, on the pool
+    private static long[] runPooled(WorkerPool pool, int hugeN, int smallCount) throws InterruptedException {
+        long[] latencies = new long[smallCount + 1];
+        SolveSession huge = pool.submit(new SolveSession(hugeN, SolveMode.COUNT));
+        SolveSession[] small = new SolveSession[smallCount];
+        Thread.sleep(100);
+        for (int i = 0; i < smallCount; i++) {
+            small[i] = pool.submit(new SolveSession(8 + i % 5, SolveMode.COUNT));
+            Thread.sleep(50);
+        }
+        for (int i = 0; i < smallCount; i++) {
+            check(small[i].getN(), small[i].await());
+            latencies[i] = small[i].getElapsedMillis();
+        }
+        check(hugeN, huge.await());
+        latencies[smallCount] = huge.getElapsedMillis();
+        return latencies;
+    }
+
+    // The same arrivals queued on one executor, each job a ThreadManager COUNT run of its own
+    private static long[] runSerial(int threads, int hugeN, int smallCount) throws Exception {
+        long[] latencies = new long[smallCount + 1];
+        ExecutorService queue = Executors.newSingleThreadExecutor();
+        try {
+            long hugeStart = System.nanoTime();
+            Future<Long> huge = queue.submit(() -> countAlone(hugeN, threads));
+            Thread.sleep(100);
+            long[] submitted = new long[smallCount];
+            List<Future<long[]>> small = new ArrayList<>();
+            for (int i = 0; i < smallCount; i++) {
+                int n = 8 + i % 5;
+                submitted[i] = System.nanoTime();
+                long arrival = submitted[i];
+                small.add(queue.submit(() -> new long[] {countAlone(n, threads), (System.nanoTime() - arrival) / 1_000_000}));
+                Thread.sleep(50);
+            }
+            check(hugeN, huge.get());
+            latencies[smallCount] = (System.nanoTime() - hugeStart) / 1_000_000;
+            for (int i = 0; i < smallCount; i++) {
+                long[] result = small.get(i).get();
+                check(8 + i % 5, result[0]);
+                latencies[i] = result[1];
+            }
+        } finally {
+            queue.shutdown();
+        }
+        return latencies;
+    }
+
+    private static long countAlone(int n, int threads) {
+        ThreadManager threadManager = new ThreadManager();
+        threadManager.setMode(SolveMode.COUNT);
+        threadManager.setFrontierTasks(threads * HeadlessSolver.FRONTIER_TASKS_PER_THREAD);
+        StateManager stateManager = new StateManager();
+        stateManager.setVerbose(false);
+        threadManager.startSolving(n, threads, stateManager);
+        threadManager.waitForCompletion();
+        return stateManager.getTotalCount();
+    }
+
+    // Ordered ENUMERATE, a 1-thread quota and cancel()
+    private static void checkSessions(WorkerPool pool, int threads) {
+        int[] previous = new int[11];
+        long[] seen = {0};
+        SolveSession listing = new SolveSession(11, SolveMode.ENUMERATE);
+        listing.setListener((thread_id, cols) -> {
+            if (seen[0]++ > 0 && Arrays.compare(previous, cols) >= 0) throw new IllegalStateException("Out of order");
+            System.arraycopy(cols, 0, previous, 0, cols.length);
+        });
+        SolveSession quota = new SolveSession(13, SolveMode.COUNT);
+        quota.setMaxThreads(1);
+        SolveSession cancelled = new SolveSession(Math.min(17, BitboardSolver.MAX_N), SolveMode.COUNT);
+        pool.submit(listing);
+        pool.submit(quota);
+        pool.submit(cancelled);
+        check(11, listing.await());
+        check(13, quota.await());
+        if (quota.getPeakThreads() > 1) fail("quota of 1 thread ran on " + quota.getPeakThreads());
+        long start = System.nanoTime();
+        cancelled.cancel();
+        if (cancelled.await() != -1) fail("cancelled session returned a count");
+        System.out.printf("Sessions OK: ordered ENUMERATE, quota held (peak %d of %d threads), cancel took %.1f ms%n",
+                quota.getPeakThreads(), threads, (System.nanoTime() - start) / 1e6);
+    }
+
+    private static void check(int n, long count) {
+        long expected = RegressionGate.SOLUTIONS[n];
+        if (count != expected) fail("n = " + n + " counted " + count + ", expected " + expected);
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL: " + message);
+        System.exit(1);
+    }
+}
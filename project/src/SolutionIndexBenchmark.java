@@ -0,0 +1,101 @@
+import base.BitboardSolver;
+import base.BoardConstraints;
+import base.PackedSolutions;
+import base.SolutionIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * SolutionIndex against a linear scan of the packed set, n = 8 .. maxN (default 14).
+ * Builds the index, checks that it survives write/read, then runs 200 random
+ * filters (one to three queens, up to three blocked squares) through both and
+ * compares the counts. Prints build time, index size next to the packed set's,
+ * and the average time per filter of each.
+ *
+ * Usage: SolutionIndexBenchmark [maxN]
+ */
+public class SolutionIndexBenchmark {
+
+    private static final int FILTERS = 200;
+
+    public static void main(String[] args) throws IOException {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 14;
+        SplittableRandom random = new SplittableRandom(7);
+
+        System.out.printf("%4s %10s %12s %12s %10s %12s %12s%n", "n", "solutions", "index KB", "packed KB",
+                "build ms", "query us", "scan us");
+        for (int n = 8; n <= maxN; n++) {
+            PackedSolutions packed = new PackedSolutions(n);
+            BitboardSolver solver = new BitboardSolver(n);
+            for (int col = 0; col < n; col++) {
+                solver.enumerateWithFirstQueen(col, 0, (thread_id, cols) -> packed.add(cols)); // lexicographic
+            }
+
+            long start = System.nanoTime();
+            SolutionIndex built = new SolutionIndex(packed);
+            double buildMs = (System.nanoTime() - start) / 1e6;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            built.write(new DataOutputStream(bytes));
+            SolutionIndex index = SolutionIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), packed);
+
+            BoardConstraints[] filters = new BoardConstraints[FILTERS];
+            for (int i = 0; i < FILTERS; i++) filters[i] = randomFilter(n, random);
+
+            long[] indexed = new long[FILTERS];
+            start = System.nanoTime();
+            for (int i = 0; i < FILTERS; i++) indexed[i] = index.count(filters[i]);
+            double queryUs = (System.nanoTime() - start) / 1e3 / FILTERS;
+
+            long[] scanned = new long[FILTERS];
+            start = System.nanoTime();
+            for (int i = 0; i < FILTERS; i++) scanned[i] = scan(packed, filters[i]);
+            double scanUs = (System.nanoTime() - start) / 1e3 / FILTERS;
+
+            for (int i = 0; i < FILTERS; i++) {
+                if (indexed[i] != scanned[i]) {
+                    System.out.println("MISMATCH for n = " + n + ", " + filters[i] + ": " + indexed[i] + " != " + scanned[i]);
+                    System.exit(1);
+                }
+            }
+            System.out.printf("%4d %10d %12.1f %12.1f %10.1f %12.1f %12.1f%n", n, packed.size(),
+                    index.getMemoryBytes() / 1024.0, packed.sizeInBytes() / 1024.0, buildMs, queryUs, scanUs);
+        }
+    }
+
+    private static BoardConstraints randomFilter(int n, SplittableRandom random) {
+        BoardConstraints filter = new BoardConstraints(n);
+        int queens = 1 + random.nextInt(3);
+        for (int i = 0; i < queens; i++) {
+            int row = random.nextInt(n);
+            if (filter.getQueen(row) < 0) filter.placeQueen(row, random.nextInt(n));
+        }
+        int blocked = random.nextInt(4);
+        for (int i = 0; i < blocked; i++) {
+            int row = random.nextInt(n);
+            int col = random.nextInt(n);
+            if (filter.getQueen(row) != col) filter.block(row, col);
+        }
+        return filter;
+    }
+
+    private static long scan(PackedSolutions packed, BoardConstraints filter) {
+        int n = packed.getN();
+        int[] columns = new int[n];
+        long found = 0;
+        for (int i = 0; i < packed.size(); i++) {
+            packed.get(i, columns);
+            boolean match = true;
+            for (int row = 0; row < n && match; row++) {
+                int queen = filter.getQueen(row);
+                match = (queen < 0 || queen == columns[row]) && !filter.isBlocked(row, columns[row]);
+            }
+            if (match) found++;
+        }
+        return found;
+    }
+}
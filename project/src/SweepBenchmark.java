@@ -0,0 +1,72 @@
+import base.HeadlessSolver;
+import base.ResultCache;
+import base.SolveMode;
+import base.StateManager;
+import base.SweepScheduler;
+import base.ThreadManager;
+
+import java.util.Map;
+
+/**
+ * Counting every n in [from, to] as one SweepScheduler job against one
+ * ThreadManager run per size, one after another (row-0 column split, at most n
+ * threads, as tables were made before). Prints each size's count, when the sweep
+ * finished it, and how long its own run took, then the sweep's makespan against
+ * the sum of the individual runs. Run with -Dnqueens.cache.dir=none, or the
+ * sweep is served by the cache the individual runs filled.
+ *
+ * Usage: SweepBenchmark [from] [to] [threads]
+ */
+public class SweepBenchmark {
+
+    public static void main(String[] args) {
+        int from = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int to = args.length > 1 ? Integer.parseInt(args[1]) : 14;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        long[] separate = new long[to - from + 1];
+        long[] separateMs = new long[to - from + 1];
+        long sum = 0;
+        for (int n = from; n <= to; n++) {
+            long start = System.nanoTime();
+            separate[n - from] = countAlone(n, threads);
+            separateMs[n - from] = (System.nanoTime() - start) / 1_000_000;
+            sum += separateMs[n - from];
+        }
+
+        ResultCache.getDefault().clearMemory();
+        new SweepScheduler(4, 11, threads).run(null); // warm-up
+        ResultCache.getDefault().clearMemory();
+        SweepScheduler sweep = new SweepScheduler(from, to, threads);
+        long[][] results = sweep.run(null);
+
+        System.out.printf("%4s %16s %12s %12s%n", "n", "solutions", "sweep at ms", "alone ms");
+        for (int n = from; n <= to; n++) {
+            long total = HeadlessSolver.sum(results[n - from]);
+            if (total != separate[n - from]) {
+                System.out.println("MISMATCH for n = " + n + ": " + total + " != " + separate[n - from]);
+                System.exit(1);
+            }
+            System.out.printf("%4d %16d %12d %12d%n", n, total, sweep.getFinishMillis(n), separateMs[n - from]);
+        }
+        System.out.println();
+        System.out.println(threads + " threads, " + sweep.getTaskCount() + " tasks, planned in " + sweep.getPlanMillis() + " ms");
+        System.out.printf("Sweep makespan %d ms, sum of individual runs %d ms (%.2fx)%n",
+                sweep.getMakespanMillis(), sum, (double) sum / Math.max(1, sweep.getMakespanMillis()));
+    }
+
+    // One plain ThreadManager run with the row-0 column split, like the GUI and the old table scripts
+    private static long countAlone(int n, int threads) {
+        ThreadManager threadManager = new ThreadManager();
+        threadManager.setMode(SolveMode.COUNT);
+        StateManager stateManager = new StateManager();
+        stateManager.setVerbose(false);
+        threadManager.startSolving(n, threads, stateManager);
+        threadManager.waitForCompletion();
+        long total = 0;
+        synchronized (stateManager) {
+            for (Map.Entry<Integer, Long> entry : stateManager.column_counts.entrySet()) total += entry.getValue();
+        }
+        return total;
+    }
+}
@@ -1,5 +1,8 @@
 import base.Board;
+import base.HeadlessSolver;
 import base.NQueenSolver;
+import base.ResultCache;
+import base.SearchEngine;
 import base.StateManager;
 import base.ThreadManager;
 
@@ -24,6 +27,28 @@ public class Test {
         } catch (IllegalArgumentException e) {
             System.out.println("Caught expected exception: " + e.getMessage());
         }
+        tm.waitForCompletion();
+        
+        // Second and later counts come from the result cache
+        for (int round = 1; round <= 3; round++) {
+            long start = System.nanoTime();
+            long count = HeadlessSolver.count(12, 4);
+            System.out.println("Round " + round + ": 12-queens has " + count + " solutions (" + (System.nanoTime() - start) / 1000 + " us)");
+        }
+        System.out.println(ResultCache.getDefault().getStats());
+        
+        // Exact cover engine as an independent check of the bitboard counts
+        int mismatches = 0;
+        for (int n = 4; n <= 11; n++) {
+            long bitboard = HeadlessSolver.count(n, 4);
+            long dlx = HeadlessSolver.sum(HeadlessSolver.countByColumn(n, 4, null, SearchEngine.DANCING_LINKS, null));
+            System.out.println(n + "-queens: bitboard " + bitboard + ", dancing links " + dlx + (bitboard == dlx ? "" : "  MISMATCH"));
+            if (bitboard != dlx) mismatches++;
+        }
+        if (mismatches > 0) {
+            System.out.println("FAIL: " + mismatches + " board sizes counted differently by the two engines");
+            System.exit(1);
+        }
    
       
         
@@ -0,0 +1,120 @@
+import base.AttackRule;
+import base.BoardShape;
+import base.HeadlessSolver;
+import base.QueenRule;
+import base.SubtreeSolver;
+import base.SuperQueenRule;
+import base.ToroidalQueenRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Every counting variant's kernel against a brute force over its attacks()
+ * definition: each row gets every column or stays empty, and a placement is
+ * kept when no two pieces attack and exactly k were placed. For each shape the
+ * kernel's count per branch must match, its enumerated placements must be valid
+ * and distinct, and from 4 rows up the parallel HeadlessSolver.countVariant
+ * must agree on the total. Covers k queens on every rows x cols board up to maxSide, and toroidal
+ * queens and superqueens on square boards up to maxN. Runs without the result
+ * cache; exits with status 1 on any mismatch.
+ *
+ * Usage: VariantCheck [maxSide] [maxN] [threads]
+ */
+public class VariantCheck {
+
+    public static void main(String[] args) {
+        int maxSide = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int maxN = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        if (System.getProperty("nqueens.cache.dir") == null) System.setProperty("nqueens.cache.dir", "none");
+
+        List<AttackRule> rules = new ArrayList<>();
+        List<BoardShape> shapes = new ArrayList<>();
+        for (int rows = 1; rows <= maxSide; rows++) {
+            for (int cols = 1; cols <= maxSide; cols++) {
+                for (int pieces = 0; pieces <= rows; pieces++) {
+                    rules.add(new QueenRule());
+                    shapes.add(new BoardShape(rows, cols, pieces));
+                }
+            }
+        }
+        for (int n = 1; n <= maxN; n++) {
+            rules.add(new ToroidalQueenRule());
+            shapes.add(BoardShape.square(n));
+            rules.add(new SuperQueenRule());
+            shapes.add(BoardShape.square(n));
+        }
+
+        int failed = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            String problem = check(rules.get(i), shapes.get(i), threads);
+            if (problem != null) {
+                System.out.println("FAIL " + rules.get(i).getName() + " " + shapes.get(i) + ": " + problem);
+                failed++;
+            }
+        }
+        for (int n = 4; n <= maxN; n++) {
+            System.out.printf("%2d: toroidal %d, superqueens %d%n", n,
+                    HeadlessSolver.sum(HeadlessSolver.countVariant(new ToroidalQueenRule(), BoardShape.square(n), threads)),
+                    HeadlessSolver.sum(HeadlessSolver.countVariant(new SuperQueenRule(), BoardShape.square(n), threads)));
+        }
+        System.out.println(failed == 0 ? "PASS: " + rules.size() + " shapes" : "FAIL: " + failed + " of " + rules.size() + " shapes");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // What's wrong with the rule's kernel on this shape, or null if nothing is
+    private static String check(AttackRule rule, BoardShape shape, int threads) {
+        long[] expected = new long[shape.getBranches()];
+        int[] columns = new int[shape.rows];
+        bruteForce(rule, shape, 0, 0, columns, expected);
+
+        SubtreeSolver kernel = rule.createKernel(shape);
+        long total = 0;
+        for (int branch = 0; branch < expected.length; branch++) {
+            long counted = kernel.countWithFirstQueen(branch);
+            if (counted != expected[branch]) return "branch " + branch + " counted " + counted + ", expected " + expected[branch];
+            total += counted;
+
+            Set<String> seen = new HashSet<>();
+            String[] invalid = {null};
+            kernel.enumerateWithFirstQueen(branch, 0, (thread_id, cols) -> {
+                if (!AttackRule.isValid(rule, shape, cols)) invalid[0] = Arrays.toString(cols);
+                seen.add(Arrays.toString(cols));
+            });
+            if (invalid[0] != null) return "branch " + branch + " enumerated invalid " + invalid[0];
+            if (seen.size() != expected[branch]) {
+                return "branch " + branch + " enumerated " + seen.size() + " distinct, expected " + expected[branch];
+            }
+        }
+        if (shape.rows >= 4) { // the parallel path takes boards of 4 rows and up
+            long parallel = HeadlessSolver.sum(HeadlessSolver.countVariant(rule, shape, threads));
+            if (parallel != total) return "countVariant gave " + parallel + ", expected " + total;
+        }
+        return null;
+    }
+
+    // Adds every valid completion of rows 0 .. row-1 to its branch's count
+    private static void bruteForce(AttackRule rule, BoardShape shape, int row, int placed, int[] columns, long[] counts) {
+        if (placed > shape.pieces || placed + (shape.rows - row) < shape.pieces) return;
+        if (row == shape.rows) {
+            counts[columns[0] >= 0 ? columns[0] : shape.cols]++;
+            return;
+        }
+        columns[row] = -1;
+        bruteForce(rule, shape, row + 1, placed, columns, counts);
+        for (int col = 0; col < shape.cols; col++) {
+            boolean free = true;
+            for (int r = 0; r < row && free; r++) {
+                if (columns[r] >= 0 && rule.attacks(shape, r, columns[r], row, col)) free = false;
+            }
+            if (!free) continue;
+            columns[row] = col;
+            bruteForce(rule, shape, row + 1, placed + 1, columns, counts);
+        }
+        columns[row] = -1;
+    }
+}
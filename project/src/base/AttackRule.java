@@ -0,0 +1,47 @@
+package base;
+
+/**
+ * How two pieces attack each other, for the counting variants.
+ * Each rule ships its own bitmask kernel, so a new variant does not fall back
+ * to a generic square-by-square check while searching; attacks() is the plain
+ * definition, used to verify what the kernels produce.
+ */
+public interface AttackRule {
+
+    // Short name used on the command line and in cache keys
+    String getName();
+
+    boolean attacks(BoardShape shape, int row1, int col1, int row2, int col2);
+
+    // Throws IllegalArgumentException for shapes the rule doesn't support
+    SubtreeSolver createKernel(BoardShape shape);
+
+    static AttackRule forName(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "queen":
+            case "queens":
+                return new QueenRule();
+            case "toroidal":
+            case "modular":
+                return new ToroidalQueenRule();
+            case "superqueen":
+            case "superqueens":
+                return new SuperQueenRule();
+            default:
+                throw new IllegalArgumentException("Unknown rule: " + name + " (expected queens, toroidal or superqueens)");
+        }
+    }
+
+    // Checks a placement (row -> column, -1 for an empty row) against the rule's definition
+    static boolean isValid(AttackRule rule, BoardShape shape, int[] columns) {
+        int placed = 0;
+        for (int r1 = 0; r1 < shape.rows; r1++) {
+            if (columns[r1] < 0) continue;
+            placed++;
+            for (int r2 = r1 + 1; r2 < shape.rows; r2++) {
+                if (columns[r2] >= 0 && rule.attacks(shape, r1, columns[r1], r2, columns[r2])) return false;
+            }
+        }
+        return placed == shape.pieces;
+    }
+}
@@ -0,0 +1,36 @@
+package base;
+
+/**
+ * The data-parallel part of BatchSolver: free squares of the next row for a
+ * whole batch of partial placements stored as parallel arrays (one entry per
+ * placement, struct-of-arrays).
+ */
+public interface BatchKernel {
+
+    String getName();
+
+    // free[i] = all & ~(cols[i] | ld[i] | rd[i]) for i < count
+    void computeFree(long[] cols, long[] ld, long[] rd, long[] free, int count, long all);
+
+    // Sum of bitCount(all & ~(cols[i] | ld[i] | rd[i])): the completions of a batch one row from the end
+    long countFree(long[] cols, long[] ld, long[] rd, int count, long all);
+
+    // Completions of a batch two rows from the end: every free square is placed and its row below counted
+    long countTwoRows(long[] cols, long[] ld, long[] rd, int count, long all);
+
+    /**
+     * VectorBatchKernel when the jdk.incubator.vector module is present
+     * (run with --add-modules jdk.incubator.vector), ScalarBatchKernel otherwise.
+     * Loaded by name so this class never links against the incubator module itself.
+     */
+    static BatchKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (BatchKernel) Class.forName("base.VectorBatchKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall back to the scalar loop below
+            }
+        }
+        return new ScalarBatchKernel();
+    }
+}
@@ -0,0 +1,106 @@
+package base;
+
+/**
+ * Counting engine that expands many partial placements at once instead of one
+ * node at a time. Each row has a batch buffer of placements (column and
+ * diagonal masks in parallel arrays); a full buffer has the free squares of
+ * all its placements computed in one BatchKernel call, and its children are
+ * appended to the next row's buffer, which is flushed the same way when it
+ * fills up. The last two rows are never buffered: the kernel expands the
+ * second-to-last row in place and sums the popcounts of the last row's free masks.
+ *
+ * Memory is BATCH placements per row, so it stays small while the traversal
+ * is still depth-first at batch granularity. Count only.
+ */
+public class BatchSolver implements SubtreeCounter {
+
+    public static final int BATCH = 1024; // placements per row buffer
+
+    private final int n;
+    private final long all; // n low bits set
+    private final BatchKernel kernel;
+    private final long[][] cols; // row -> batch of column masks
+    private final long[][] ld;
+    private final long[][] rd;
+    private final long[][] free;
+    private final int[] size; // row -> placements in its buffer
+    private volatile boolean stopRequested = false;
+    private long nodes = 0; // placements generated; read unsynchronized for progress reports
+
+    public BatchSolver(int n) {
+        this(n, BatchKernel.best());
+    }
+
+    public BatchSolver(int n, BatchKernel kernel) {
+        if (n < 1 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Batch solver supports 1 <= n <= " + BitboardSolver.MAX_N);
+        }
+        this.n = n;
+        this.all = (1L << n) - 1;
+        this.kernel = kernel;
+        this.cols = new long[n][BATCH];
+        this.ld = new long[n][BATCH];
+        this.rd = new long[n][BATCH];
+        this.free = new long[n][BATCH];
+        this.size = new int[n];
+    }
+
+    @Override
+    public long countWithFirstQueen(int firstCol) {
+        if (n == 1) return 1;
+        long bit = 1L << firstCol;
+        // Buffer r holds placements with queens on rows 0..r-1
+        cols[1][0] = bit;
+        ld[1][0] = (bit << 1) & all;
+        rd[1][0] = bit >>> 1;
+        size[1] = 1;
+        return flush(1);
+    }
+
+    // Expands everything in row's buffer and empties it
+    private long flush(int row) {
+        int count = size[row];
+        size[row] = 0;
+        if (count == 0 || stopRequested) return 0;
+        nodes += count;
+        if (row == n - 1) return kernel.countFree(cols[row], ld[row], rd[row], count, all);
+        if (row == n - 2) return kernel.countTwoRows(cols[row], ld[row], rd[row], count, all);
+
+        long[] c = cols[row], l = ld[row], r = rd[row], f = free[row];
+        kernel.computeFree(c, l, r, f, count, all);
+
+        long total = 0;
+        int next = row + 1;
+        long[] nc = cols[next], nl = ld[next], nr = rd[next];
+        for (int i = 0; i < count; i++) {
+            for (long options = f[i]; options != 0; options &= options - 1) {
+                long bit = options & -options;
+                int k = size[next]++;
+                nc[k] = c[i] | bit;
+                nl[k] = ((l[i] | bit) << 1) & all;
+                nr[k] = (r[i] | bit) >>> 1;
+                if (size[next] == BATCH) total += flush(next);
+            }
+        }
+        return total + flush(next);
+    }
+
+    public BatchKernel getKernel() {
+        return kernel;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+}
@@ -0,0 +1,119 @@
+package base;
+
+/**
+ * Backtracking over long bitmasks for headless solves.
+ * Columns and both diagonal directions are tracked as occupancy masks, so a
+ * safety check is a couple of ANDs instead of Board.isSafe's scans, and
+ * nothing is allocated while searching.
+ * Free squares are taken lowest column first, so solutions come out in
+ * lexicographic order of their column arrays.
+ */
+public class BitboardSolver implements SubtreeSolver {
+
+    public static final int MAX_N = 63;
+
+    private final int n;
+    private final long all; // n low bits set
+    private final int[] columns; // row -> column of the current placement
+    private volatile boolean stopRequested = false;
+    private long nodes = 0; // recursive calls so far; read unsynchronized for progress reports
+    private SolutionListener listener;
+    private int thread_id;
+
+    public BitboardSolver(int n) {
+        if (n < 1 || n > MAX_N) {
+            throw new IllegalArgumentException("Bitboard solver supports 1 <= n <= " + MAX_N);
+        }
+        this.n = n;
+        this.all = (1L << n) - 1;
+        this.columns = new int[n];
+    }
+
+    // Number of solutions with the row-0 queen at firstCol
+    @Override
+    public long countWithFirstQueen(int firstCol) {
+        long bit = 1L << firstCol;
+        return count(bit, (bit << 1) & all, bit >>> 1);
+    }
+
+    /**
+     * Reports every solution with the row-0 queen at firstCol, in lexicographic order.
+     * The listener receives the same column array each time and must copy it to keep it.
+     */
+    @Override
+    public void enumerateWithFirstQueen(int firstCol, int thread_id, SolutionListener listener) {
+        this.listener = listener;
+        this.thread_id = thread_id;
+        long bit = 1L << firstCol;
+        columns[0] = firstCol;
+        enumerate(1, bit, (bit << 1) & all, bit >>> 1);
+    }
+
+    // Number of solutions below a partial placement given only by its occupancy masks (see Frontier)
+    public long countFrom(long cols, long ld, long rd) {
+        return count(cols, ld, rd);
+    }
+
+    /**
+     * Reports every solution extending the queens in prefix[0..depth-1], whose occupancy
+     * masks are cols, ld and rd, in lexicographic order. Same listener contract as above.
+     */
+    public void enumerateFrom(int[] prefix, int depth, long cols, long ld, long rd, int thread_id, SolutionListener listener) {
+        this.listener = listener;
+        this.thread_id = thread_id;
+        System.arraycopy(prefix, 0, columns, 0, depth);
+        enumerate(depth, cols, ld, rd);
+    }
+
+    private long count(long cols, long ld, long rd) {
+        nodes++;
+        if (cols == all) return 1;
+        if (stopRequested) return 0;
+
+        long total = 0;
+        long free = all & ~(cols | ld | rd);
+        while (free != 0) {
+            long bit = free & -free;
+            free ^= bit;
+            total += count(cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1);
+        }
+        return total;
+    }
+
+    private void enumerate(int row, long cols, long ld, long rd) {
+        nodes++;
+        if (row == n) {
+            listener.onSolution(thread_id, columns);
+            return;
+        }
+        if (stopRequested) return;
+
+        long free = all & ~(cols | ld | rd);
+        while (free != 0) {
+            long bit = free & -free;
+            free ^= bit;
+            columns[row] = Long.numberOfTrailingZeros(bit);
+            enumerate(row + 1, cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1);
+            if (stopRequested) return;
+        }
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
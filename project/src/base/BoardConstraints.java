@@ -0,0 +1,142 @@
+package base;
+
+import java.util.Arrays;
+
+/**
+ * A completion instance: queens that must stay where they are and squares no
+ * queen may use. Rows are long masks, so boards are limited to BitboardSolver.MAX_N.
+ *
+ * Text form (CLI, command socket, cache keys): "queens=r:c,r:c blocked=r:c,r:c",
+ * either part optional, rows and columns 0-based.
+ */
+public class BoardConstraints {
+
+    private final int n;
+    private final int[] queens; // row -> pre-placed column, -1 if free
+    private final long[] blocked; // row -> mask of blocked columns
+
+    public BoardConstraints(int n) {
+        if (n < 1 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Constraints support 1 <= n <= " + BitboardSolver.MAX_N);
+        }
+        this.n = n;
+        this.queens = new int[n];
+        this.blocked = new long[n];
+        Arrays.fill(queens, -1);
+    }
+
+    public static BoardConstraints parse(int n, String text) {
+        BoardConstraints constraints = new BoardConstraints(n);
+        for (String part : text.trim().split("\\s+")) {
+            if (part.isEmpty()) continue;
+            int eq = part.indexOf('=');
+            String name = eq < 0 ? part : part.substring(0, eq);
+            if (!name.equals("queens") && !name.equals("blocked")) {
+                throw new IllegalArgumentException("Unknown constraint: " + part + " (expected queens=r:c,... or blocked=r:c,...)");
+            }
+            for (String cell : part.substring(eq + 1).split(",")) {
+                if (cell.isEmpty()) continue;
+                String[] rc = cell.split(":");
+                if (rc.length != 2) throw new IllegalArgumentException("Invalid square: " + cell + " (expected row:col)");
+                int row, col;
+                try {
+                    row = Integer.parseInt(rc[0]);
+                    col = Integer.parseInt(rc[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid square: " + cell + " (expected row:col)");
+                }
+                if (name.equals("queens")) constraints.placeQueen(row, col);
+                else constraints.block(row, col);
+            }
+        }
+        return constraints;
+    }
+
+    public void placeQueen(int row, int col) {
+        check(row, col);
+        if (queens[row] >= 0 && queens[row] != col) {
+            throw new IllegalArgumentException("Row " + row + " already has a queen at column " + queens[row]);
+        }
+        queens[row] = col;
+    }
+
+    public void block(int row, int col) {
+        check(row, col);
+        blocked[row] |= 1L << col;
+    }
+
+    private void check(int row, int col) {
+        if (row < 0 || row >= n || col < 0 || col >= n) {
+            throw new IllegalArgumentException("Square " + row + ":" + col + " is off the " + n + "x" + n + " board");
+        }
+    }
+
+    // Pre-placed column of the row, or -1
+    public int getQueen(int row) {
+        return queens[row];
+    }
+
+    public boolean isBlocked(int row, int col) {
+        return (blocked[row] & (1L << col)) != 0;
+    }
+
+    public long getBlocked(int row) {
+        return blocked[row];
+    }
+
+    /**
+     * Columns of the row a queen may still use given only the constraints:
+     * not blocked, not attacked by a pre-placed queen of another row, and the
+     * pre-placed column itself if the row has one.
+     */
+    public long allowedColumns(int row) {
+        long all = (1L << n) - 1;
+        long allowed = all & ~blocked[row];
+        for (int r = 0; r < n; r++) {
+            if (queens[r] < 0 || r == row) continue;
+            allowed &= ~attacks(n, r, queens[r], row);
+        }
+        if (queens[row] >= 0) allowed &= 1L << queens[row];
+        return allowed;
+    }
+
+    // Squares of targetRow attacked by a queen at (row, col)
+    static long attacks(int n, int row, int col, int targetRow) {
+        int d = targetRow - row;
+        long mask = 1L << col;
+        int left = col - d;
+        int right = col + d;
+        if (left >= 0 && left < n) mask |= 1L << left;
+        if (right >= 0 && right < n) mask |= 1L << right;
+        return mask;
+    }
+
+    public boolean isEmpty() {
+        for (int row = 0; row < n; row++) {
+            if (queens[row] >= 0 || blocked[row] != 0) return false;
+        }
+        return true;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    // Canonical text form, rows in order, so equal constraints give equal cache keys
+    @Override
+    public String toString() {
+        StringBuilder queenText = new StringBuilder();
+        StringBuilder blockedText = new StringBuilder();
+        for (int row = 0; row < n; row++) {
+            if (queens[row] >= 0) {
+                queenText.append(queenText.length() == 0 ? "queens=" : ",").append(row).append(':').append(queens[row]);
+            }
+            for (long free = blocked[row]; free != 0; free &= free - 1) {
+                blockedText.append(blockedText.length() == 0 ? "blocked=" : ",")
+                        .append(row).append(':').append(Long.numberOfTrailingZeros(free));
+            }
+        }
+        if (queenText.length() > 0 && blockedText.length() > 0) queenText.append(' ');
+        return queenText.append(blockedText).toString();
+    }
+}
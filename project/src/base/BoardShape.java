@@ -0,0 +1,46 @@
+package base;
+
+/**
+ * Dimensions of a counting problem: a rows x cols board with this many pieces,
+ * at most one per row. The classic problem is n x n with n queens.
+ */
+public class BoardShape {
+
+    public final int rows;
+    public final int cols;
+    public final int pieces;
+
+    public BoardShape(int rows, int cols, int pieces) {
+        if (rows < 1 || cols < 1 || cols > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Board must be at least 1x1 and at most " + BitboardSolver.MAX_N + " columns wide");
+        }
+        if (pieces < 0 || pieces > rows) {
+            throw new IllegalArgumentException("Piece count must be between 0 and the number of rows (" + rows + ")");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.pieces = pieces;
+    }
+
+    public static BoardShape square(int n) {
+        return new BoardShape(n, n, n);
+    }
+
+    public boolean isClassic() {
+        return rows == cols && pieces == rows;
+    }
+
+    /**
+     * Independent subtrees the parallel scheduler can hand out: one per row-0
+     * column, plus one for "row 0 left empty" when there are fewer pieces than rows.
+     * SubtreeSolver kernels take the branch index where they take firstCol.
+     */
+    public int getBranches() {
+        return cols + (pieces < rows ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols + " k=" + pieces;
+    }
+}
@@ -0,0 +1,202 @@
+package base;
+
+/**
+ * Completes a board with pre-placed queens and blocked squares (see BoardConstraints).
+ *
+ * Every free row keeps a mask of the columns it can still use. Placing a queen
+ * strips its column and diagonals from the other rows' masks, and after each
+ * placement propagation runs to a fixed point:
+ *   - a row with no column left, or a column no row can take, is a dead end
+ *   - a row with one column left, or a column only one row can take, is placed
+ * The search then branches on the free row with the fewest columns left.
+ * Infeasible instances are usually rejected by the up-front propagation alone.
+ */
+public class CompletionSolver implements SubtreeSolver {
+
+    private final int n;
+    private final long all; // n low bits set
+    private final long[][] domains; // depth -> row -> columns still possible
+    private final long[] rowsDone; // depth -> mask of rows with a queen
+    private final long[] colsUsed; // depth -> mask of columns with a queen
+    private final int[] columns; // row -> column of the current placement
+    private final boolean feasible; // false if the up-front propagation already failed
+
+    private volatile boolean stopRequested = false;
+    private long nodes = 0; // branches tried; read unsynchronized for progress reports
+    private SolutionListener listener;
+    private int thread_id;
+    private long limit; // stop after this many solutions
+    private long found;
+
+    public CompletionSolver(BoardConstraints constraints) {
+        this.n = constraints.getN();
+        this.all = (1L << n) - 1;
+        this.domains = new long[n + 1][n];
+        this.rowsDone = new long[n + 1];
+        this.colsUsed = new long[n + 1];
+        this.columns = new int[n];
+
+        for (int row = 0; row < n; row++) {
+            domains[0][row] = constraints.allowedColumns(row);
+        }
+        boolean ok = true;
+        for (int row = 0; row < n && ok; row++) {
+            int col = constraints.getQueen(row);
+            if (col < 0) continue;
+            ok = (domains[0][row] & (1L << col)) != 0 && place(0, row, col); // false if blocked or attacked
+        }
+        this.feasible = ok && propagate(0);
+    }
+
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public long count() {
+        return run(0, null, Long.MAX_VALUE);
+    }
+
+    // Reports up to k completions; returns how many were found
+    public long findFirst(long k, SolutionListener listener) {
+        return run(0, listener, k);
+    }
+
+    @Override
+    public long countWithFirstQueen(int firstCol) {
+        return runWithFirstQueen(firstCol, null, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void enumerateWithFirstQueen(int firstCol, int thread_id, SolutionListener listener) {
+        this.thread_id = thread_id;
+        runWithFirstQueen(firstCol, listener, Long.MAX_VALUE);
+    }
+
+    private long runWithFirstQueen(int firstCol, SolutionListener listener, long k) {
+        if (!feasible || (domains[0][0] & (1L << firstCol)) == 0) return 0;
+        copyLevel(0, 1);
+        if ((rowsDone[1] & 1) == 0 && !(place(1, 0, firstCol) && propagate(1))) return 0;
+        return run(1, listener, k);
+    }
+
+    private long run(int depth, SolutionListener listener, long k) {
+        if (!feasible) return 0;
+        this.listener = listener;
+        this.limit = k;
+        this.found = 0;
+        search(depth);
+        return found;
+    }
+
+    // Depth's state is already propagated
+    private void search(int depth) {
+        nodes++;
+        if (rowsDone[depth] == all) {
+            found++;
+            if (listener != null) listener.onSolution(thread_id, columns);
+            return;
+        }
+        if (stopRequested) return;
+
+        // Most constrained free row first
+        long[] domain = domains[depth];
+        int best = -1;
+        int bestSize = Integer.MAX_VALUE;
+        for (long free = all & ~rowsDone[depth]; free != 0; free &= free - 1) {
+            int row = Long.numberOfTrailingZeros(free);
+            int size = Long.bitCount(domain[row]);
+            if (size < bestSize) {
+                best = row;
+                bestSize = size;
+            }
+        }
+
+        for (long options = domain[best]; options != 0; options &= options - 1) {
+            copyLevel(depth, depth + 1);
+            if (place(depth + 1, best, Long.numberOfTrailingZeros(options)) && propagate(depth + 1)) {
+                search(depth + 1);
+            }
+            if (found >= limit || stopRequested) return;
+        }
+    }
+
+    private void copyLevel(int from, int to) {
+        System.arraycopy(domains[from], 0, domains[to], 0, n);
+        rowsDone[to] = rowsDone[from];
+        colsUsed[to] = colsUsed[from];
+    }
+
+    // Puts a queen on (row, col) and removes its lines from the other free rows
+    private boolean place(int depth, int row, int col) {
+        long[] domain = domains[depth];
+        columns[row] = col;
+        domain[row] = 1L << col;
+        rowsDone[depth] |= 1L << row;
+        colsUsed[depth] |= 1L << col;
+        for (long free = all & ~rowsDone[depth]; free != 0; free &= free - 1) {
+            int r = Long.numberOfTrailingZeros(free);
+            domain[r] &= ~BoardConstraints.attacks(n, row, col, r);
+            if (domain[r] == 0) return false;
+        }
+        return true;
+    }
+
+    // Places forced queens until nothing changes; false on a dead end
+    private boolean propagate(int depth) {
+        long[] domain = domains[depth];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            long once = 0; // columns some free row can take
+            long twice = 0; // columns at least two free rows can take
+            for (long free = all & ~rowsDone[depth]; free != 0; free &= free - 1) {
+                int row = Long.numberOfTrailingZeros(free);
+                long d = domain[row];
+                if (d == 0) return false;
+                if ((d & (d - 1)) == 0) { // one column left
+                    if (!place(depth, row, Long.numberOfTrailingZeros(d))) return false;
+                    changed = true;
+                    continue;
+                }
+                twice |= once & d;
+                once |= d;
+            }
+            if (changed) continue; // the masks are stale after a placement
+
+            long needed = all & ~colsUsed[depth];
+            if ((once & needed) != needed) return false; // a column nobody can fill
+            long single = needed & ~twice;
+            if (single != 0) { // a column only one row can fill
+                int col = Long.numberOfTrailingZeros(single);
+                for (long free = all & ~rowsDone[depth]; free != 0; free &= free - 1) {
+                    int row = Long.numberOfTrailingZeros(free);
+                    if ((domain[row] & (1L << col)) != 0) {
+                        if (!place(depth, row, col)) return false;
+                        break;
+                    }
+                }
+                changed = true;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
@@ -0,0 +1,100 @@
+package base;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes down one solution directly, without searching, from the classic
+ * explicit construction (split by n mod 6). With 1-based numbers, the queen
+ * of row i stands in the i-th entry of
+ *
+ *   evens 2, 4, ..., then odds 1, 3, ...          when n mod 6 is not 2 or 3
+ *   evens 2, 4, ..., then odds 3, 1, 7, 9, ..., 5  when n mod 6 == 2
+ *   evens 4, 6, ..., 2, then odds 5, 7, ..., 1, 3  when n mod 6 == 3
+ *
+ * Each column is an O(1) function of its row, so a solution can be streamed
+ * for any n without an array, let alone a Board. No solution exists for n = 2, 3.
+ */
+public class ConstructiveSolver {
+
+    public static boolean hasSolution(int n) {
+        return n == 1 || n >= 4;
+    }
+
+    // Column (0-based) of the queen in the given row (0-based)
+    public static int columnOf(int n, int row) {
+        int evens = n / 2;
+        int odds = n - evens;
+        int value; // 1-based
+        switch (n % 6) {
+            case 2:
+                if (row < evens) {
+                    value = 2 * (row + 1);
+                } else {
+                    int j = row - evens;
+                    if (j == 0) value = 3;
+                    else if (j == 1) value = 1;
+                    else if (j == odds - 1) value = 5;
+                    else value = 2 * j + 3;
+                }
+                break;
+            case 3:
+                if (row < evens) {
+                    value = (row == evens - 1) ? 2 : 2 * row + 4;
+                } else {
+                    int j = row - evens;
+                    if (j == odds - 2) value = 1;
+                    else if (j == odds - 1) value = 3;
+                    else value = 2 * j + 5;
+                }
+                break;
+            default:
+                value = (row < evens) ? 2 * (row + 1) : 2 * (row - evens) + 1;
+        }
+        return value - 1;
+    }
+
+    public static int[] generate(int n) {
+        checkSize(n);
+        int[] columns = new int[n];
+        for (int row = 0; row < n; row++) {
+            columns[row] = columnOf(n, row);
+        }
+        return columns;
+    }
+
+    /**
+     * Writes the columns of rows 0..n-1, space separated, straight from columnOf.
+     * Digits are formatted into a reused buffer, so nothing is allocated per queen.
+     */
+    public static void write(int n, Writer out) throws IOException {
+        checkSize(n);
+        char[] buffer = new char[8192];
+        int length = 0;
+        for (int row = 0; row < n; row++) {
+            if (length > buffer.length - 12) { // room for a separator and a 10-digit int
+                out.write(buffer, 0, length);
+                length = 0;
+            }
+            if (row > 0) buffer[length++] = ' ';
+            int col = columnOf(n, row);
+            int start = length;
+            do {
+                buffer[length++] = (char) ('0' + col % 10);
+                col /= 10;
+            } while (col > 0);
+            for (int i = start, j = length - 1; i < j; i++, j--) { // digits were written backwards
+                char t = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = t;
+            }
+        }
+        out.write(buffer, 0, length);
+    }
+
+    private static void checkSize(int n) {
+        if (!hasSolution(n)) {
+            throw new IllegalArgumentException("No solution exists for n = " + n);
+        }
+    }
+}
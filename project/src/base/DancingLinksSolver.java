@@ -0,0 +1,273 @@
+package base;
+
+/**
+ * N-Queens as exact cover, solved with Knuth's Algorithm X and dancing links.
+ *
+ * Matrix columns: n ranks and n files are primary (covered exactly once),
+ * the 2n-1 diagonals and 2n-1 anti-diagonals are secondary (covered at most
+ * once). Every square is a matrix row touching its rank, file and two diagonals.
+ * Blocked squares are simply left out of the matrix and pre-placed queens are
+ * selected before the search starts, so constraints need no search code of
+ * their own.
+ *
+ * The links live in flat int arrays indexed by node, headers first, instead
+ * of one object per node. Search branches on the primary column with the
+ * fewest rows left, so solutions do not come out in lexicographic order.
+ * It is much slower than BitboardSolver; its job is an independent second
+ * implementation to cross-check counts against.
+ */
+public class DancingLinksSolver implements SubtreeSolver {
+
+    private static final int ROOT = 0;
+
+    private final int n;
+    private final int primary; // primary columns are headers 1..primary
+    // Node arrays: headers first (root + all columns), then 4 nodes per square
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column; // node -> its column header
+    private final int[] square; // node -> row * n + col of its matrix row, -1 for headers
+    private final int[] size; // header -> rows currently in the column
+    private final int[] firstNode; // square -> its rank node, -1 if the square is blocked
+    private final boolean[] covered; // header -> covered by a pre-placed queen
+    private final int[] columns; // row -> column of the current placement
+    private final boolean feasible; // false if pre-placed queens attack each other
+
+    private volatile boolean stopRequested = false;
+    private long nodes = 0; // matrix rows selected; read unsynchronized for progress reports
+    private SolutionListener listener;
+    private int thread_id;
+
+    public DancingLinksSolver(int n) {
+        this(n, null);
+    }
+
+    public DancingLinksSolver(int n, BoardConstraints constraints) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Board size must be positive");
+        }
+        if (constraints != null && constraints.getN() != n) {
+            throw new IllegalArgumentException("Constraints are for a " + constraints.getN() + "x" + constraints.getN() + " board");
+        }
+        this.n = n;
+        this.primary = 2 * n;
+        int headers = 1 + primary + 2 * (2 * n - 1);
+        int total = headers + 4 * n * n;
+        this.left = new int[total];
+        this.right = new int[total];
+        this.up = new int[total];
+        this.down = new int[total];
+        this.column = new int[total];
+        this.square = new int[total];
+        this.size = new int[headers];
+        this.firstNode = new int[n * n];
+        this.covered = new boolean[headers];
+        this.columns = new int[n];
+
+        // Headers: root and primaries in a circular list, secondaries linked only to themselves
+        for (int h = 0; h < headers; h++) {
+            up[h] = down[h] = column[h] = h;
+            square[h] = -1;
+            left[h] = right[h] = h;
+        }
+        for (int h = 0; h <= primary; h++) {
+            left[h] = (h == 0) ? primary : h - 1;
+            right[h] = (h == primary) ? ROOT : h + 1;
+        }
+
+        int next = headers;
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int sq = row * n + col;
+                if (constraints != null && constraints.isBlocked(row, col)) {
+                    firstNode[sq] = -1;
+                    continue;
+                }
+                int rank = 1 + row;
+                int file = 1 + n + col;
+                int diag = 1 + primary + row + col;
+                int anti = 1 + primary + (2 * n - 1) + (col - row + n - 1);
+                firstNode[sq] = next;
+                int[] cols = {rank, file, diag, anti};
+                for (int k = 0; k < 4; k++) {
+                    int node = next + k;
+                    int h = cols[k];
+                    column[node] = h;
+                    square[node] = sq;
+                    // Append at the bottom of the column
+                    up[node] = up[h];
+                    down[node] = h;
+                    down[up[h]] = node;
+                    up[h] = node;
+                    size[h]++;
+                    // Circular row of four
+                    left[node] = next + (k + 3) % 4;
+                    right[node] = next + (k + 1) % 4;
+                }
+                next += 4;
+            }
+        }
+
+        boolean ok = true;
+        if (constraints != null) {
+            for (int row = 0; row < n && ok; row++) {
+                int col = constraints.getQueen(row);
+                if (col < 0) continue;
+                ok = select(row * n + col);
+            }
+        }
+        this.feasible = ok;
+    }
+
+    // Permanently selects a pre-placed queen's matrix row; false if it is blocked or attacked
+    private boolean select(int sq) {
+        int node = firstNode[sq];
+        if (node < 0 || !isAvailable(node)) return false;
+        columns[sq / n] = sq % n;
+        int j = node;
+        do {
+            cover(column[j]);
+            covered[column[j]] = true;
+            j = right[j];
+        } while (j != node);
+        return true;
+    }
+
+    private boolean isAvailable(int node) {
+        int j = node;
+        do {
+            if (covered[column[j]]) return false;
+            j = right[j];
+        } while (j != node);
+        return true;
+    }
+
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public long count() {
+        this.listener = null;
+        return feasible ? search() : 0;
+    }
+
+    @Override
+    public long countWithFirstQueen(int firstCol) {
+        this.listener = null;
+        return withFirstQueen(firstCol);
+    }
+
+    @Override
+    public void enumerateWithFirstQueen(int firstCol, int thread_id, SolutionListener listener) {
+        this.listener = listener;
+        this.thread_id = thread_id;
+        withFirstQueen(firstCol);
+    }
+
+    private long withFirstQueen(int firstCol) {
+        if (!feasible) return 0;
+        int node = firstNode[firstCol];
+        if (node < 0) return 0;
+        if (covered[column[node]]) { // rank 0 holds a pre-placed queen
+            return columns[0] == firstCol ? search() : 0;
+        }
+        if (!isAvailable(node)) return 0;
+
+        columns[0] = firstCol;
+        coverRow(node);
+        long total = search();
+        uncoverRow(node);
+        return total;
+    }
+
+    private long search() {
+        if (right[ROOT] == ROOT) {
+            if (listener != null) listener.onSolution(thread_id, columns);
+            return 1;
+        }
+        if (stopRequested) return 0;
+
+        // Primary column with the fewest rows left
+        int best = right[ROOT];
+        for (int h = right[best]; h != ROOT; h = right[h]) {
+            if (size[h] < size[best]) best = h;
+        }
+        if (size[best] == 0) return 0;
+
+        long total = 0;
+        cover(best);
+        for (int r = down[best]; r != best; r = down[r]) {
+            nodes++;
+            int sq = square[r];
+            columns[sq / n] = sq % n;
+            for (int j = right[r]; j != r; j = right[j]) cover(column[j]);
+            total += search();
+            for (int j = left[r]; j != r; j = left[j]) uncover(column[j]);
+            if (stopRequested) break;
+        }
+        uncover(best);
+        return total;
+    }
+
+    private void coverRow(int node) {
+        int j = node;
+        do {
+            cover(column[j]);
+            j = right[j];
+        } while (j != node);
+    }
+
+    private void uncoverRow(int node) {
+        int j = left[node];
+        while (true) {
+            uncover(column[j]);
+            if (j == node) break;
+            j = left[j];
+        }
+    }
+
+    private void cover(int c) {
+        left[right[c]] = left[c];
+        right[left[c]] = right[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        left[right[c]] = c;
+        right[left[c]] = c;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
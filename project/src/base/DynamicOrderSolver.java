@@ -0,0 +1,217 @@
+package base;
+
+import java.util.Arrays;
+
+/**
+ * First-solution search that chooses where to branch at every node instead of
+ * filling rows top to bottom. The row or column with the fewest free squares
+ * left is branched on (a line with none left is a dead end), and its squares
+ * are tried least constraining first: the square that takes away the fewest
+ * free squares from the other open lines.
+ *
+ * Every square keeps a count of the queens attacking it, and every open row
+ * and column keeps its number of free squares; placing or removing a queen
+ * updates both along its four lines in O(n), so the choice at each node is
+ * a scan of 2n counters.
+ *
+ * Meant for one or a few solutions at sizes where row order gets stuck
+ * (see FirstSolutionBenchmark); it does not count or enumerate in any order.
+ */
+public class DynamicOrderSolver {
+
+    public static final int MAX_N = 4096; // state is O(n^2): about 200 MB at this size
+    private static final int CHECK_INTERVAL = 1024; // nodes between deadline checks
+
+    private final int n;
+    private final int[] attacks; // row * n + col -> queens attacking that square
+    private final int[] rowFree; // row -> unattacked squares, meaningful while the row is open
+    private final int[] colFree; // col -> unattacked squares, meaningful while the column is open
+    private final boolean[] rowDone;
+    private final boolean[] colDone;
+    private final int[] columns; // row -> column of the current placement
+    private final int[][] candidates; // depth -> squares of the chosen line, best first
+    private final int[][] damage; // depth -> free squares each candidate would take away
+    private volatile boolean stopRequested = false;
+    private long deadline = Long.MAX_VALUE; // System.nanoTime() after which the search gives up
+    private long nodes = 0;
+
+    private SolutionListener listener;
+    private long limit;
+    private long found;
+
+    public DynamicOrderSolver(int n) {
+        if (n < 1 || n > MAX_N) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + MAX_N);
+        }
+        this.n = n;
+        this.attacks = new int[n * n];
+        this.rowFree = new int[n];
+        this.colFree = new int[n];
+        this.rowDone = new boolean[n];
+        this.colDone = new boolean[n];
+        this.columns = new int[n];
+        this.candidates = new int[n][n];
+        this.damage = new int[n][n];
+        Arrays.fill(rowFree, n);
+        Arrays.fill(colFree, n);
+    }
+
+    // Search gives up (as if stopped) once System.nanoTime() passes this value
+    public void setDeadline(long nanoTime) {
+        this.deadline = nanoTime;
+    }
+
+    public void setTimeLimitMillis(long ms) {
+        this.deadline = System.nanoTime() + ms * 1_000_000;
+    }
+
+    /**
+     * Reports up to k solutions (row -> column; the array is reused) within the time limit.
+     * @return the number of solutions reported
+     */
+    public long findFirst(long k, SolutionListener listener) {
+        this.listener = listener;
+        this.limit = k;
+        this.found = 0;
+        search(0);
+        return found;
+    }
+
+    // First solution, or null if there is none or the time ran out
+    public int[] solve() {
+        int[][] first = new int[1][];
+        findFirst(1, (thread_id, cols) -> first[0] = cols.clone());
+        return first[0];
+    }
+
+    private void search(int depth) {
+        if (depth == n) {
+            found++;
+            if (listener != null) listener.onSolution(0, columns);
+            return;
+        }
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline) {
+            stopRequested = true;
+        }
+        if (stopRequested) return;
+
+        // Most constrained open line; ties go to the lower index, rows before columns
+        int bestLine = -1;
+        boolean bestIsRow = true;
+        int bestFree = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!rowDone[i] && rowFree[i] < bestFree) {
+                bestLine = i;
+                bestIsRow = true;
+                bestFree = rowFree[i];
+            }
+            if (!colDone[i] && colFree[i] < bestFree) {
+                bestLine = i;
+                bestIsRow = false;
+                bestFree = colFree[i];
+            }
+        }
+        if (bestFree == 0) return; // a line that can no longer hold its queen
+
+        // Collect its free squares, least constraining first (insertion sort, lines are short)
+        int[] squares = candidates[depth];
+        int[] cost = damage[depth];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int square = bestIsRow ? bestLine * n + i : i * n + bestLine;
+            if (attacks[square] != 0) continue;
+            int c = damageOf(square / n, square % n);
+            int j = count++;
+            while (j > 0 && cost[j - 1] > c) {
+                squares[j] = squares[j - 1];
+                cost[j] = cost[j - 1];
+                j--;
+            }
+            squares[j] = square;
+            cost[j] = c;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int row = squares[i] / n;
+            int col = squares[i] % n;
+            place(row, col);
+            search(depth + 1);
+            remove(row, col);
+            if (found >= limit || stopRequested) return;
+        }
+    }
+
+    // Free squares of open lines that a queen on (row, col) would attack
+    private int damageOf(int row, int col) {
+        int total = 0;
+        for (int c = 0; c < n; c++) {
+            if (attacks[row * n + c] == 0 && !colDone[c]) total++;
+        }
+        for (int r = 0; r < n; r++) {
+            if (r == row || rowDone[r] || attacks[r * n + col] != 0) continue;
+            total++;
+            int d = r - row;
+            int left = col - d;
+            int right = col + d;
+            if (left >= 0 && left < n && attacks[r * n + left] == 0 && !colDone[left]) total++;
+            if (right >= 0 && right < n && attacks[r * n + right] == 0 && !colDone[right]) total++;
+        }
+        return total;
+    }
+
+    private void place(int row, int col) {
+        columns[row] = col;
+        rowDone[row] = true;
+        colDone[col] = true;
+        update(row, col, 1);
+    }
+
+    private void remove(int row, int col) {
+        update(row, col, -1);
+        rowDone[row] = false;
+        colDone[col] = false;
+    }
+
+    // Adds delta to every square the queen on (row, col) attacks, itself included, once each
+    private void update(int row, int col, int delta) {
+        for (int c = 0; c < n; c++) touch(row, c, delta);
+        for (int r = 0; r < n; r++) {
+            if (r == row) continue;
+            touch(r, col, delta);
+            int d = r - row;
+            int left = col - d;
+            int right = col + d;
+            if (left >= 0 && left < n) touch(r, left, delta);
+            if (right >= 0 && right < n) touch(r, right, delta);
+        }
+    }
+
+    private void touch(int row, int col, int delta) {
+        int square = row * n + col;
+        int before = attacks[square];
+        attacks[square] = before + delta;
+        if (before == 0) { // was free, now attacked
+            rowFree[row]--;
+            colFree[col]--;
+        } else if (before == 1 && delta < 0) { // free again
+            rowFree[row]++;
+            colFree[col]++;
+        }
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
@@ -0,0 +1,253 @@
+package base;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The classic search tree expanded breadth-first a few rows deep, as the task
+ * list of a parallel run. Splitting on row 0 alone gives n tasks whose sizes
+ * differ by orders of magnitude; expanding rows until there are at least
+ * targetTasks partial placements gives thousands of small tasks, which the
+ * workers claim in contiguous batches until none are left.
+ *
+ * A task is one slot in parallel primitive arrays: its column and diagonal
+ * masks, plus the columns of its queens in a flat int array, depth entries per
+ * task. Children are generated lowest column first, so tasks are in
+ * lexicographic order of their prefixes and the tasks of each row-0 column
+ * are contiguous.
+ */
+public class Frontier {
+
+    public static final int MAX_TASKS = 1 << 20; // a level that would be bigger is not expanded
+    public static final int BATCHES_PER_THREAD = 16; // claims per worker on an even split
+
+    private final int n;
+    private final int depth; // queens placed in every task
+    private final int size;
+    private final long[] cols; // task -> column mask
+    private final long[] ld;
+    private final long[] rd;
+    private final int[] prefix; // task * depth + row -> column of that row's queen
+    private final long[] taskNodes; // task -> nodes its worker searched, 0 until it is done
+    private final AtomicIntegerArray columnRemaining; // row-0 column -> tasks not done yet
+    private final AtomicLongArray columnNodes; // row-0 column -> nodes searched so far, expansion included
+    private final long buildNodes; // partial placements expanded while building
+    private final long buildNanos;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private int batchSize = 1;
+
+    public Frontier(int n, int targetTasks) {
+        this(n, 0, n, targetTasks);
+    }
+
+    // Only tasks whose row-0 queen is in columns [fromCol, toCol)
+    public Frontier(int n, int fromCol, int toCol, int targetTasks) {
+        if (n < 1 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Frontier supports 1 <= n <= " + BitboardSolver.MAX_N);
+        }
+        if (fromCol < 0 || toCol > n || fromCol >= toCol) {
+            throw new IllegalArgumentException("Invalid column range " + fromCol + ".." + toCol);
+        }
+        long start = System.nanoTime();
+        long all = (1L << n) - 1;
+        long[] internal = new long[n]; // row-0 column -> expanded placements
+
+        int level = 1;
+        int count = toCol - fromCol;
+        long[] c = new long[count];
+        long[] l = new long[count];
+        long[] r = new long[count];
+        int[] p = new int[count];
+        for (int i = 0; i < count; i++) {
+            long bit = 1L << (fromCol + i);
+            c[i] = bit;
+            l[i] = (bit << 1) & all;
+            r[i] = bit >>> 1;
+            p[i] = fromCol + i;
+        }
+
+        while (count < targetTasks && level < n - 1) {
+            long children = 0;
+            for (int i = 0; i < count; i++) {
+                children += Long.bitCount(all & ~(c[i] | l[i] | r[i]));
+            }
+            if (children > MAX_TASKS) break;
+
+            int next = (int) children;
+            long[] nc = new long[next];
+            long[] nl = new long[next];
+            long[] nr = new long[next];
+            int[] np = new int[next * (level + 1)];
+            int k = 0;
+            for (int i = 0; i < count; i++) {
+                internal[p[i * level]]++;
+                for (long free = all & ~(c[i] | l[i] | r[i]); free != 0; free &= free - 1) {
+                    long bit = free & -free;
+                    nc[k] = c[i] | bit;
+                    nl[k] = ((l[i] | bit) << 1) & all;
+                    nr[k] = (r[i] | bit) >>> 1;
+                    System.arraycopy(p, i * level, np, k * (level + 1), level);
+                    np[k * (level + 1) + level] = Long.numberOfTrailingZeros(bit);
+                    k++;
+                }
+            }
+            c = nc;
+            l = nl;
+            r = nr;
+            p = np;
+            count = next;
+            level++;
+        }
+
+        this.n = n;
+        this.depth = level;
+        this.size = count;
+        this.cols = c;
+        this.ld = l;
+        this.rd = r;
+        this.prefix = p;
+        this.taskNodes = new long[count];
+        this.columnRemaining = new AtomicIntegerArray(n);
+        this.columnNodes = new AtomicLongArray(n);
+        long expanded = 0;
+        for (int col = 0; col < n; col++) {
+            columnNodes.set(col, internal[col]);
+            expanded += internal[col];
+        }
+        for (int task = 0; task < count; task++) {
+            columnRemaining.incrementAndGet(p[task * level]);
+        }
+        this.buildNodes = expanded;
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    // Rewinds the claim cursor and sizes batches so each of the given workers gets about BATCHES_PER_THREAD
+    public void plan(int threads) {
+        batchSize = Math.max(1, size / (Math.max(1, threads) * BATCHES_PER_THREAD));
+        cursor.set(0);
+    }
+
+    // First task of the next unclaimed batch, or -1 when all are claimed
+    public int claim() {
+        int start = cursor.getAndAdd(batchSize);
+        return start < size ? start : -1;
+    }
+
+    // Records a finished task; its row-0 column is done once all of its tasks are
+    private void taskDone(int task, long nodes) {
+        int col = getFirstColumn(task);
+        taskNodes[task] = nodes;
+        columnNodes.addAndGet(col, nodes);
+        columnRemaining.decrementAndGet(col);
+    }
+
+    /**
+     * Searches one task with the given kernel and records it as done. COUNT returns its
+     * solution count; ENUMERATE passes its solutions to the listener (prefix is scratch
+     * space of depth entries) and returns 0. Returns -1, recording nothing, if the kernel
+     * was stopped before the task was finished.
+     */
+    public long solveTask(int task, BitboardSolver kernel, SolveMode mode, int thread_id, SolutionListener listener, int[] prefix) {
+        long before = kernel.getNodes();
+        long found = 0;
+        if (mode == SolveMode.COUNT) {
+            found = kernel.countFrom(cols[task], ld[task], rd[task]);
+        } else {
+            kernel.enumerateFrom(getPrefix(task, prefix), depth, cols[task], ld[task], rd[task], thread_id, listener);
+        }
+        if (kernel.isStopRequested()) return -1;
+        taskDone(task, kernel.getNodes() - before);
+        return found;
+    }
+
+    // Exact node count of a row-0 column whose tasks are all done, or -1
+    public long getColumnNodes(int col) {
+        return columnRemaining.get(col) == 0 ? columnNodes.get(col) : -1;
+    }
+
+    public long getCols(int task) {
+        return cols[task];
+    }
+
+    public long getLd(int task) {
+        return ld[task];
+    }
+
+    public long getRd(int task) {
+        return rd[task];
+    }
+
+    public int getFirstColumn(int task) {
+        return prefix[task * depth];
+    }
+
+    // Copies the task's queens (row -> column, depth entries) into the given array
+    public int[] getPrefix(int task, int[] into) {
+        if (into == null) into = new int[depth];
+        System.arraycopy(prefix, task * depth, into, 0, depth);
+        return into;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBuildNodes() {
+        return buildNodes;
+    }
+
+    public long getBuildMillis() {
+        return buildNanos / 1_000_000;
+    }
+
+    // Bytes held by the task arrays, node counts included
+    public long getMemoryBytes() {
+        return (long) size * (4 * Long.BYTES + depth * Integer.BYTES);
+    }
+
+    // Largest task's fraction of all task nodes, 0..1; only final once the run is
+    public double getLargestTaskShare() {
+        long max = 0;
+        long total = 0;
+        for (long nodes : taskNodes) {
+            max = Math.max(max, nodes);
+            total += nodes;
+        }
+        return total == 0 ? 0 : (double) max / total;
+    }
+
+    /**
+     * Task granularity and memory: depth, task and batch counts, array footprint,
+     * and nodes per task (min, mean, max, and the largest task's share of all
+     * task nodes). Node figures are only complete once the run is.
+     */
+    public String getStats() {
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long total = 0;
+        for (long nodes : taskNodes) {
+            min = Math.min(min, nodes);
+            max = Math.max(max, nodes);
+            total += nodes;
+        }
+        if (size == 0) min = 0;
+        int batches = (size + batchSize - 1) / batchSize;
+        return String.format("depth %d, %d tasks in %d batches of %d, %.1f KB, built in %d ms; " +
+                        "nodes per task min %d, mean %.1f, max %d (%.2f%% of %d)",
+                depth, size, batches, batchSize, getMemoryBytes() / 1024.0, getBuildMillis(),
+                min, size == 0 ? 0.0 : (double) total / size, max, getLargestTaskShare() * 100, total);
+    }
+}
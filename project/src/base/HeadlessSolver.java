@@ -0,0 +1,423 @@
+package base;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Headless solves that go through the ResultCache first.
+ * Shared by the CLI, the command socket and the HTTP service.
+ */
+public class HeadlessSolver {
+
+    // Solution sets larger than this are streamed but only their counts are cached
+    public static final int MAX_CACHED_SOLUTIONS = 1 << 22;
+
+    public static final long PROGRESS_INTERVAL_MS = 1000;
+
+    // How often a solve given a cancellation check asks it whether to stop
+    public static final long CANCEL_CHECK_MS = 100;
+    private static final int CANCEL_CHECK_SOLUTIONS = 4096; // same, between cached solutions replayed
+
+    private static final int SESSION_PROBES = 2000; // tree size probes per column before a session with progress starts
+
+    // Breadth-first frontier size per worker for classic bitboard runs (see Frontier)
+    public static final int FRONTIER_TASKS_PER_THREAD = 256;
+
+    // -Dnqueens.virtual.threads=true runs every task on its own virtual thread (see SubtreeScope)
+    public static final boolean VIRTUAL_THREADS = Boolean.getBoolean("nqueens.virtual.threads");
+
+    public static long[] countByColumn(int n, int threads) {
+        return countByColumn(n, threads, null);
+    }
+
+    /**
+     * Solutions per row-0 column for the classic problem, from the cache or a COUNT-mode solve.
+     * A non-null reporter receives a progress snapshot every PROGRESS_INTERVAL_MS while solving.
+     */
+    public static long[] countByColumn(int n, int threads, Consumer<SolveProgress> reporter) {
+        return countByColumn(n, threads, null, reporter);
+    }
+
+    /**
+     * Same for a completion instance (null constraints = the classic problem).
+     * Constrained solves get no progress reports: the tree size estimate assumes an empty board,
+     * and with propagation they finish in milliseconds anyway. When the classic solution set
+     * is cached they are answered from its SolutionIndex instead of searching.
+     */
+    public static long[] countByColumn(int n, int threads, BoardConstraints constraints, Consumer<SolveProgress> reporter) {
+        return countByColumn(n, threads, constraints, SearchEngine.BITBOARD, reporter);
+    }
+
+    /**
+     * Same, solved by the given engine. Any engine but BITBOARD is there to cross-check
+     * counts, so it always solves from scratch: the cache is neither read nor written,
+     * and there are no progress reports (the estimate models the bitboard search tree).
+     */
+    public static long[] countByColumn(int n, int threads, BoardConstraints constraints, SearchEngine engine,
+                                       Consumer<SolveProgress> reporter) {
+        return countByColumn(n, threads, constraints, engine, reporter, null);
+    }
+
+    /**
+     * Same, stopped as soon as cancelled returns true, e.g. because the client asking went
+     * away; it is checked every CANCEL_CHECK_MS while solving (null = never). A cancelled
+     * count is not cached. The meet-in-the-middle engine can't be stopped.
+     * @throws IllegalStateException if the count was cancelled
+     */
+    public static long[] countByColumn(int n, int threads, BoardConstraints constraints, SearchEngine engine,
+                                       Consumer<SolveProgress> reporter, BooleanSupplier cancelled) {
+        checkSize(n, constraints);
+        boolean useCache = engine == SearchEngine.BITBOARD;
+        if (constraints != null || !useCache) reporter = null;
+        ResultCache cache = ResultCache.getDefault();
+        ResultCache.Key key = ResultCache.Key.of(n, constraints);
+        ResultCache.Entry cached = useCache ? cache.getCounts(key) : null;
+        if (cached != null && cached.columnCounts != null) {
+            return cached.columnCounts;
+        }
+        SolutionIndex index = (constraints != null && useCache) ? cache.getIndex(ResultCache.Key.classic(n)) : null;
+        if (index != null) {
+            long[] counts = index.countByColumn(constraints);
+            cache.put(key, new ResultCache.Entry(sum(counts), counts, null));
+            return counts;
+        }
+
+        if (engine == SearchEngine.MEET_IN_THE_MIDDLE) {
+            if (constraints != null) throw new IllegalArgumentException("The meet-in-the-middle engine doesn't support constraints");
+            if (n > MeetInTheMiddleCounter.MAX_N) {
+                throw new IllegalArgumentException("The meet-in-the-middle engine supports n up to " + MeetInTheMiddleCounter.MAX_N);
+            }
+            return new MeetInTheMiddleCounter(n).countByColumn(threads);
+        }
+
+        ThreadManager threadManager = new ThreadManager();
+        threadManager.setMode(SolveMode.COUNT);
+        threadManager.setConstraints(constraints);
+        threadManager.setEngine(engine);
+        threadManager.setFrontierTasks(threads * FRONTIER_TASKS_PER_THREAD);
+        threadManager.setVirtualThreads(VIRTUAL_THREADS);
+        StateManager stateManager = new StateManager();
+        stateManager.setVerbose(false);
+        run(threadManager, n, threads, stateManager, reporter, cancelled, "Count of n = " + n);
+
+        long[] counts = new long[n];
+        synchronized (stateManager) {
+            for (Map.Entry<Integer, Long> entry : stateManager.column_counts.entrySet()) {
+                counts[entry.getKey()] = entry.getValue();
+            }
+        }
+        if (useCache) cache.put(key, new ResultCache.Entry(sum(counts), counts, null));
+        return counts;
+    }
+
+    /**
+     * Solutions per scheduler branch (see BoardShape.getBranches) for a counting variant,
+     * from the cache or a parallel COUNT-mode run of the rule's own kernel.
+     */
+    public static long[] countVariant(AttackRule rule, BoardShape shape, int threads) {
+        return countVariant(rule, shape, threads, null);
+    }
+
+    // Same, stopped as soon as cancelled returns true (see countByColumn)
+    public static long[] countVariant(AttackRule rule, BoardShape shape, int threads, BooleanSupplier cancelled) {
+        if (rule instanceof QueenRule && shape.isClassic()) {
+            return countByColumn(shape.rows, threads, null, SearchEngine.BITBOARD, null, cancelled);
+        }
+        ResultCache cache = ResultCache.getDefault();
+        ResultCache.Key key = new ResultCache.Key(shape.rows, rule.getName(), shape.isClassic() ? "" : shape.toString());
+        ResultCache.Entry cached = cache.getCounts(key);
+        if (cached != null && cached.columnCounts != null) {
+            return cached.columnCounts;
+        }
+
+        ThreadManager threadManager = new ThreadManager();
+        threadManager.setMode(SolveMode.COUNT);
+        threadManager.setVariant(rule, shape);
+        threadManager.setVirtualThreads(VIRTUAL_THREADS);
+        StateManager stateManager = new StateManager();
+        stateManager.setVerbose(false);
+        run(threadManager, shape.rows, threads, stateManager, null, cancelled, "Count of " + rule.getName() + " on " + shape);
+
+        long[] counts = new long[shape.getBranches()];
+        synchronized (stateManager) {
+            for (Map.Entry<Integer, Long> entry : stateManager.column_counts.entrySet()) {
+                counts[entry.getKey()] = entry.getValue();
+            }
+        }
+        cache.put(key, new ResultCache.Entry(sum(counts), counts, null));
+        return counts;
+    }
+
+    /**
+     * Classic counts from the cache or a COUNT session on a shared pool, using at most
+     * maxThreads of its workers at once with the given priority (see SolveSession).
+     * A session still running after timeLimitMs is cancelled.
+     * @throws IllegalStateException if the session was cancelled (the time limit ran out,
+     * the pool was closed, or the caller was interrupted)
+     */
+    public static long[] countByColumn(int n, WorkerPool pool, int maxThreads, int priority, long timeLimitMs) {
+        checkSize(n, null);
+        ResultCache cache = ResultCache.getDefault();
+        ResultCache.Key key = ResultCache.Key.classic(n);
+        ResultCache.Entry cached = cache.getCounts(key);
+        if (cached != null && cached.columnCounts != null) {
+            return cached.columnCounts;
+        }
+        SolveSession session = new SolveSession(n, SolveMode.COUNT);
+        session.setMaxThreads(maxThreads);
+        session.setPriority(priority);
+        if (pool.submit(session).await(timeLimitMs) < 0) {
+            throw new IllegalStateException("Count of n = " + n + " was cancelled after " + session.getElapsedMillis() + " ms");
+        }
+        long[] counts = session.getColumnCounts();
+        cache.put(key, new ResultCache.Entry(sum(counts), counts, null));
+        return counts;
+    }
+
+    /**
+     * Same without a time limit, stopped as soon as cancelled returns true (see the
+     * ThreadManager version; null = never), with progress passed to a non-null reporter.
+     * @throws IllegalStateException if the session was cancelled
+     */
+    public static long[] countByColumn(int n, WorkerPool pool, int maxThreads, int priority,
+                                       Consumer<SolveProgress> reporter, BooleanSupplier cancelled) {
+        checkSize(n, null);
+        ResultCache cache = ResultCache.getDefault();
+        ResultCache.Key key = ResultCache.Key.classic(n);
+        ResultCache.Entry cached = cache.getCounts(key);
+        if (cached != null && cached.columnCounts != null) {
+            return cached.columnCounts;
+        }
+        SolveSession session = new SolveSession(n, SolveMode.COUNT);
+        session.setMaxThreads(maxThreads);
+        session.setPriority(priority);
+        runSession(pool, session, reporter, cancelled, "Count of n = " + n);
+        long[] counts = session.getColumnCounts();
+        cache.put(key, new ResultCache.Entry(sum(counts), counts, null));
+        return counts;
+    }
+
+    public static long count(int n, int threads) {
+        return sum(countByColumn(n, threads, null));
+    }
+
+    public static long enumerate(int n, int threads, SolutionListener listener) {
+        return enumerate(n, threads, listener, null);
+    }
+
+    /**
+     * Passes every solution of the classic problem to the listener and returns how many there were.
+     * Solutions come in lexicographic order, the same on every run: a cached set is
+     * replayed, otherwise the workers' output is merged in order as they go (see
+     * SolutionMerger), with progress reported like countByColumn, and the result is
+     * cached for next time.
+     */
+    public static long enumerate(int n, int threads, SolutionListener listener, Consumer<SolveProgress> reporter) {
+        return enumerate(n, threads, null, listener, reporter);
+    }
+
+    // Same for a completion instance (null constraints = the classic problem)
+    public static long enumerate(int n, int threads, BoardConstraints constraints, SolutionListener listener, Consumer<SolveProgress> reporter) {
+        return enumerate(n, threads, constraints, listener, reporter, null);
+    }
+
+    /**
+     * Same, stopped as soon as cancelled returns true (see countByColumn); a cached set
+     * being replayed checks it every CANCEL_CHECK_SOLUTIONS solutions.
+     * @throws IllegalStateException if the enumeration was cancelled
+     */
+    public static long enumerate(int n, int threads, BoardConstraints constraints, SolutionListener listener,
+                                 Consumer<SolveProgress> reporter, BooleanSupplier cancelled) {
+        checkSize(n, constraints);
+        if (constraints != null) reporter = null;
+        ResultCache cache = ResultCache.getDefault();
+        ResultCache.Key key = ResultCache.Key.of(n, constraints);
+        PackedSolutions cached = cache.getSolutions(key);
+        if (cached != null) {
+            return replay(cached, listener, cancelled);
+        }
+
+        PackedSolutions packed = new PackedSolutions(n);
+        long[] counts = new long[n];
+        boolean[] overflow = {false};
+        SolutionIndex index = constraints != null ? cache.getIndex(ResultCache.Key.classic(n)) : null;
+        if (index != null) { // filter the cached classic set instead of searching
+            long found = index.forEachMatch(constraints, (thread_id, columns) -> {
+                counts[columns[0]]++;
+                packed.add(columns);
+                listener.onSolution(thread_id, columns);
+            });
+            cache.put(key, new ResultCache.Entry(found, counts, packed));
+            return found;
+        }
+
+        ThreadManager threadManager = new ThreadManager();
+        threadManager.setMode(SolveMode.ENUMERATE);
+        threadManager.setConstraints(constraints);
+        threadManager.setFrontierTasks(threads * FRONTIER_TASKS_PER_THREAD);
+        threadManager.setVirtualThreads(VIRTUAL_THREADS);
+        threadManager.setOrdered(true);
+        StateManager stateManager = new StateManager();
+        stateManager.setVerbose(false);
+        stateManager.setSolutionListener((thread_id, columns) -> { // called under the StateManager lock, in order
+            counts[columns[0]]++;
+            if (!overflow[0]) {
+                if (packed.size() < MAX_CACHED_SOLUTIONS) packed.add(columns);
+                else overflow[0] = true;
+            }
+            listener.onSolution(thread_id, columns);
+        });
+        run(threadManager, n, threads, stateManager, reporter, cancelled, "Enumeration of n = " + n);
+
+        long total = stateManager.getTotalCount();
+        cache.put(key, new ResultCache.Entry(total, counts, overflow[0] ? null : packed)); // already in lexicographic order
+        return total;
+    }
+
+    /**
+     * Classic enumeration as an ENUMERATE session on a shared pool, using at most maxThreads
+     * of its workers at once: cached like the ThreadManager version, in the same order,
+     * stopped as soon as cancelled returns true (null = never).
+     * @throws IllegalStateException if the session was cancelled
+     */
+    public static long enumerate(int n, WorkerPool pool, int maxThreads, SolutionListener listener,
+                                 Consumer<SolveProgress> reporter, BooleanSupplier cancelled) {
+        checkSize(n, null);
+        ResultCache cache = ResultCache.getDefault();
+        ResultCache.Key key = ResultCache.Key.classic(n);
+        PackedSolutions cached = cache.getSolutions(key);
+        if (cached != null) {
+            return replay(cached, listener, cancelled);
+        }
+
+        PackedSolutions packed = new PackedSolutions(n);
+        boolean[] overflow = {false};
+        SolveSession session = new SolveSession(n, SolveMode.ENUMERATE);
+        session.setMaxThreads(maxThreads);
+        session.setListener((thread_id, columns) -> { // in order, one at a time
+            if (!overflow[0]) {
+                if (packed.size() < MAX_CACHED_SOLUTIONS) packed.add(columns);
+                else overflow[0] = true;
+            }
+            listener.onSolution(thread_id, columns);
+        });
+        long total = runSession(pool, session, reporter, cancelled, "Enumeration of n = " + n);
+        cache.put(key, new ResultCache.Entry(total, session.getColumnCounts(), overflow[0] ? null : packed));
+        return total;
+    }
+
+    // A cached set, asking cancelled every CANCEL_CHECK_SOLUTIONS solutions
+    private static long replay(PackedSolutions cached, SolutionListener listener, BooleanSupplier cancelled) {
+        int[] columns = new int[cached.getN()];
+        for (int i = 0; i < cached.size(); i++) {
+            if (i % CANCEL_CHECK_SOLUTIONS == 0 && cancelled != null && cancelled.getAsBoolean()) {
+                throw new IllegalStateException("Enumeration of n = " + cached.getN() + " was cancelled");
+            }
+            listener.onSolution(-1, cached.get(i, columns));
+        }
+        return cached.size();
+    }
+
+    /**
+     * Submits the session and waits for it, asking cancelled every CANCEL_CHECK_MS and
+     * reporting progress every PROGRESS_INTERVAL_MS like runUntilCancelled. Progress
+     * counts frontier tasks instead of columns, against a tree size probed up front.
+     * @return the session's solution count
+     */
+    private static long runSession(WorkerPool pool, SolveSession session, Consumer<SolveProgress> reporter,
+                                   BooleanSupplier cancelled, String what) {
+        TreeSizeEstimator estimator = null;
+        if (reporter != null) {
+            estimator = new TreeSizeEstimator(session.getN(), System.nanoTime());
+            estimator.probeColumns(0, session.getN(), SESSION_PROBES);
+        }
+        pool.submit(session);
+        long start = System.nanoTime();
+        long reported = 0; // progress intervals reported so far
+        boolean stop = false;
+        try {
+            while (!stop && !session.waitFor(CANCEL_CHECK_MS)) {
+                stop = cancelled != null && cancelled.getAsBoolean();
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                if (estimator != null && !stop && elapsedMs / PROGRESS_INTERVAL_MS > reported) {
+                    reported = elapsedMs / PROGRESS_INTERVAL_MS;
+                    long visited = session.getNodes();
+                    reporter.accept(new SolveProgress(visited, Math.max(estimator.estimateTotal(), visited), elapsedMs,
+                            (int) session.getTasksDone(), session.getTaskCount()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop = true;
+        }
+        if (stop) session.cancel();
+        long total = session.await();
+        if (total < 0) throw new IllegalStateException(what + " was cancelled");
+        return total;
+    }
+
+    private static void run(ThreadManager threadManager, int n, int threads, StateManager stateManager,
+                            Consumer<SolveProgress> reporter, BooleanSupplier cancelled, String what) {
+        if (cancelled != null) {
+            runUntilCancelled(threadManager, n, threads, stateManager, reporter, cancelled, what);
+            return;
+        }
+        if (reporter == null) {
+            threadManager.startSolving(n, threads, stateManager);
+            threadManager.waitForCompletion();
+            return;
+        }
+        ProgressTracker monitor = new ProgressTracker(threadManager, n); // probes before the workers start
+        threadManager.startSolving(n, threads, stateManager);
+        monitor.start();
+        monitor.awaitCompletion(PROGRESS_INTERVAL_MS, reporter);
+    }
+
+    // Same, asking cancelled every CANCEL_CHECK_MS; an interrupted caller cancels too
+    private static void runUntilCancelled(ThreadManager threadManager, int n, int threads, StateManager stateManager,
+                                          Consumer<SolveProgress> reporter, BooleanSupplier cancelled, String what) {
+        ProgressTracker monitor = reporter != null ? new ProgressTracker(threadManager, n) : null;
+        threadManager.startSolving(n, threads, stateManager);
+        if (monitor != null) monitor.start();
+        long start = System.nanoTime();
+        long reported = 0; // progress intervals reported so far
+        boolean stop = false;
+        try {
+            while (threadManager.isRunning() && !stop) {
+                Thread.sleep(CANCEL_CHECK_MS);
+                stop = cancelled.getAsBoolean();
+                long intervals = (System.nanoTime() - start) / 1_000_000 / PROGRESS_INTERVAL_MS;
+                if (monitor != null && !stop && intervals > reported && threadManager.isRunning()) {
+                    reported = intervals;
+                    reporter.accept(monitor.snapshot());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop = true;
+        } finally {
+            if (monitor != null) monitor.stop();
+        }
+        if (stop) {
+            threadManager.stopAll();
+            throw new IllegalStateException(what + " was cancelled");
+        }
+        threadManager.waitForCompletion();
+    }
+
+    private static void checkSize(int n, BoardConstraints constraints) {
+        if (n < 4 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Board size must be between 4 and " + BitboardSolver.MAX_N);
+        }
+        if (constraints != null && constraints.getN() != n) {
+            throw new IllegalArgumentException("Constraints are for a " + constraints.getN() + "x" + constraints.getN() + " board");
+        }
+    }
+
+    public static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) total += count;
+        return total;
+    }
+}
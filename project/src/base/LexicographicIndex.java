@@ -0,0 +1,264 @@
+package base;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Random access into the lexicographically sorted solution list of the
+ * classic problem, without enumerating it: unrank(k) is the k-th solution
+ * (0-based), rank(solution) its position.
+ *
+ * unrank walks down the rows like the search would, but instead of visiting a
+ * subtree it asks for its solution count and skips it whole while k is larger.
+ * Row-0 counts come from HeadlessSolver.countByColumn, i.e. the ResultCache;
+ * deeper subtree counts are memoized here, keyed by the search state (column
+ * and diagonal masks) and folded by left-right mirror symmetry, so pages near
+ * each other, or any page after a few queries, cost almost nothing. The first
+ * access below a row-0 column counts the siblings on its path, typically a
+ * few percent of a full count.
+ *
+ * Methods are synchronized: one index can serve concurrent requests. The
+ * indexes shared by forSize are dropped least recently used first once their
+ * memos together take more than SHARED_MEMO_BYTES.
+ */
+public class LexicographicIndex {
+
+    public static final int MAX_MEMO = 1 << 20; // memoized subtree counts kept per index
+    private static final int LEAF_ROWS = 5; // subtrees this shallow are recounted, not memoized
+    public static final long SHARED_MEMO_BYTES = 128L << 20; // memo memory of all shared indexes together
+
+    private static final LinkedHashMap<Integer, LexicographicIndex> shared = new LinkedHashMap<>(16, 0.75f, true); // access order = LRU
+
+    private final int n;
+    private final long all;
+    private final int threads;
+    private long[] columnCounts; // row 0 -> solutions, loaded on first use
+    private long total = -1;
+    private final StateCounts memo = new StateCounts(1024);
+    private final BitboardSolver counter;
+    private long memoHits = 0;
+    private long memoMisses = 0;
+
+    public LexicographicIndex(int n) {
+        this(n, Runtime.getRuntime().availableProcessors());
+    }
+
+    // threads: workers for the one full count needed when the cache has no row-0 counts yet
+    public LexicographicIndex(int n, int threads) {
+        if (n < 4 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Board size must be between 4 and " + BitboardSolver.MAX_N);
+        }
+        this.n = n;
+        this.all = (1L << n) - 1;
+        this.threads = threads;
+        this.counter = new BitboardSolver(n);
+    }
+
+    // One index per board size, so every request for that size shares its memo
+    public static synchronized LexicographicIndex forSize(int n) {
+        LexicographicIndex index = shared.computeIfAbsent(n, LexicographicIndex::new);
+        long bytes = 0;
+        for (LexicographicIndex other : shared.values()) bytes += other.getMemoryBytes();
+        Iterator<LexicographicIndex> eldest = shared.values().iterator(); // index itself comes last
+        while (bytes > SHARED_MEMO_BYTES && eldest.hasNext()) {
+            LexicographicIndex evicted = eldest.next();
+            if (evicted == index) break;
+            bytes -= evicted.getMemoryBytes();
+            eldest.remove();
+        }
+        return index;
+    }
+
+    public synchronized long size() {
+        loadColumnCounts();
+        return total;
+    }
+
+    /**
+     * The solution at 0-based position k of the sorted list, as row -> column.
+     * @throws IndexOutOfBoundsException if k is not below size()
+     */
+    public synchronized int[] unrank(long k) {
+        loadColumnCounts();
+        if (k < 0 || k >= total) {
+            throw new IndexOutOfBoundsException("Solution " + k + " of " + total);
+        }
+        int[] columns = new int[n];
+        int first = 0;
+        while (k >= columnCounts[first]) k -= columnCounts[first++];
+        columns[0] = first;
+        long bit = 1L << first;
+        long cols = bit;
+        long ld = (bit << 1) & all;
+        long rd = bit >>> 1;
+        for (int row = 1; row < n; row++) {
+            for (long free = all & ~(cols | ld | rd); ; free &= free - 1) {
+                bit = free & -free; // never runs out: k is below the parent's count
+                long c = cols | bit;
+                long l = ((ld | bit) << 1) & all;
+                long r = (rd | bit) >>> 1;
+                long below = countBelow(row + 1, c, l, r);
+                if (k < below) {
+                    columns[row] = Long.numberOfTrailingZeros(bit);
+                    cols = c;
+                    ld = l;
+                    rd = r;
+                    break;
+                }
+                k -= below;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 0-based position of a solution in the sorted list.
+     * @throws IllegalArgumentException if it is not a solution for this n
+     */
+    public synchronized long rank(int[] columns) {
+        if (columns.length != n || !SolutionVerifier.isValid(columns)) {
+            throw new IllegalArgumentException("Not a solution for n = " + n);
+        }
+        loadColumnCounts();
+        long position = 0;
+        for (int col = 0; col < columns[0]; col++) position += columnCounts[col];
+        long bit = 1L << columns[0];
+        long cols = bit;
+        long ld = (bit << 1) & all;
+        long rd = bit >>> 1;
+        for (int row = 1; row < n; row++) {
+            long chosen = 1L << columns[row];
+            for (long free = (all & ~(cols | ld | rd)) & (chosen - 1); free != 0; free &= free - 1) {
+                bit = free & -free;
+                position += countBelow(row + 1, cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1);
+            }
+            cols |= chosen;
+            ld = ((ld | chosen) << 1) & all;
+            rd = (rd | chosen) >>> 1;
+        }
+        return position;
+    }
+
+    // Solutions completing a placement of rows 0..row-1 with these masks for row
+    private long countBelow(int row, long cols, long ld, long rd) {
+        if (row == n) return 1;
+        if (n - row <= LEAF_ROWS) return counter.countFrom(cols, ld, rd);
+
+        // Mirror images have the same count; look up the smaller of the two states
+        long mc = Long.reverse(cols) >>> (64 - n);
+        long ml = Long.reverse(rd) >>> (64 - n);
+        long mr = Long.reverse(ld) >>> (64 - n);
+        if (mc < cols || (mc == cols && (ml < ld || (ml == ld && mr < rd)))) {
+            cols = mc;
+            ld = ml;
+            rd = mr;
+        }
+        long known = memo.get(cols, ld, rd);
+        if (known >= 0) {
+            memoHits++;
+            return known;
+        }
+        memoMisses++;
+        long count = counter.countFrom(cols, ld, rd);
+        if (memo.size() < MAX_MEMO) memo.put(cols, ld, rd, count);
+        return count;
+    }
+
+    private void loadColumnCounts() {
+        if (columnCounts != null) return;
+        columnCounts = HeadlessSolver.countByColumn(n, threads); // cached after the first time
+        total = HeadlessSolver.sum(columnCounts);
+    }
+
+    public synchronized int getMemoSize() {
+        return memo.size();
+    }
+
+    // Heap taken by the memo table, empty slots included
+    public synchronized long getMemoryBytes() {
+        return memo.sizeInBytes();
+    }
+
+    public synchronized long getMemoHits() {
+        return memoHits;
+    }
+
+    public synchronized long getMemoMisses() {
+        return memoMisses;
+    }
+
+    // Nodes the subtree counts have searched so far, to compare with a full count
+    public synchronized long getNodes() {
+        return counter.getNodes();
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    // Open-addressing table from a search state (three masks) to its count; no deletions
+    private static class StateCounts {
+        private long[] cols;
+        private long[] ld;
+        private long[] rd;
+        private long[] counts; // -1 = empty slot
+        private int size = 0;
+
+        StateCounts(int capacity) {
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            cols = new long[capacity];
+            ld = new long[capacity];
+            rd = new long[capacity];
+            counts = new long[capacity];
+            Arrays.fill(counts, -1);
+        }
+
+        private int slot(long c, long l, long r) {
+            long h = (c * 0x9E3779B97F4A7C15L) ^ (l * 0xC2B2AE3D27D4EB4FL) ^ (r * 0x165667B19E3779F9L);
+            return (int) (h ^ (h >>> 32)) & (counts.length - 1);
+        }
+
+        long get(long c, long l, long r) {
+            int mask = counts.length - 1;
+            for (int i = slot(c, l, r); counts[i] >= 0; i = (i + 1) & mask) {
+                if (cols[i] == c && ld[i] == l && rd[i] == r) return counts[i];
+            }
+            return -1;
+        }
+
+        void put(long c, long l, long r, long count) {
+            int mask = counts.length - 1;
+            int i = slot(c, l, r);
+            while (counts[i] >= 0) {
+                if (cols[i] == c && ld[i] == l && rd[i] == r) return;
+                i = (i + 1) & mask;
+            }
+            cols[i] = c;
+            ld[i] = l;
+            rd[i] = r;
+            counts[i] = count;
+            if (++size * 2 > counts.length) grow();
+        }
+
+        private void grow() {
+            long[] oc = cols, ol = ld, or = rd, on = counts;
+            allocate(counts.length * 2);
+            size = 0;
+            for (int i = 0; i < on.length; i++) {
+                if (on[i] >= 0) put(oc[i], ol[i], or[i], on[i]);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        long sizeInBytes() {
+            return 4L * Long.BYTES * counts.length;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package base;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from non-zero long keys to long values, in two
+ * parallel arrays with linear probing; no boxing, no entry objects.
+ * Key 0 marks an empty slot. The table doubles when it gets half full.
+ */
+public class LongCountTable {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L; // Fibonacci hashing multiplier
+
+    private long[] keys;
+    private long[] values;
+    private int bits; // capacity = 1 << bits
+    private int size = 0;
+
+    public LongCountTable() {
+        this(1024);
+    }
+
+    public LongCountTable(int expected) {
+        this.bits = Math.max(4, 64 - Long.numberOfLeadingZeros(Math.max(1, expected * 2L - 1)));
+        this.keys = new long[1 << bits];
+        this.values = new long[1 << bits];
+    }
+
+    // Adds delta to the key's value, inserting the key with value delta if it is new
+    public void add(long key, long delta) {
+        if (key == 0) throw new IllegalArgumentException("Key 0 is reserved");
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+        if (keys[i] == 0) {
+            keys[i] = key;
+            values[i] = delta;
+            if (++size * 2 > keys.length) grow();
+        } else {
+            values[i] += delta;
+        }
+    }
+
+    // The key's value, or 0 if it is absent
+    public long get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Slots, for iterating with keyAt and valueAt; empty slots have key 0
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public long valueAt(int slot) {
+        return values[slot];
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    // Bytes held by the two arrays
+    public long getMemoryBytes() {
+        return 2L * Long.BYTES * keys.length;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * GOLDEN) >>> (64 - bits));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        bits++;
+        keys = new long[1 << bits];
+        values = new long[1 << bits];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) add(oldKeys[i], oldValues[i]);
+        }
+    }
+}
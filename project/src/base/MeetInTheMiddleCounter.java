@@ -0,0 +1,425 @@
+package base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts solutions by meeting in the middle instead of searching whole paths.
+ * The top ceil(n/2) rows and the bottom floor(n/2) rows are enumerated
+ * separately, each placement reduced to its signature at the first bottom row:
+ * the columns it uses and where its two diagonal directions cross that row.
+ * A top and a bottom half make a solution exactly when their column sets are
+ * complements and their diagonal masks are disjoint, so the halves are joined
+ * on the column set with a hash table and each bucket is scanned with one AND
+ * per pair. Equal signatures are merged with a multiplicity first.
+ *
+ * A signature is three n-bit masks packed into one long (columns in the high
+ * bits, so sorting keys groups them by column set), which is why n is limited
+ * to 21. All tables are primitive arrays (LongCountTable).
+ *
+ * Memory: the bottom half is kept for the whole join, so if it has more than
+ * maxStates distinct signatures the run switches to a partitioned join on disk.
+ * Both halves are written to SPILL_PARTITIONS files by a hash of the column set
+ * (its complement for top halves) and the partitions are joined one at a time.
+ * Top halves are generated one row-0 column at a time and joined (or spilled)
+ * whenever their table reaches maxStates, so each worker holds at most that many.
+ */
+public class MeetInTheMiddleCounter {
+
+    public static final int MAX_N = 21; // 3 * n bits per signature
+    public static final int DEFAULT_MAX_STATES = 1 << 22; // about 150 MB of tables at this size
+    public static final int SPILL_PARTITIONS = 64;
+    private static final int PARTITION_BITS = 6;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final int n;
+    private final int topRows;
+    private final long all;
+    private final long pairMask; // the two diagonal masks of a signature
+    // Defaults can be set with -Dnqueens.mitm.max.states and -Dnqueens.mitm.spill.dir
+    private int maxStates = Integer.getInteger("nqueens.mitm.max.states", DEFAULT_MAX_STATES);
+    private Path spillDirectory = Paths.get(System.getProperty("nqueens.mitm.spill.dir", System.getProperty("java.io.tmpdir")));
+
+    // Statistics of the last run
+    private long topStates; // distinct top signatures, summed over row-0 columns
+    private long bottomStates; // distinct bottom signatures
+    private long pairChecks; // top/bottom pairs ANDed in the join
+    private long spilledBytes;
+    private long peakTableBytes;
+
+    // Bottom half while joining: sorted signatures, their counts, and column set -> [start, end)
+    private long[] bottomPairs; // diagonal masks of each signature
+    private long[] bottomCounts;
+    private LongCountTable buckets; // column set -> start << 32 | end
+
+    // Spill state
+    private DataOutputStream[] bottomSpill;
+    private DataOutputStream[] topSpill;
+    private Path[] bottomFiles;
+    private Path[] topFiles;
+
+    public MeetInTheMiddleCounter(int n) {
+        if (n < 2 || n > MAX_N) {
+            throw new IllegalArgumentException("Meet-in-the-middle supports 2 <= n <= " + MAX_N);
+        }
+        this.n = n;
+        this.topRows = (n + 1) / 2;
+        this.all = (1L << n) - 1;
+        this.pairMask = (1L << (2 * n)) - 1;
+    }
+
+    // Distinct signatures either half may hold in memory before the run spills to disk
+    public void setMaxStates(int maxStates) {
+        if (maxStates < 1) throw new IllegalArgumentException("State limit must be positive");
+        this.maxStates = maxStates;
+    }
+
+    public void setSpillDirectory(Path directory) {
+        this.spillDirectory = directory;
+    }
+
+    /**
+     * Solutions per row-0 column. In memory, the top halves of the columns are
+     * joined by up to threads workers against one shared bottom table; a spilled
+     * run joins its partitions one after another on the calling thread.
+     */
+    public long[] countByColumn(int threads) {
+        topStates = 0;
+        bottomStates = 0;
+        pairChecks = 0;
+        spilledBytes = 0;
+        peakTableBytes = 0;
+        try {
+            LongCountTable bottom = new LongCountTable();
+            enumerateBottom(n - 1, 0, 0, 0, bottom);
+            if (bottomSpill == null) {
+                bottomStates = bottom.size();
+                index(bottom);
+                return joinInMemory(Math.max(1, threads));
+            }
+            flushBottom(bottom);
+            return joinSpilled();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Spilling to " + spillDirectory + " failed", e);
+        } finally {
+            closeSpill();
+            deleteSpillFiles();
+        }
+    }
+
+    public long count(int threads) {
+        return HeadlessSolver.sum(countByColumn(threads));
+    }
+
+    // Rows n-1 up to topRows; cols/up/down are the masks of the row being placed
+    private void enumerateBottom(int row, long cols, long up, long down, LongCountTable table) throws IOException {
+        for (long free = all & ~(cols | up | down); free != 0; free &= free - 1) {
+            long bit = free & -free;
+            if (row == topRows) {
+                // Signature at this row: where each bottom queen's diagonals cross it
+                add(bottomKey(cols | bit, up | bit, down | bit), table);
+            } else {
+                enumerateBottom(row - 1, cols | bit, (up | bit) >>> 1, ((down | bit) << 1) & all, table);
+            }
+        }
+    }
+
+    // up holds left-to-right diagonals (the ones a top queen's ld mask tracks), down the others
+    private long bottomKey(long cols, long up, long down) {
+        return cols << (2 * n) | up << n | down;
+    }
+
+    private void add(long key, LongCountTable table) throws IOException {
+        if (bottomSpill != null) {
+            write(bottomSpill, partition(key >>> (2 * n)), key, 1, -1);
+            return;
+        }
+        table.add(key, 1);
+        peakTableBytes = Math.max(peakTableBytes, table.getMemoryBytes());
+        if (table.size() > maxStates) {
+            bottomSpill = openSpill("bottom", bottomFiles = new Path[SPILL_PARTITIONS]);
+            flushBottom(table);
+        }
+    }
+
+    private void flushBottom(LongCountTable table) throws IOException {
+        for (int i = 0; i < table.capacity(); i++) {
+            long key = table.keyAt(i);
+            if (key != 0) write(bottomSpill, partition(key >>> (2 * n)), key, table.valueAt(i), -1);
+        }
+        table.clear();
+    }
+
+    // Sorts the bottom signatures by column set and indexes each set's range
+    private void index(LongCountTable bottom) {
+        long[] keys = new long[bottom.size()];
+        int k = 0;
+        for (int i = 0; i < bottom.capacity(); i++) {
+            if (bottom.keyAt(i) != 0) keys[k++] = bottom.keyAt(i);
+        }
+        Arrays.sort(keys);
+        bottomPairs = new long[keys.length];
+        bottomCounts = new long[keys.length];
+        buckets = new LongCountTable(keys.length / 8 + 1);
+        int start = 0;
+        for (int i = 0; i < keys.length; i++) {
+            bottomPairs[i] = keys[i] & pairMask;
+            bottomCounts[i] = bottom.get(keys[i]);
+            if (i + 1 == keys.length || (keys[i + 1] >>> (2 * n)) != (keys[i] >>> (2 * n))) {
+                buckets.add(keys[i] >>> (2 * n), (long) start << 32 | (i + 1));
+                start = i + 1;
+            }
+        }
+        peakTableBytes = Math.max(peakTableBytes, bottom.getMemoryBytes() + 16L * keys.length + buckets.getMemoryBytes());
+    }
+
+    private long[] joinInMemory(int threads) throws IOException {
+        long[] counts = new long[n];
+        long[] topByColumn = new long[n];
+        long[] checksByColumn = new long[n];
+        AtomicInteger next = new AtomicInteger();
+        IOException[] failure = new IOException[1];
+        Runnable worker = () -> {
+            for (int col = next.getAndIncrement(); col < n; col = next.getAndIncrement()) {
+                int column = col;
+                long[] checks = new long[1];
+                try {
+                    enumerateTop(column, top -> {
+                        topByColumn[column] += top.size();
+                        counts[column] += probe(top, checks);
+                    });
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                    return;
+                }
+                checksByColumn[col] = checks[0];
+            }
+        };
+        if (threads == 1) {
+            worker.run();
+        } else {
+            Thread[] workers = new Thread[Math.min(threads, n)];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Thread(worker, "mitm-" + i);
+                workers[i].start();
+            }
+            for (Thread t : workers) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while counting");
+                }
+            }
+        }
+        if (failure[0] != null) throw failure[0];
+        topStates = HeadlessSolver.sum(topByColumn);
+        pairChecks = HeadlessSolver.sum(checksByColumn);
+        return counts;
+    }
+
+    private interface TopSink {
+        void drain(LongCountTable top) throws IOException;
+    }
+
+    /**
+     * Top-half signatures below a row-0 queen in column col, handed to the sink in
+     * tables of at most maxStates. A signature split across two tables is simply
+     * joined twice, so the cap costs some merging but never correctness.
+     */
+    private void enumerateTop(int col, TopSink sink) throws IOException {
+        LongCountTable table = new LongCountTable();
+        long bit = 1L << col;
+        enumerateTop(1, bit, (bit << 1) & all, bit >>> 1, table, sink);
+        if (table.size() > 0) sink.drain(table);
+    }
+
+    private void enumerateTop(int row, long cols, long ld, long rd, LongCountTable table, TopSink sink) throws IOException {
+        if (row == topRows) {
+            table.add(cols << (2 * n) | ld << n | rd, 1);
+            if (table.size() >= maxStates) {
+                sink.drain(table);
+                table.clear();
+            }
+            return;
+        }
+        for (long free = all & ~(cols | ld | rd); free != 0; free &= free - 1) {
+            long bit = free & -free;
+            enumerateTop(row + 1, cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1, table, sink);
+        }
+    }
+
+    // Sum over the top signatures of count * matching bottom counts
+    private long probe(LongCountTable top, long[] checks) {
+        long total = 0;
+        for (int i = 0; i < top.capacity(); i++) {
+            long key = top.keyAt(i);
+            if (key == 0) continue;
+            total += top.valueAt(i) * match(key, checks);
+        }
+        return total;
+    }
+
+    private long match(long topKey, long[] checks) {
+        long range = buckets.get(all ^ (topKey >>> (2 * n)));
+        if (range == 0) return 0;
+        int start = (int) (range >>> 32);
+        int end = (int) range;
+        long pairs = topKey & pairMask;
+        long matches = 0;
+        for (int j = start; j < end; j++) {
+            if ((pairs & bottomPairs[j]) == 0) matches += bottomCounts[j];
+        }
+        checks[0] += end - start;
+        return matches;
+    }
+
+    // Both halves are on disk by partition; join the partitions one at a time
+    private long[] joinSpilled() throws IOException {
+        topSpill = openSpill("top", topFiles = new Path[SPILL_PARTITIONS]);
+        long[] counts = new long[n];
+        for (int col = 0; col < n; col++) {
+            int column = col;
+            enumerateTop(col, top -> {
+                topStates += top.size();
+                peakTableBytes = Math.max(peakTableBytes, top.getMemoryBytes());
+                for (int i = 0; i < top.capacity(); i++) {
+                    long key = top.keyAt(i);
+                    if (key != 0) write(topSpill, partition(all ^ (key >>> (2 * n))), key, top.valueAt(i), column);
+                }
+            });
+        }
+        closeSpill(); // flushes the files before they are read back
+
+        long[] checks = new long[1];
+        for (int p = 0; p < SPILL_PARTITIONS; p++) {
+            LongCountTable bottom = new LongCountTable();
+            try (DataInputStream in = reader(bottomFiles[p])) {
+                while (true) {
+                    long key;
+                    try {
+                        key = in.readLong();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    bottom.add(key, in.readLong());
+                    in.readByte();
+                }
+            }
+            bottomStates += bottom.size();
+            index(bottom);
+            try (DataInputStream in = reader(topFiles[p])) {
+                while (true) {
+                    long key;
+                    try {
+                        key = in.readLong();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    long count = in.readLong();
+                    int col = in.readByte();
+                    counts[col] += count * match(key, checks);
+                }
+            }
+        }
+        pairChecks = checks[0];
+        return counts;
+    }
+
+    private int partition(long columnSet) {
+        return (int) ((columnSet * GOLDEN) >>> (64 - PARTITION_BITS));
+    }
+
+    private DataOutputStream[] openSpill(String half, Path[] files) throws IOException {
+        Files.createDirectories(spillDirectory);
+        DataOutputStream[] outs = new DataOutputStream[SPILL_PARTITIONS];
+        for (int p = 0; p < SPILL_PARTITIONS; p++) {
+            files[p] = Files.createTempFile(spillDirectory, "nqueens-mitm-" + n + "-" + half + "-" + p + "-", ".bin");
+            outs[p] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[p]), 1 << 16));
+        }
+        return outs;
+    }
+
+    // Record: signature, multiplicity, row-0 column (-1 for bottom halves)
+    private void write(DataOutputStream[] outs, int p, long key, long count, int col) throws IOException {
+        outs[p].writeLong(key);
+        outs[p].writeLong(count);
+        outs[p].writeByte(col);
+        spilledBytes += 2 * Long.BYTES + 1;
+    }
+
+    private DataInputStream reader(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+    }
+
+    private void closeSpill() {
+        for (DataOutputStream[] outs : new DataOutputStream[][]{bottomSpill, topSpill}) {
+            if (outs == null) continue;
+            for (DataOutputStream out : outs) {
+                try {
+                    if (out != null) out.close();
+                } catch (IOException ignored) {
+                    // the file is deleted at the end of the run anyway
+                }
+            }
+        }
+        bottomSpill = null;
+        topSpill = null;
+    }
+
+    private void deleteSpillFiles() {
+        for (Path[] files : new Path[][]{bottomFiles, topFiles}) {
+            if (files == null) continue;
+            for (Path file : files) {
+                try {
+                    if (file != null) Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    file.toFile().deleteOnExit();
+                }
+            }
+        }
+        bottomFiles = null;
+        topFiles = null;
+    }
+
+    public long getTopStates() {
+        return topStates;
+    }
+
+    public long getBottomStates() {
+        return bottomStates;
+    }
+
+    public long getPairChecks() {
+        return pairChecks;
+    }
+
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    public boolean didSpill() {
+        return spilledBytes > 0;
+    }
+
+    // Largest table footprint seen during the run
+    public long getPeakTableBytes() {
+        return peakTableBytes;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
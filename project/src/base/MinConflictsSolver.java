@@ -0,0 +1,150 @@
+package base;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Finds one solution for very large n by local search (min-conflicts repair),
+ * after Sosic and Gu. The board is a permutation, so rows and columns never
+ * conflict; only the diagonals are tracked, as occupancy counters in int arrays.
+ * Memory is O(n): int arrays of length n, n, 2n and 2n.
+ *
+ * 1. Greedy start: rows are filled from a random permutation, preferring a
+ *    remaining column whose diagonals are still free. This leaves only a handful
+ *    of conflicts, all near the last rows.
+ * 2. Repair: each attacked queen is swapped with random rows, keeping a
+ *    swap only if the number of diagonal collisions goes down.
+ * 3. If repair stalls, restart with fresh randomness.
+ */
+public class MinConflictsSolver {
+
+    private static final int GREEDY_TAIL = 32; // rows left to plain random placement at the end
+    private static final int MAX_PASSES = 50; // repair passes before a restart
+    private static final int SWAP_TRIES = 64; // random partners tried per attacked queen and pass
+
+    private final int n;
+    private final SplittableRandom random;
+    private final int[] queens; // row -> column
+    private final int[] diag; // queens per diagonal, index row + col
+    private final int[] anti; // queens per anti-diagonal, index row - col + n - 1
+    private final int[] attacked; // scratch list of attacked rows for a repair pass
+    private long collisions; // sum over diagonals of (queens - 1) where > 0
+    private volatile boolean stopRequested = false;
+    private int restarts = 0;
+    private long swaps = 0;
+
+    public MinConflictsSolver(int n, long seed) {
+        if (n < 1 || n == 2 || n == 3) {
+            throw new IllegalArgumentException("No solution exists for n = " + n);
+        }
+        this.n = n;
+        this.random = new SplittableRandom(seed);
+        this.queens = new int[n];
+        this.diag = new int[2 * n - 1];
+        this.anti = new int[2 * n - 1];
+        this.attacked = new int[n];
+    }
+
+    /**
+     * @return a row -> column solution (the solver's own array), or null if stopped first
+     */
+    public int[] solve() {
+        while (!stopRequested) {
+            greedyStart();
+            if (repair()) return queens;
+            restarts++;
+        }
+        return null;
+    }
+
+    private void greedyStart() {
+        Arrays.fill(diag, 0);
+        Arrays.fill(anti, 0);
+        collisions = 0;
+        for (int row = 0; row < n; row++) queens[row] = row;
+
+        int greedyRows = Math.max(0, n - GREEDY_TAIL);
+        long attemptsLeft = 3L * n + 100; // enough for the greedy phase in practice
+        for (int row = 0; row < n; row++) {
+            if (row < greedyRows) {
+                // Pick a random remaining column with free diagonals (or give up and take one)
+                int pick;
+                do {
+                    pick = row + random.nextInt(n - row);
+                } while (--attemptsLeft > 0 && (diag[row + queens[pick]] > 0 || anti[row - queens[pick] + n - 1] > 0));
+                swapColumns(row, pick);
+            } else {
+                swapColumns(row, row + random.nextInt(n - row));
+            }
+            add(row, queens[row]);
+        }
+    }
+
+    private boolean repair() {
+        for (int pass = 0; pass < MAX_PASSES && collisions > 0; pass++) {
+            // Only attacked queens move; collect them once per pass
+            int attackedCount = 0;
+            for (int row = 0; row < n; row++) {
+                if (isAttacked(row)) attacked[attackedCount++] = row;
+            }
+            for (int i = 0; i < attackedCount && collisions > 0; i++) {
+                if (stopRequested) return false;
+                int row = attacked[i];
+                for (int tries = 0; tries < SWAP_TRIES && isAttacked(row); tries++) {
+                    int other = random.nextInt(n);
+                    if (other == row) continue;
+                    long before = collisions;
+                    swapQueens(row, other);
+                    if (collisions < before) {
+                        swaps++;
+                    } else {
+                        swapQueens(row, other); // undo
+                    }
+                }
+            }
+        }
+        return collisions == 0;
+    }
+
+    private boolean isAttacked(int row) {
+        int col = queens[row];
+        return diag[row + col] > 1 || anti[row - col + n - 1] > 1;
+    }
+
+    // Exchanges the columns of two rows, keeping the counters and collision total up to date
+    private void swapQueens(int a, int b) {
+        remove(a, queens[a]);
+        remove(b, queens[b]);
+        swapColumns(a, b);
+        add(a, queens[a]);
+        add(b, queens[b]);
+    }
+
+    private void swapColumns(int a, int b) {
+        int t = queens[a];
+        queens[a] = queens[b];
+        queens[b] = t;
+    }
+
+    private void add(int row, int col) {
+        if (diag[row + col]++ > 0) collisions++;
+        if (anti[row - col + n - 1]++ > 0) collisions++;
+    }
+
+    private void remove(int row, int col) {
+        if (--diag[row + col] > 0) collisions--;
+        if (--anti[row - col + n - 1] > 0) collisions--;
+    }
+
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    public int getRestarts() {
+        return restarts;
+    }
+
+    public long getSwaps() {
+        return swaps;
+    }
+}
@@ -8,8 +8,10 @@ public class NQueenSolver {
     private StateManager manager;
     private final ArrayList<Solution> solutions = new ArrayList<>();
     private int thread_id;
-    private static volatile int stepDelay = 0; // milliseconds to wait between steps
     private volatile boolean stopRequested = false;
+    private boolean visualize = true; // false for headless solves: no step snapshots, no delay
+    private long nodes = 0; // calls of solveFromRow so far, for progress reports
+    private long[] allowed; // row -> columns the constraints permit, null if unconstrained
     private int lastChangedRow = -1;
     private int lastChangedCol = -1;
 
@@ -23,6 +25,7 @@ public class NQueenSolver {
     }
 
     public boolean solveFromRow(int row) {
+        nodes++;
         // Check if stop was requested
         if (stopRequested || Thread.currentThread().isInterrupted()) {
             return true; // Stop solving
@@ -41,27 +44,43 @@ public class NQueenSolver {
                 return true; // Stop solving
             }
             
+            if (allowed != null && (allowed[row] & (1L << col)) == 0) continue; // blocked or taken by a pre-placed queen
+            
             if (board.isSafe(row, col)) {
                 board.place(row, col);
                 lastChangedRow = row;
                 lastChangedCol = col;
 
                 // notify GUI if needed later
-                notifyStep(Action.PLACE, row, col);
-                sleepIfNeeded();
+                if (visualize) {
+                    notifyStep(Action.PLACE, row, col);
+                    sleepIfNeeded();
+                }
                 
                 if (solveFromRow(row + 1)) return true; // Propagate stop signal
 
                 board.remove(row, col);
                 lastChangedRow = row;
                 lastChangedCol = col;
-                notifyStep(Action.REMOVE, row, col);
-                sleepIfNeeded();
+                if (visualize) {
+                    notifyStep(Action.REMOVE, row, col);
+                    sleepIfNeeded();
+                }
             }
         }
         return false;
     }
     
+    // One solution for any n >= 4 without searching (see ConstructiveSolver)
+    public static Solution constructSolution(int n) {
+        int[] columns = ConstructiveSolver.generate(n);
+        Board board = new Board(n);
+        for (int row = 0; row < n; row++) {
+            board.place(row, columns[row]);
+        }
+        return new Solution(board);
+    }
+    
     public void requestStop() {
         stopRequested = true;
     }
@@ -70,7 +89,9 @@ public class NQueenSolver {
         stopRequested = false;
     }
     
+    // The delay is the StateManager's, so each visual session keeps its own pace; no manager, no delay
     private void sleepIfNeeded() {
+        int stepDelay = manager != null ? manager.getStepDelay() : 0;
         if (stepDelay > 0) {
             try {
                 Thread.sleep(stepDelay);
@@ -80,12 +101,24 @@ public class NQueenSolver {
         }
     }
     
-    public static void setStepDelay(int delayMs) {
-        stepDelay = delayMs;
+    public long getNodes() {
+        return nodes;
     }
-    
-    public static int getStepDelay() {
-        return stepDelay;
+
+    public void setVisualize(boolean visualize) {
+        this.visualize = visualize;
+    }
+
+    // Pre-placed queens and blocked squares; allowed[] also covers the rows below, which Board.isSafe never looks at
+    public void setConstraints(BoardConstraints constraints) {
+        if (constraints == null) {
+            allowed = null;
+            return;
+        }
+        allowed = new long[board.getN()];
+        for (int row = 0; row < allowed.length; row++) {
+            allowed[row] = constraints.allowedColumns(row);
+        }
     }
 
     public ArrayList<Solution> getSolutions() {
@@ -0,0 +1,119 @@
+package base;
+
+/**
+ * A solution set stored as bit-packed column arrays instead of Board objects.
+ * Each column takes ceil(log2 n) bits, so 92 solutions for n=8 fit in 35 longs.
+ */
+public class PackedSolutions {
+
+    private final int n;
+    private final int bits; // bits per column
+    private long[] words;
+    private int size = 0;
+
+    public PackedSolutions(int n) {
+        this(n, 0, new long[16]);
+    }
+
+    private PackedSolutions(int n, int size, long[] words) {
+        this.n = n;
+        this.bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(n - 1));
+        this.size = size;
+        this.words = words;
+    }
+
+    // Rebuilds a set from the words written by getWords(), e.g. when loading from disk
+    public static PackedSolutions fromWords(int n, int size, long[] words) {
+        PackedSolutions packed = new PackedSolutions(n, size, words);
+        if (words.length < packed.wordsFor(size)) {
+            throw new IllegalArgumentException("Packed solution data is truncated");
+        }
+        return packed;
+    }
+
+    public void add(int[] columns) {
+        long needed = wordsFor(size + 1);
+        if (needed > words.length) {
+            long[] grown = new long[(int) Math.max(needed, words.length * 2L)];
+            System.arraycopy(words, 0, grown, 0, words.length);
+            words = grown;
+        }
+        long bit = (long) size * n * bits;
+        for (int row = 0; row < n; row++, bit += bits) {
+            write(bit, columns[row]);
+        }
+        size++;
+    }
+
+    // Copies solution #index into the given array (allocates one if null)
+    public int[] get(int index, int[] into) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Solution " + index + " of " + size);
+        }
+        int[] columns = (into != null) ? into : new int[n];
+        long bit = (long) index * n * bits;
+        for (int row = 0; row < n; row++, bit += bits) {
+            columns[row] = read(bit);
+        }
+        return columns;
+    }
+
+    // Column of one row of solution #index, without unpacking the others
+    public int getColumn(int index, int row) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Solution " + index + " of " + size);
+        }
+        return read(((long) index * n + row) * bits);
+    }
+
+    public Solution getSolution(int index) {
+        int[] columns = get(index, null);
+        Board board = new Board(n);
+        for (int row = 0; row < n; row++) {
+            board.place(row, columns[row]);
+        }
+        return new Solution(board);
+    }
+
+    private void write(long bit, int value) {
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        words[word] |= ((long) value) << offset;
+        if (offset + bits > 64) {
+            words[word + 1] |= ((long) value) >>> (64 - offset);
+        }
+    }
+
+    private int read(long bit) {
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        long value = words[word] >>> offset;
+        if (offset + bits > 64) {
+            value |= words[word + 1] << (64 - offset);
+        }
+        return (int) (value & ((1L << bits) - 1));
+    }
+
+    private int wordsFor(int solutions) {
+        return (int) (((long) solutions * n * bits + 63) >>> 6);
+    }
+
+    // Only the words in use, trimmed for storage
+    public long[] getWords() {
+        long[] used = new long[wordsFor(size)];
+        System.arraycopy(words, 0, used, 0, used.length);
+        return used;
+    }
+
+    public long sizeInBytes() {
+        return 8L * words.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
@@ -0,0 +1,97 @@
+package base;
+
+import java.util.function.Consumer;
+
+/**
+ * Percent-complete and ETA for a ThreadManager run.
+ * The expected tree size starts as a TreeSizeEstimator estimate per row-0 column,
+ * probed up front, and is refined by more probes in the background while the
+ * solve runs. Each column's estimate is replaced by its exact node count as soon
+ * as a SolverThread finishes it.
+ */
+public class ProgressTracker {
+
+    private static final int INITIAL_PROBES = 2000; // per column, before the solve starts
+    private static final int REFINE_PROBES = 200; // per column, per background round
+
+    private final ThreadManager threadManager;
+    private final TreeSizeEstimator estimator;
+    private final int fromCol;
+    private final int toCol;
+    private long startTime;
+    private volatile boolean stopped = false;
+
+    public ProgressTracker(ThreadManager threadManager, int n) {
+        this(threadManager, n, 0, n);
+    }
+
+    public ProgressTracker(ThreadManager threadManager, int n, int fromCol, int toCol) {
+        this.threadManager = threadManager;
+        this.fromCol = fromCol;
+        this.toCol = toCol;
+        this.estimator = new TreeSizeEstimator(n, System.nanoTime());
+        estimator.probeColumns(fromCol, toCol, INITIAL_PROBES);
+        this.startTime = System.nanoTime();
+    }
+
+    // Call right after ThreadManager.startSolving
+    public void start() {
+        startTime = System.nanoTime();
+        Thread refiner = new Thread(() -> {
+            while (!stopped && threadManager.isRunning()) {
+                for (int col = fromCol; col < toCol; col++) {
+                    if (threadManager.getColumnNodes(col) < 0) { // finished columns need no estimate
+                        for (int i = 0; i < REFINE_PROBES; i++) estimator.probe(col);
+                    }
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "progress-estimator");
+        refiner.setDaemon(true);
+        refiner.setPriority(Thread.MIN_PRIORITY);
+        refiner.start();
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public SolveProgress snapshot() {
+        long visited = threadManager.getNodesVisited();
+        double expected = 0;
+        int done = 0;
+        for (int col = fromCol; col < toCol; col++) {
+            long exact = threadManager.getColumnNodes(col);
+            if (exact >= 0) {
+                expected += exact;
+                done++;
+            } else {
+                expected += estimator.estimate(col);
+            }
+        }
+        expected = Math.max(expected, visited); // the estimate can't be below what we've already searched
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+        return new SolveProgress(visited, expected, elapsedMs, done, toCol - fromCol);
+    }
+
+    /**
+     * Blocks until the run finishes, passing a snapshot to the reporter every intervalMs.
+     */
+    public void awaitCompletion(long intervalMs, Consumer<SolveProgress> reporter) {
+        try {
+            while (threadManager.isRunning()) {
+                Thread.sleep(intervalMs);
+                if (threadManager.isRunning()) reporter.accept(snapshot());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stop();
+        }
+        threadManager.waitForCompletion();
+    }
+}
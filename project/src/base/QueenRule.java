@@ -0,0 +1,24 @@
+package base;
+
+/**
+ * Classic queens. The n x n, n-queen shape runs on BitboardSolver (or
+ * WideBitboardSolver); any other shape on RectangularQueensSolver.
+ */
+public class QueenRule implements AttackRule {
+
+    @Override
+    public String getName() {
+        return ResultCache.CLASSIC;
+    }
+
+    @Override
+    public boolean attacks(BoardShape shape, int row1, int col1, int row2, int col2) {
+        return row1 == row2 || col1 == col2 || Math.abs(row1 - row2) == Math.abs(col1 - col2);
+    }
+
+    @Override
+    public SubtreeSolver createKernel(BoardShape shape) {
+        if (shape.isClassic()) return SubtreeSolver.forSize(shape.rows);
+        return new RectangularQueensSolver(shape);
+    }
+}
@@ -0,0 +1,230 @@
+package base;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws random solutions, close to uniformly, for boards far too large to enumerate.
+ *
+ * Proposals come from a weighted random descent: in each row a free square is
+ * picked with probability proportional to how much room it leaves, measured as
+ * the product of the free squares of every row below (forward checking: a
+ * square that leaves some row empty gets weight 0). That product tracks the
+ * size of the subtree, so the descent rarely dead-ends and the probability
+ * q(x) of proposing a solution x varies far less than with uniform choices.
+ * A descent that does dead-end starts over, which only scales q by a constant.
+ *
+ * The proposals are biased towards some solutions, so they drive an independent
+ * Metropolis-Hastings chain: the current solution x is replaced by the proposal
+ * y with probability min(1, q(x) / q(y)). Its stationary distribution is
+ * uniform over all solutions whatever the weights are; the weights only decide
+ * how often proposals are accepted. Each sample is the chain state after
+ * STEPS_PER_SAMPLE more proposals, following BURN_IN proposals at the start.
+ *
+ * One sampler is one chain and is not thread-safe; sample() runs one per worker,
+ * each with its own split of a seeded SplittableRandom.
+ */
+public class RandomSolutionSampler {
+
+    public static final int BURN_IN = 64; // proposals before the first sample
+    public static final int STEPS_PER_SAMPLE = 4; // proposals between samples
+
+    private static final double[] LOG = new double[BitboardSolver.MAX_N + 1]; // log of a free-square count
+    static {
+        LOG[0] = Double.NEGATIVE_INFINITY;
+        for (int i = 1; i < LOG.length; i++) LOG[i] = Math.log(i);
+    }
+
+    private final int n;
+    private final long all;
+    private final SplittableRandom random;
+    private final int[] current; // row -> column of the chain state
+    private final int[] proposal;
+    private final long[] candidates; // scratch: free squares of the row being placed
+    private final double[] weights; // scratch: their log weights, then their scaled weights
+    private double currentLogInvQ; // -log q(current), up to the common constant
+    private boolean started = false;
+    private volatile boolean stopRequested = false;
+    private long proposals = 0;
+    private long accepted = 0;
+    private long restarts = 0; // descents that dead-ended
+
+    public RandomSolutionSampler(int n, SplittableRandom random) {
+        if (n < 4 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Sampler supports 4 <= n <= " + BitboardSolver.MAX_N);
+        }
+        this.n = n;
+        this.all = (1L << n) - 1;
+        this.random = random;
+        this.current = new int[n];
+        this.proposal = new int[n];
+        this.candidates = new long[n];
+        this.weights = new double[n];
+    }
+
+    /**
+     * @return the next sample (row -> column, the sampler's own array), or null if stopped first
+     */
+    public int[] next() {
+        int steps = STEPS_PER_SAMPLE;
+        if (!started) {
+            double logInvQ = propose();
+            if (Double.isNaN(logInvQ)) return null;
+            System.arraycopy(proposal, 0, current, 0, n);
+            currentLogInvQ = logInvQ;
+            started = true;
+            steps = BURN_IN;
+        }
+        for (int i = 0; i < steps; i++) {
+            double logInvQ = propose();
+            if (Double.isNaN(logInvQ)) return null;
+            double logRatio = logInvQ - currentLogInvQ; // log(q(x) / q(y))
+            if (logRatio >= 0 || random.nextDouble() < Math.exp(logRatio)) {
+                System.arraycopy(proposal, 0, current, 0, n);
+                currentLogInvQ = logInvQ;
+                accepted++;
+            }
+        }
+        return current;
+    }
+
+    // Fills proposal with a solution and returns -log q of it, or NaN if stopped
+    private double propose() {
+        while (!stopRequested) {
+            proposals++;
+            double logInvQ = descend();
+            if (!Double.isNaN(logInvQ)) return logInvQ;
+            restarts++;
+        }
+        return Double.NaN;
+    }
+
+    // One weighted descent; -log q of the solution it reached, or NaN on a dead end
+    private double descend() {
+        long cols = 0;
+        long ld = 0;
+        long rd = 0;
+        double logInvQ = 0;
+        for (int row = 0; row < n; row++) {
+            int count = 0;
+            double maxLog = Double.NEGATIVE_INFINITY;
+            for (long free = all & ~(cols | ld | rd); free != 0; free &= free - 1) {
+                long bit = free & -free;
+                double w = logRoom(row, cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1);
+                if (w == Double.NEGATIVE_INFINITY) continue;
+                candidates[count] = bit;
+                weights[count] = w;
+                maxLog = Math.max(maxLog, w);
+                count++;
+            }
+            if (count == 0) return Double.NaN;
+
+            // Pick with probability weight / total, in scaled space to keep the exponentials finite
+            double total = 0;
+            for (int i = 0; i < count; i++) {
+                weights[i] = Math.exp(weights[i] - maxLog);
+                total += weights[i];
+            }
+            double target = random.nextDouble() * total;
+            int pick = count - 1;
+            for (int i = 0; i < count - 1; i++) {
+                target -= weights[i];
+                if (target < 0) {
+                    pick = i;
+                    break;
+                }
+            }
+            logInvQ += Math.log(total / weights[pick]);
+
+            long bit = candidates[pick];
+            proposal[row] = Long.numberOfTrailingZeros(bit);
+            cols |= bit;
+            ld = ((ld | bit) << 1) & all;
+            rd = (rd | bit) >>> 1;
+        }
+        return logInvQ;
+    }
+
+    // Sum of log(free squares) over the rows below row, given the masks for row + 1; -infinity if one has none
+    private double logRoom(int row, long cols, long ld, long rd) {
+        double sum = 0;
+        for (int k = 0; row + 1 + k < n; k++) {
+            int free = Long.bitCount(all & ~(cols | ((ld << k) & all) | (rd >>> k)));
+            if (free == 0) return Double.NEGATIVE_INFINITY;
+            sum += LOG[free];
+        }
+        return sum;
+    }
+
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    // Fraction of proposals the chain accepted; low values mean strongly correlated samples
+    public double getAcceptanceRate() {
+        return proposals == 0 ? 0 : (double) accepted / (proposals - restarts);
+    }
+
+    public long getProposals() {
+        return proposals - restarts;
+    }
+
+    public long getRestarts() {
+        return restarts;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    /**
+     * Draws count samples with one chain per worker thread, worker i using the
+     * i-th split of a SplittableRandom seeded with seed. The listener is called
+     * under a lock, with the worker index as thread_id and an array it must copy
+     * to keep. Returns the number of samples drawn. An interrupted caller stops every
+     * chain and waits for the workers to return before it does, keeping the interrupt.
+     */
+    public static long sample(int n, long count, int threads, long seed, SolutionListener listener) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1");
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        Object lock = new Object();
+        long[] drawn = new long[threads];
+        Thread[] workers = new Thread[threads];
+        RandomSolutionSampler[] chains = new RandomSolutionSampler[threads];
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            long quota = count / threads + (i < count % threads ? 1 : 0);
+            RandomSolutionSampler chain = new RandomSolutionSampler(n, root.split());
+            chains[i] = chain;
+            workers[i] = new Thread(() -> {
+                for (long k = 0; k < quota; k++) {
+                    int[] columns = chain.next();
+                    if (columns == null) return;
+                    synchronized (lock) {
+                        listener.onSolution(worker, columns);
+                    }
+                    drawn[worker]++;
+                }
+            }, "sampler-" + i);
+            workers[i].start();
+        }
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    if (!interrupted) {
+                        for (RandomSolutionSampler chain : chains) chain.requestStop(); // each returns at its next proposal
+                    }
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        long total = 0;
+        for (long d : drawn) total += d;
+        return total;
+    }
+}
@@ -0,0 +1,94 @@
+package base;
+
+import java.util.Arrays;
+
+/**
+ * Counts placements of k non-attacking queens on a rows x cols board.
+ * Same masks as BitboardSolver, but a row may also be left empty, as long as
+ * enough rows remain for the queens still to place. The diagonal masks shift
+ * once per row whether or not the row got a queen.
+ *
+ * Branch b < cols puts the row-0 queen in column b; branch cols leaves row 0
+ * empty (see BoardShape.getBranches). Enumerated placements use -1 for empty rows.
+ */
+public class RectangularQueensSolver implements SubtreeSolver {
+
+    private final int rows;
+    private final int k;
+    private final int emptyBranch;
+    private final long all; // cols low bits set
+    private final int[] columns; // row -> column of the current placement, -1 if empty
+    private volatile boolean stopRequested = false;
+    private long nodes = 0; // recursive calls so far; read unsynchronized for progress reports
+    private SolutionListener listener;
+    private int thread_id;
+
+    public RectangularQueensSolver(BoardShape shape) {
+        this.rows = shape.rows;
+        this.k = shape.pieces;
+        this.emptyBranch = shape.cols;
+        this.all = (1L << shape.cols) - 1;
+        this.columns = new int[rows];
+    }
+
+    @Override
+    public long countWithFirstQueen(int branch) {
+        this.listener = null;
+        return start(branch);
+    }
+
+    @Override
+    public void enumerateWithFirstQueen(int branch, int thread_id, SolutionListener listener) {
+        this.listener = listener;
+        this.thread_id = thread_id;
+        start(branch);
+    }
+
+    private long start(int branch) {
+        Arrays.fill(columns, -1);
+        if (k == 0) return branch == emptyBranch ? search(rows, 0, 0, 0, 0) : 0; // just the empty board
+        if (branch == emptyBranch) return search(1, 0, 0, 0, 0);
+        long bit = 1L << branch;
+        columns[0] = branch;
+        long total = search(1, 1, bit, (bit << 1) & all, bit >>> 1);
+        columns[0] = -1;
+        return total;
+    }
+
+    private long search(int row, int placed, long cols, long ld, long rd) {
+        nodes++;
+        if (placed == k) {
+            if (listener != null) listener.onSolution(thread_id, columns);
+            return 1;
+        }
+        if (rows - row < k - placed || stopRequested) return 0;
+
+        long total = 0;
+        long free = all & ~(cols | ld | rd);
+        while (free != 0) {
+            long bit = free & -free;
+            free ^= bit;
+            columns[row] = Long.numberOfTrailingZeros(bit);
+            total += search(row + 1, placed + 1, cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1);
+            if (stopRequested) break;
+        }
+        columns[row] = -1;
+        total += search(row + 1, placed, cols, (ld << 1) & all, rd >>> 1); // leave this row empty
+        return total;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+}
@@ -0,0 +1,488 @@
+package base;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Two-level cache of finished solves.
+ * Level 1 is an in-memory LRU bounded by an approximate byte budget.
+ * Level 2 is one file per key on disk, protected by a CRC32 and the key itself,
+ * so a truncated, corrupted or misnamed file is treated as a miss and deleted.
+ * The counts at the head of a file have a CRC32 of their own, so they can be read
+ * without the solution set behind them. Files are read and written outside the
+ * cache's lock.
+ *
+ * Entries hold the total count, the per row-0 column counts and, when the
+ * caller had them, the full solution set in packed form. An entry too large for
+ * level 1 is kept there as its counts only, so count lookups never go to disk
+ * for it again. A solution set can also get a SolutionIndex, kept in a second
+ * file next to the entry's.
+ */
+public class ResultCache {
+
+    public static final String CLASSIC = "queens"; // variant name of the plain N-Queens problem
+
+    private static final int MAGIC = 0x4E51524B; // "NQRK"
+    private static final int INDEX_MAGIC = 0x4E515849; // "NQXI"
+    private static final int VERSION = 2; // 2: header CRC after the counts
+    private static final long ENTRY_OVERHEAD = 128; // rough bytes per entry besides its arrays
+    private static final int MAX_COLUMNS = 1 << 16; // sanity bound on a file's column count, read before its CRC
+
+    private static ResultCache defaultCache;
+
+    private final Path directory; // null = memory only
+    private final long memoryBudget;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true); // access order = LRU
+    private long memoryBytes = 0;
+    private final HashMap<String, SolutionIndex> indexes = new HashMap<>(); // of entries in memory only
+
+    private long hits = 0;
+    private long diskHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long corrupt = 0;
+
+    /**
+     * Identifies a solve: board size, problem variant and any extra constraints
+     * (pre-placed queens, blocked squares...) in a canonical text form.
+     */
+    public static class Key {
+        public final int n;
+        public final String variant;
+        public final String constraints;
+
+        public Key(int n, String variant, String constraints) {
+            this.n = n;
+            this.variant = variant;
+            this.constraints = constraints == null ? "" : constraints;
+        }
+
+        public static Key classic(int n) {
+            return new Key(n, CLASSIC, "");
+        }
+
+        // Completion instance; constraints with nothing in them give the classic key
+        public static Key of(int n, BoardConstraints constraints) {
+            return constraints == null ? classic(n) : new Key(n, CLASSIC, constraints.toString());
+        }
+
+        @Override
+        public String toString() {
+            return n + "|" + variant + "|" + constraints;
+        }
+
+        // Stable file name; the full key is also stored inside the file and checked on load
+        String fileName() {
+            String readable = n + "-" + variant.replaceAll("[^A-Za-z0-9_-]", "_");
+            if (constraints.isEmpty()) return readable + ".bin";
+            CRC32 crc = new CRC32();
+            crc.update(constraints.getBytes(StandardCharsets.UTF_8));
+            return readable + "-" + Long.toHexString(crc.getValue()) + ".bin";
+        }
+
+        // The entry's SolutionIndex, next to its file
+        String indexFileName() {
+            return fileName().replaceAll("\\.bin$", ".idx");
+        }
+    }
+
+    public static class Entry {
+        public final long count;
+        public final long[] columnCounts; // may be null
+        public final PackedSolutions solutions; // may be null when only the count is known
+        final boolean solutionsOnDisk; // counts of an entry whose solution set is only in its file
+
+        public Entry(long count, long[] columnCounts, PackedSolutions solutions) {
+            this(count, columnCounts, solutions, false);
+        }
+
+        private Entry(long count, long[] columnCounts, PackedSolutions solutions, boolean solutionsOnDisk) {
+            this.count = count;
+            this.columnCounts = columnCounts;
+            this.solutions = solutions;
+            this.solutionsOnDisk = solutionsOnDisk;
+        }
+
+        // Same counts, without the solution set
+        Entry counts() {
+            return new Entry(count, columnCounts, null, solutions != null || solutionsOnDisk);
+        }
+
+        boolean hasSolutions() {
+            return solutions != null || solutionsOnDisk;
+        }
+
+        long sizeInBytes() {
+            long size = ENTRY_OVERHEAD;
+            if (columnCounts != null) size += 8L * columnCounts.length;
+            if (solutions != null) size += solutions.sizeInBytes();
+            return size;
+        }
+    }
+
+    public ResultCache(Path directory, long memoryBudget) {
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Process-wide cache. Directory and memory budget come from the system properties
+     * nqueens.cache.dir (default ~/.nqueens/cache, "none" disables the disk level)
+     * and nqueens.cache.memoryMB (default 64).
+     */
+    public static synchronized ResultCache getDefault() {
+        if (defaultCache == null) {
+            String dir = System.getProperty("nqueens.cache.dir",
+                    Paths.get(System.getProperty("user.home"), ".nqueens", "cache").toString());
+            long budget = Long.getLong("nqueens.cache.memoryMB", 64) * 1024 * 1024;
+            defaultCache = new ResultCache(dir.equals("none") ? null : Paths.get(dir), budget);
+        }
+        return defaultCache;
+    }
+
+    // Whole entry, with its solution set if one is cached
+    public Entry get(Key key) {
+        return lookup(key, true);
+    }
+
+    /**
+     * Count and column counts only: solutions may be null even when a set is cached,
+     * and a set too large for memory is never read for this.
+     */
+    public Entry getCounts(Key key) {
+        return lookup(key, false);
+    }
+
+    // Count-only lookup; also served by entries that carry full solution sets
+    public Long getCount(Key key) {
+        Entry entry = getCounts(key);
+        return entry == null ? null : entry.count;
+    }
+
+    private Entry lookup(Key key, boolean withSolutions) {
+        String id = key.toString();
+        synchronized (this) {
+            Entry entry = memory.get(id);
+            if (entry != null && (!withSolutions || !entry.solutionsOnDisk)) {
+                hits++;
+                return entry;
+            }
+        }
+        Entry loaded = withSolutions ? load(key) : loadCounts(key);
+        synchronized (this) {
+            if (loaded == null) {
+                misses++;
+                return null;
+            }
+            diskHits++;
+            Entry current = memory.get(id);
+            if (current == null || current.solutionsOnDisk) remember(id, loaded); // a concurrent lookup may have kept more
+            return loaded;
+        }
+    }
+
+    // Full solution set, or null if only the count (or nothing) is cached
+    public PackedSolutions getSolutions(Key key) {
+        Entry entry = get(key);
+        return entry == null ? null : entry.solutions;
+    }
+
+    public void put(Key key, Entry entry) {
+        String id = key.toString();
+        if (entry.solutions == null) {
+            // Never replace a full solution set with a count-only entry
+            Entry previous;
+            synchronized (this) {
+                previous = memory.get(id);
+            }
+            if (previous == null) previous = loadCounts(key);
+            if (previous != null && previous.hasSolutions()) return;
+        }
+        synchronized (this) {
+            remember(id, entry);
+        }
+        store(key, entry);
+    }
+
+    /**
+     * Prefix index over the key's cached solution set, or null if no set is cached (or it
+     * is not in lexicographic order). Read from the entry's index file when that is valid,
+     * otherwise built and written there, outside the lock. Kept in memory while the entry
+     * is, counted against the memory budget with it.
+     */
+    public SolutionIndex getIndex(Key key) {
+        Entry entry = get(key);
+        if (entry == null || entry.solutions == null) return null;
+        String id = key.toString();
+        synchronized (this) {
+            SolutionIndex index = indexes.get(id);
+            if (index != null && index.getSolutions() == entry.solutions) return index;
+        }
+        SolutionIndex index = loadIndex(key, entry.solutions);
+        if (index == null) {
+            try {
+                index = new SolutionIndex(entry.solutions);
+            } catch (IllegalArgumentException e) {
+                return null; // written before sets were kept sorted
+            }
+            storeIndex(key, index);
+        }
+        synchronized (this) {
+            keepIndex(id, entry, index);
+        }
+        return index;
+    }
+
+    // Keeps the index of an entry still in memory if the two fit the budget together
+    private void keepIndex(String id, Entry entry, SolutionIndex index) {
+        if (memory.get(id) != entry) return; // evicted or replaced meanwhile; also makes it the most recent
+        memoryBytes -= dropIndex(id);
+        long size = index.getMemoryBytes();
+        if (entry.sizeInBytes() + size > memoryBudget) return; // read or built again on every getIndex
+        indexes.put(id, index);
+        memoryBytes += size;
+        evict();
+    }
+
+    private void remember(String id, Entry entry) {
+        Entry previous = memory.remove(id);
+        if (previous != null) memoryBytes -= previous.sizeInBytes();
+        memoryBytes -= dropIndex(id);
+
+        long size = entry.sizeInBytes();
+        if (size > memoryBudget) { // too big for level 1: its counts only, the set stays on disk
+            entry = entry.counts();
+            size = entry.sizeInBytes();
+            if (size > memoryBudget) return;
+        }
+
+        memory.put(id, entry);
+        memoryBytes += size;
+        evict();
+    }
+
+    // Drops least recently used entries, with their indexes, until memory is within budget
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > memoryBudget && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            memoryBytes -= evicted.getValue().sizeInBytes() + dropIndex(evicted.getKey());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Bytes freed
+    private long dropIndex(String id) {
+        SolutionIndex index = indexes.remove(id);
+        return index == null ? 0 : index.getMemoryBytes();
+    }
+
+    private Entry load(Key key) {
+        if (directory == null) return null;
+        Path file = directory.resolve(key.fileName());
+        if (!Files.exists(file)) return null;
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length < 8) throw new IOException("file too short");
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 8);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            in.skipBytes(bytes.length - 8);
+            if (in.readLong() != crc.getValue()) throw new IOException("checksum mismatch");
+
+            in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+            Entry counts = readCounts(key, in);
+            PackedSolutions solutions = null;
+            int size = in.readInt();
+            if (size >= 0) {
+                long[] words = new long[in.readInt()];
+                for (int i = 0; i < words.length; i++) words[i] = in.readLong();
+                solutions = PackedSolutions.fromWords(key.n, size, words);
+            }
+            return new Entry(counts.count, counts.columnCounts, solutions);
+        } catch (IOException | RuntimeException e) {
+            discard(file, "cache", e);
+            return null;
+        }
+    }
+
+    // The counts at the head of the key's file, without reading its solution set
+    private Entry loadCounts(Key key) {
+        if (directory == null) return null;
+        Path file = directory.resolve(key.fileName());
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readCounts(key, in);
+        } catch (IOException | RuntimeException e) {
+            discard(file, "cache", e);
+            return null;
+        }
+    }
+
+    // Reads the file's head up to and including whether a solution set follows, checking its CRC
+    private static Entry readCounts(Key key, DataInputStream raw) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+        DataInputStream in = new DataInputStream(checked);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("unknown format");
+        if (!in.readUTF().equals(key.toString())) throw new IOException("key mismatch");
+        long count = in.readLong();
+        long[] columnCounts = null;
+        int columns = in.readInt();
+        if (columns > MAX_COLUMNS) throw new IOException("too many columns");
+        if (columns >= 0) {
+            columnCounts = new long[columns];
+            for (int i = 0; i < columns; i++) columnCounts[i] = in.readLong();
+        }
+        boolean hasSolutions = in.readBoolean();
+        if (raw.readLong() != checked.getChecksum().getValue()) throw new IOException("header checksum mismatch");
+        return new Entry(count, columnCounts, null, hasSolutions);
+    }
+
+    private void discard(Path file, String kind, Exception e) {
+        synchronized (this) {
+            corrupt++;
+        }
+        System.out.println("Discarding " + kind + " file " + file.getFileName() + ": " + e.getMessage());
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // a later store will overwrite it
+        }
+    }
+
+    private void store(Key key, Entry entry) {
+        if (directory == null) return;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key.toString());
+            out.writeLong(entry.count);
+            if (entry.columnCounts == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(entry.columnCounts.length);
+                for (long count : entry.columnCounts) out.writeLong(count);
+            }
+            out.writeBoolean(entry.solutions != null);
+            out.flush();
+            CRC32 header = new CRC32();
+            header.update(bytes.toByteArray());
+            out.writeLong(header.getValue());
+            if (entry.solutions == null) {
+                out.writeInt(-1);
+            } else {
+                long[] words = entry.solutions.getWords();
+                out.writeInt(entry.solutions.size());
+                out.writeInt(words.length);
+                for (long word : words) out.writeLong(word);
+            }
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+
+            // Write then rename so readers never see a half-written file
+            Files.createDirectories(directory);
+            Path file = directory.resolve(key.fileName());
+            Path temp = Files.createTempFile(directory, key.fileName(), ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not write cache entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    private SolutionIndex loadIndex(Key key, PackedSolutions solutions) {
+        if (directory == null) return null;
+        Path file = directory.resolve(key.indexFileName());
+        if (!Files.exists(file)) return null;
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length < 8) throw new IOException("file too short");
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 8);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            in.skipBytes(bytes.length - 8);
+            if (in.readLong() != crc.getValue()) throw new IOException("checksum mismatch");
+
+            in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) throw new IOException("unknown format");
+            if (!in.readUTF().equals(key.toString())) throw new IOException("key mismatch");
+            return SolutionIndex.read(in, solutions);
+        } catch (IOException | RuntimeException e) {
+            discard(file, "index", e); // rebuilt and overwritten by getIndex
+            return null;
+        }
+    }
+
+    private void storeIndex(Key key, SolutionIndex index) {
+        if (directory == null) return;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key.toString());
+            index.write(out);
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+
+            Files.createDirectories(directory);
+            Path file = directory.resolve(key.indexFileName());
+            Path temp = Files.createTempFile(directory, key.indexFileName(), ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not write index for " + key + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void clearMemory() {
+        indexes.clear();
+        memory.clear();
+        memoryBytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized String getStats() {
+        return String.format("cache: %d memory hits, %d disk hits, %d misses, %d evictions, %d corrupt, %d entries + %d indexes / %d KB in memory",
+                hits, diskHits, misses, evictions, corrupt, memory.size(), indexes.size(), memoryBytes / 1024);
+    }
+}
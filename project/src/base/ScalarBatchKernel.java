@@ -0,0 +1,42 @@
+package base;
+
+/**
+ * Plain loops, one placement at a time. Used when the Vector API is missing,
+ * and as the baseline the vector kernel is compared against.
+ */
+public class ScalarBatchKernel implements BatchKernel {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void computeFree(long[] cols, long[] ld, long[] rd, long[] free, int count, long all) {
+        for (int i = 0; i < count; i++) {
+            free[i] = all & ~(cols[i] | ld[i] | rd[i]);
+        }
+    }
+
+    @Override
+    public long countFree(long[] cols, long[] ld, long[] rd, int count, long all) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += Long.bitCount(all & ~(cols[i] | ld[i] | rd[i]));
+        }
+        return total;
+    }
+
+    @Override
+    public long countTwoRows(long[] cols, long[] ld, long[] rd, int count, long all) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            long c = cols[i], l = ld[i], r = rd[i];
+            for (long options = all & ~(c | l | r); options != 0; options &= options - 1) {
+                long bit = options & -options;
+                total += Long.bitCount(all & ~((c | bit) | (((l | bit) << 1) & all) | ((r | bit) >>> 1)));
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,49 @@
+package base;
+
+/**
+ * Which kernel the COUNT and ENUMERATE workers run: a SubtreeSolver, or for a
+ * count-only engine a SubtreeCounter.
+ */
+public enum SearchEngine {
+    BITBOARD,      // bitmask backtracking (CompletionSolver when there are constraints)
+    DANCING_LINKS, // exact cover with Algorithm X, mostly to cross-check the bitboard counts
+    BATCH,         // batched expansion on SIMD lanes when the Vector API is available; count only
+    MEET_IN_THE_MIDDLE; // joins top-half and bottom-half signatures; whole boards only, count only
+
+    // Engines whose kernels can't enumerate; ThreadManager only runs them in COUNT mode
+    public boolean isCountOnly() {
+        return this == BATCH || this == MEET_IN_THE_MIDDLE;
+    }
+
+    // Kernel for an ENUMERATE run (or a COUNT one); count-only engines have none
+    public SubtreeSolver create(int n, BoardConstraints constraints) {
+        if (this == DANCING_LINKS) return new DancingLinksSolver(n, constraints);
+        if (this == MEET_IN_THE_MIDDLE) {
+            // Not a per-column search: HeadlessSolver runs a MeetInTheMiddleCounter for the whole board
+            throw new IllegalArgumentException("The meet-in-the-middle engine only counts whole boards");
+        }
+        if (this == BATCH) throw new IllegalArgumentException("The batch engine only counts");
+        return (constraints != null) ? new CompletionSolver(constraints) : SubtreeSolver.forSize(n);
+    }
+
+    // Kernel for a COUNT run
+    public SubtreeCounter createCounter(int n, BoardConstraints constraints) {
+        if (this == BATCH) {
+            if (constraints != null) throw new IllegalArgumentException("The batch engine doesn't support constraints");
+            return new BatchSolver(n);
+        }
+        return create(n, constraints);
+    }
+
+    // Accepts the enum name or the short forms "bitboard", "dlx", "batch" and "mitm"
+    public static SearchEngine parse(String text) {
+        String name = text.trim().toUpperCase();
+        if (name.equals("DLX")) return DANCING_LINKS;
+        if (name.equals("MITM")) return MEET_IN_THE_MIDDLE;
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown engine: " + text + " (expected bitboard, dlx, batch or mitm)");
+        }
+    }
+}
@@ -27,6 +27,22 @@ public class Solution {
         return true;
     }
     
+    // Row -> column of the queen in that row
+    public int[] getColumns() {
+        int n = solved_board.getN();
+        int[][] state = solved_board.getState();
+        int[] cols = new int[n];
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+                if (state[i][j] != 0) {
+                    cols[i] = j;
+                    break;
+                }
+            }
+        }
+        return cols;
+    }
+    
     public void printSolution() {
        this.solved_board.printBoard();
     }
@@ -0,0 +1,190 @@
+package base;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Per-square bitmap index over a stored solution set, for partial-placement
+ * queries: which solutions have queens on these squares and none on those
+ * (a BoardConstraints).
+ *
+ * Bit i of square (row, col)'s bitmap is set if solution i has its queen of that
+ * row there, so a filter is an AND of one bitmap per pre-placed queen and an
+ * AND NOT per blocked square, 64 solutions per word whatever rows they are on.
+ * The set must be in lexicographic order, as the ResultCache keeps it: row 0
+ * then splits it into one contiguous range per column, so row 0 needs no
+ * bitmaps and a filter with a row-0 queen only looks at that column's range.
+ *
+ * A query costs one pass over the words of the selected row-0 ranges per
+ * filtered square, plus one step per match when the matches are listed.
+ * The bitmaps take n (n - 1) bits per solution, about n / 4 times what the
+ * packed set itself takes.
+ */
+public class SolutionIndex {
+
+    private final PackedSolutions solutions;
+    private final int n;
+    private final int[] columnStart; // row-0 column -> index of its first solution, plus an end entry
+    private final long[][] squares; // (row - 1) * n + col -> bitmap over solution indices
+
+    /**
+     * @throws IllegalArgumentException if the solutions are not distinct and in lexicographic order
+     */
+    public SolutionIndex(PackedSolutions solutions) {
+        this.solutions = solutions;
+        this.n = solutions.getN();
+        int size = solutions.size();
+        int words = (size + 63) >>> 6;
+        columnStart = new int[n + 1];
+        squares = new long[(n - 1) * n][words];
+
+        int[] previous = new int[n];
+        int[] current = new int[n];
+        for (int i = 0; i < size; i++) {
+            solutions.get(i, current);
+            if (i > 0 && Arrays.compare(previous, current) >= 0) {
+                throw new IllegalArgumentException("Solutions must be distinct and in lexicographic order");
+            }
+            columnStart[current[0] + 1]++;
+            for (int row = 1; row < n; row++) {
+                squares[(row - 1) * n + current[row]][i >>> 6] |= 1L << i;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        for (int col = 0; col < n; col++) columnStart[col + 1] += columnStart[col];
+    }
+
+    private SolutionIndex(PackedSolutions solutions, int[] columnStart, long[][] squares) {
+        this.solutions = solutions;
+        this.n = solutions.getN();
+        this.columnStart = columnStart;
+        this.squares = squares;
+    }
+
+    // Matching solutions as a word of the bitmaps; bit i of word w is solution 64 w + i
+    private interface WordVisitor {
+        void accept(int col, int word, long matches);
+    }
+
+    // Solutions matching the filter
+    public long count(BoardConstraints filter) {
+        long[] total = {0};
+        scan(filter, (col, word, matches) -> total[0] += Long.bitCount(matches));
+        return total[0];
+    }
+
+    // Matching solutions per row-0 column, like HeadlessSolver.countByColumn
+    public long[] countByColumn(BoardConstraints filter) {
+        long[] counts = new long[n];
+        scan(filter, (col, word, matches) -> counts[col] += Long.bitCount(matches));
+        return counts;
+    }
+
+    // Indices (into getSolutions()) of the matching solutions, in increasing order
+    public void forEachMatch(BoardConstraints filter, IntConsumer action) {
+        scan(filter, (col, word, matches) -> {
+            for (long bits = matches; bits != 0; bits &= bits - 1) {
+                action.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        });
+    }
+
+    // Passes the matching solutions to the listener in lexicographic order; returns how many there were
+    public long forEachMatch(BoardConstraints filter, SolutionListener listener) {
+        int[] columns = new int[n];
+        long[] found = {0};
+        forEachMatch(filter, i -> {
+            found[0]++;
+            listener.onSolution(-1, solutions.get(i, columns));
+        });
+        return found[0];
+    }
+
+    private void scan(BoardConstraints filter, WordVisitor visitor) {
+        if (filter != null && filter.getN() != n) {
+            throw new IllegalArgumentException("Filter is for a " + filter.getN() + "x" + filter.getN() + " board");
+        }
+        // Bitmaps to AND, then bitmaps to AND NOT, for rows 1..n-1
+        long[][] required = new long[n][];
+        long[][] excluded = new long[n * n][];
+        int requiredCount = 0;
+        int excludedCount = 0;
+        long rowZero = (1L << n) - 1;
+        if (filter != null) {
+            int queen = filter.getQueen(0);
+            if (queen >= 0) rowZero = 1L << queen;
+            rowZero &= ~filter.getBlocked(0);
+            for (int row = 1; row < n; row++) {
+                queen = filter.getQueen(row);
+                if (queen >= 0) required[requiredCount++] = squares[(row - 1) * n + queen];
+                for (long blocked = filter.getBlocked(row); blocked != 0; blocked &= blocked - 1) {
+                    int col = Long.numberOfTrailingZeros(blocked);
+                    if (col != queen) excluded[excludedCount++] = squares[(row - 1) * n + col];
+                }
+            }
+        }
+
+        for (long cols = rowZero; cols != 0; cols &= cols - 1) {
+            int col = Long.numberOfTrailingZeros(cols);
+            int from = columnStart[col];
+            int to = columnStart[col + 1];
+            if (from == to) continue;
+            for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+                long matches = -1L;
+                if (word == from >>> 6) matches &= -1L << from; // shift counts are mod 64
+                if (word == (to - 1) >>> 6) matches &= -1L >>> (63 - ((to - 1) & 63));
+                for (int i = 0; i < requiredCount && matches != 0; i++) matches &= required[i][word];
+                for (int i = 0; i < excludedCount && matches != 0; i++) matches &= ~excluded[i][word];
+                if (matches != 0) visitor.accept(col, word, matches);
+            }
+        }
+    }
+
+    // The set the index was built on; forEachMatch's indices refer to it
+    public PackedSolutions getSolutions() {
+        return solutions;
+    }
+
+    // Bytes held by the bitmaps, not counting the solution set
+    public long getMemoryBytes() {
+        return (long) squares.length * (squares.length > 0 ? squares[0].length : 0) * Long.BYTES
+                + (long) columnStart.length * Integer.BYTES;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(n);
+        out.writeInt(solutions.size());
+        for (int start : columnStart) out.writeInt(start);
+        for (long[] bitmap : squares) {
+            for (long word : bitmap) out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads what write() wrote for this solution set.
+     * @throws IOException if it was written for a different set or is malformed
+     */
+    public static SolutionIndex read(DataInputStream in, PackedSolutions solutions) throws IOException {
+        int n = in.readInt();
+        int size = in.readInt();
+        if (n != solutions.getN() || size != solutions.size()) throw new IOException("index is for another solution set");
+        int[] columnStart = new int[n + 1];
+        for (int col = 0; col <= n; col++) {
+            columnStart[col] = in.readInt();
+            if (columnStart[col] < (col == 0 ? 0 : columnStart[col - 1]) || columnStart[col] > size) {
+                throw new IOException("bad column range");
+            }
+        }
+        if (columnStart[n] != size) throw new IOException("bad column range");
+        long[][] squares = new long[(n - 1) * n][(size + 63) >>> 6];
+        for (long[] bitmap : squares) {
+            for (int word = 0; word < bitmap.length; word++) bitmap[word] = in.readLong();
+        }
+        return new SolutionIndex(solutions, columnStart, squares);
+    }
+}
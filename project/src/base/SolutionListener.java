@@ -0,0 +1,6 @@
+package base;
+
+public interface SolutionListener {
+    // columns[row] is the column of the queen in that row
+    void onSolution(int thread_id, int[] columns);
+}
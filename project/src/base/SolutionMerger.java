@@ -0,0 +1,202 @@
+package base;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Puts the solutions of a parallel ENUMERATE run back into lexicographic order
+ * as they arrive, instead of collecting and sorting them at the end.
+ *
+ * Each subtree task is one run, numbered in the order of its prefix (row-0
+ * columns, or Frontier tasks), so every solution of a run comes before every
+ * solution of a later one. That turns the k-way merge of the runs into
+ * releasing them in run order: the lowest unfinished run is streamed straight
+ * to the output, later runs are held back in packed form until every run
+ * before them is finished.
+ *
+ * Finished runs stay held for as long as the head is unfinished, so one slow
+ * early run could otherwise leave nearly the whole solution set held back.
+ * Workers therefore call awaitTurn before starting a run: it waits while the run
+ * is window or more runs ahead of the head. What is held back is then at most
+ * the solutions of window runs.
+ *
+ * Kernels that don't enumerate in lexicographic order (dancing links, the
+ * completion solver) are merged with sorted = false: every run is then held
+ * until it finishes and sorted on release.
+ *
+ * A run that never finishes (the solve was stopped) holds back everything after it;
+ * cancel() releases the workers waiting for their turn.
+ */
+public class SolutionMerger {
+
+    public static final int RUNS_AHEAD_PER_THREAD = 64; // window of frontier task runs, per worker
+
+    private final int n;
+    private final int first; // run ids are first .. end-1
+    private final int end;
+    private final boolean sorted; // each run arrives in lexicographic order
+    private final int window; // runs this far ahead of the head wait in awaitTurn
+    private final SolutionListener out;
+    private final PackedSolutions[] held; // run - first -> solutions held back, null if none
+    private final boolean[] finished;
+    private volatile int head; // lowest unfinished run; written under the lock
+    private volatile boolean cancelled = false;
+    // Workers wait for their turn on a j.u.c. lock: a virtual thread waiting on a monitor would pin its carrier
+    private final ReentrantLock turnLock = new ReentrantLock();
+    private final Condition headMoved = turnLock.newCondition();
+    private long heldCount = 0;
+    private long peakHeld = 0;
+    private long released = 0;
+
+    // Without a window: nothing waits, any number of finished runs may be held back
+    public SolutionMerger(int n, int first, int end, boolean sorted, SolutionListener out) {
+        this(n, first, end, sorted, Integer.MAX_VALUE, out);
+    }
+
+    public SolutionMerger(int n, int first, int end, boolean sorted, int window, SolutionListener out) {
+        if (first > end) throw new IllegalArgumentException("Invalid run range " + first + ".." + end);
+        if (window < 1) throw new IllegalArgumentException("The window must hold at least one run");
+        this.n = n;
+        this.first = first;
+        this.end = end;
+        this.sorted = sorted;
+        this.window = window;
+        this.out = out;
+        this.held = new PackedSolutions[end - first];
+        this.finished = new boolean[end - first];
+        this.head = first;
+    }
+
+    // Listener for the solutions of one run
+    public SolutionListener run(int run) {
+        return (thread_id, columns) -> add(run, thread_id, columns);
+    }
+
+    /**
+     * Blocks a worker about to start run until the run is less than window runs ahead
+     * of the head. Runs must be handed out in increasing order, so the head is always
+     * with a worker that isn't waiting. Returns false, and the run should not be started,
+     * if the merger was cancelled or the thread interrupted (the interrupt is kept).
+     */
+    public boolean awaitTurn(int run) {
+        if (isTurn(run)) return !cancelled;
+        turnLock.lock();
+        try {
+            while (!isTurn(run) && !cancelled) headMoved.await();
+            return !cancelled;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            turnLock.unlock();
+        }
+    }
+
+    // Whether run may start now, for schedulers that hand out runs without blocking (WorkerPool)
+    public boolean isTurn(int run) {
+        return run - head < window;
+    }
+
+    // Lets every worker waiting in awaitTurn go, with false; the solve is being stopped
+    public void cancel() {
+        cancelled = true;
+        signalHeadMoved();
+    }
+
+    private void signalHeadMoved() {
+        turnLock.lock();
+        try {
+            headMoved.signalAll();
+        } finally {
+            turnLock.unlock();
+        }
+    }
+
+    public synchronized void add(int run, int thread_id, int[] columns) {
+        if (run == head && sorted) {
+            released++;
+            out.onSolution(thread_id, columns);
+            return;
+        }
+        PackedSolutions runSolutions = held[run - first];
+        if (runSolutions == null) held[run - first] = runSolutions = new PackedSolutions(n);
+        runSolutions.add(columns);
+        peakHeld = Math.max(peakHeld, ++heldCount);
+    }
+
+    // No more solutions will come from this run; releases it and the finished runs after it once it is the head
+    public synchronized void finish(int run) {
+        finished[run - first] = true;
+        int before = head;
+        while (head < end && finished[head - first]) {
+            release(head);
+            head++;
+            if (head < end && sorted) release(head); // the new head streams from now on
+        }
+        if (head != before && window != Integer.MAX_VALUE) signalHeadMoved();
+    }
+
+    private void release(int run) {
+        PackedSolutions runSolutions = held[run - first];
+        if (runSolutions == null) return;
+        held[run - first] = null;
+        SolverEvents.SolutionBatch event = new SolverEvents.SolutionBatch();
+        event.begin();
+        if (!sorted) runSolutions = sortLexicographic(runSolutions);
+        int[] columns = new int[n];
+        for (int i = 0; i < runSolutions.size(); i++) {
+            out.onSolution(-1, runSolutions.get(i, columns));
+        }
+        heldCount -= runSolutions.size();
+        released += runSolutions.size();
+        event.end();
+        if (event.shouldCommit()) SolverEvents.commitBatch(event, -1, run, runSolutions.size(), runSolutions.sizeInBytes());
+    }
+
+    // True once every run is finished and released
+    public synchronized boolean isDone() {
+        return head == end;
+    }
+
+    public synchronized long getReleased() {
+        return released;
+    }
+
+    // Most solutions held back at once
+    public synchronized long getPeakHeld() {
+        return peakHeld;
+    }
+
+    static PackedSolutions sortLexicographic(PackedSolutions packed) {
+        int n = packed.getN();
+        int[] order = new int[packed.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        sort(packed, order, new int[order.length], 0, order.length);
+        PackedSolutions sorted = new PackedSolutions(n);
+        int[] columns = new int[n];
+        for (int i : order) sorted.add(packed.get(i, columns));
+        return sorted;
+    }
+
+    // Merge sort of order[from, to) by the solutions the entries point at, read in place
+    private static void sort(PackedSolutions packed, int[] order, int[] scratch, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sort(packed, order, scratch, from, mid);
+        sort(packed, order, scratch, mid, to);
+        if (compare(packed, order[mid - 1], order[mid]) <= 0) return; // the halves are already in order
+        System.arraycopy(order, from, scratch, from, to - from);
+        for (int i = from, a = from, b = mid; i < to; i++) {
+            if (b >= to || (a < mid && compare(packed, scratch[a], scratch[b]) <= 0)) order[i] = scratch[a++];
+            else order[i] = scratch[b++];
+        }
+    }
+
+    private static int compare(PackedSolutions packed, int a, int b) {
+        for (int row = 0; row < packed.getN(); row++) {
+            int diff = packed.getColumn(a, row) - packed.getColumn(b, row);
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+}
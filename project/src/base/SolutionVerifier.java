@@ -0,0 +1,50 @@
+package base;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Linear-time check of a row -> column placement, for boards far too large for Board.
+ * Occupancy is kept in bitsets (5n bits in all), so even n = 10^8 needs about 60 MB.
+ */
+public class SolutionVerifier {
+
+    // True if columns holds n queens, one per row, none attacking another
+    public static boolean isValid(int[] columns) {
+        return findConflict(columns.length, row -> columns[row]) < 0;
+    }
+
+    // Same check for a placement given as a function of the row, e.g. ConstructiveSolver::columnOf
+    public static boolean isValid(int n, IntUnaryOperator columnOfRow) {
+        return findConflict(n, columnOfRow) < 0;
+    }
+
+    public static int findConflict(int[] columns) {
+        return findConflict(columns.length, row -> columns[row]);
+    }
+
+    /**
+     * @return the first row whose queen is out of range or attacked by a queen in an
+     *         earlier row, or -1 if the placement is a solution
+     */
+    public static int findConflict(int n, IntUnaryOperator columnOfRow) {
+        long[] usedCols = new long[(n + 63) >>> 6];
+        long[] usedDiag = new long[(2 * n + 62) >>> 6]; // row + col
+        long[] usedAnti = new long[(2 * n + 62) >>> 6]; // row - col + n - 1
+        for (int row = 0; row < n; row++) {
+            int col = columnOfRow.applyAsInt(row);
+            if (col < 0 || col >= n) return row;
+            if (testAndSet(usedCols, col) || testAndSet(usedDiag, row + col) || testAndSet(usedAnti, row - col + n - 1)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean testAndSet(long[] bits, int index) {
+        long mask = 1L << index; // shift uses the low 6 bits
+        int word = index >>> 6;
+        if ((bits[word] & mask) != 0) return true;
+        bits[word] |= mask;
+        return false;
+    }
+}
@@ -0,0 +1,7 @@
+package base;
+
+public enum SolveMode {
+    VISUAL,    // Board-based backtracking with step snapshots for the GUI
+    ENUMERATE, // bitmask backtracking, solutions streamed to the StateManager listener
+    COUNT      // bitmask backtracking, only per-column solution counts are kept
+}
@@ -0,0 +1,50 @@
+package base;
+
+/**
+ * Snapshot of a running solve: nodes searched so far against the expected
+ * tree size, which becomes exact column by column as subtrees complete.
+ * A session's subtrees are its frontier tasks rather than row-0 columns.
+ */
+public class SolveProgress {
+    public final long nodesVisited;
+    public final double expectedNodes;
+    public final long elapsedMs;
+    public final int columnsDone; // subtrees finished: row-0 columns, or a session's frontier tasks
+    public final int columnsTotal;
+
+    public SolveProgress(long nodesVisited, double expectedNodes, long elapsedMs, int columnsDone, int columnsTotal) {
+        this.nodesVisited = nodesVisited;
+        this.expectedNodes = expectedNodes;
+        this.elapsedMs = elapsedMs;
+        this.columnsDone = columnsDone;
+        this.columnsTotal = columnsTotal;
+    }
+
+    // 0..1
+    public double getFraction() {
+        if (columnsDone == columnsTotal) return 1;
+        if (expectedNodes <= 0) return 0;
+        return Math.min(0.999, nodesVisited / expectedNodes);
+    }
+
+    // -1 while there is nothing to extrapolate from yet
+    public long getEtaMs() {
+        double fraction = getFraction();
+        if (fraction <= 0) return -1;
+        return (long) (elapsedMs * (1 - fraction) / fraction);
+    }
+
+    public static String formatDuration(long ms) {
+        if (ms < 0) return "?";
+        long seconds = ms / 1000;
+        if (seconds < 60) return seconds + "s";
+        if (seconds < 3600) return (seconds / 60) + "m " + (seconds % 60) + "s";
+        return (seconds / 3600) + "h " + (seconds % 3600 / 60) + "m";
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f%% done, ETA %s (%d of ~%.3g nodes, %d/%d subtrees)",
+                getFraction() * 100, formatDuration(getEtaMs()), nodesVisited, expectedNodes, columnsDone, columnsTotal);
+    }
+}
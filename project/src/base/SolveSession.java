@@ -0,0 +1,301 @@
+package base;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One independent classic COUNT or ENUMERATE solve on a shared WorkerPool, with
+ * its own parameters, result sink, metrics and cancellation. Set it up, submit
+ * it to a pool, then await() it; any number of sessions can run at once.
+ *
+ * The board is split into a breadth-first Frontier when it is submitted, and
+ * the pool hands out its tasks one at a time, so a session never holds a
+ * worker for longer than one task and small sessions get through while a large
+ * one is running. ENUMERATE output reaches the listener in lexicographic order
+ * (see SolutionMerger), one solution at a time.
+ */
+public class SolveSession {
+
+    public static final int DEFAULT_PRIORITY = 1;
+
+    private final int n;
+    private final SolveMode mode;
+    private int priority = DEFAULT_PRIORITY;
+    private int maxThreads = Integer.MAX_VALUE;
+    private int fromCol; // row-0 columns searched, the whole board unless set
+    private int toCol;
+    private SolutionListener listener;
+
+    // Set up by submit
+    private WorkerPool pool;
+    private Frontier frontier;
+    private SolutionMerger merger; // ENUMERATE only
+    private BitboardSolver[] kernels; // worker -> this session's kernel there, made on first use
+    private final AtomicLongArray columnCounts;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean cancelled = false;
+    private volatile RuntimeException failure;
+
+    // Scheduling state, guarded by the pool
+    int nextTask = 0;
+    int running = 0;
+    int remaining;
+    double pass; // worker time used so far, in nanoseconds divided by priority
+    long order; // submission order, breaks ties
+    long timedTasks = 0; // tasks that have returned, and their worker time
+    long timedNanos = 0;
+
+    // Metrics
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder tasksDone = new LongAdder();
+    private volatile long submittedAt;
+    private volatile long startedAt = -1; // first task started, System.nanoTime()
+    private volatile long finishedAt = -1;
+    private int peakRunning = 0; // guarded by the pool
+
+    public SolveSession(int n, SolveMode mode) {
+        if (n < 4 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Board size must be between 4 and " + BitboardSolver.MAX_N);
+        }
+        if (mode != SolveMode.COUNT && mode != SolveMode.ENUMERATE) {
+            throw new IllegalArgumentException("Sessions only COUNT or ENUMERATE");
+        }
+        this.n = n;
+        this.mode = mode;
+        this.toCol = n;
+        this.columnCounts = new AtomicLongArray(n);
+    }
+
+    // Share of worker time against the pool's other sessions: priority 2 gets twice what 1 gets while both have work
+    public void setPriority(int priority) {
+        if (priority < 1) throw new IllegalArgumentException("Priority must be at least 1");
+        this.priority = priority;
+    }
+
+    // Most of the pool's workers this session may use at once
+    public void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1) throw new IllegalArgumentException("Number of threads must be at least 1");
+        this.maxThreads = maxThreads;
+    }
+
+    // Only the solutions with their row-0 queen in fromCol .. toCol-1, e.g. for one page of an enumeration
+    public void setColumns(int fromCol, int toCol) {
+        if (fromCol < 0 || fromCol >= toCol || toCol > n) {
+            throw new IllegalArgumentException("Columns must be a range within 0 .. " + n);
+        }
+        this.fromCol = fromCol;
+        this.toCol = toCol;
+    }
+
+    // ENUMERATE: receives every solution, in lexicographic order, never from two threads at once
+    public void setListener(SolutionListener listener) {
+        this.listener = listener;
+    }
+
+    // Called by WorkerPool.submit
+    void plan(WorkerPool pool, int poolThreads) {
+        if (this.pool != null) throw new IllegalStateException("Session was already submitted");
+        this.pool = pool;
+        submittedAt = System.nanoTime();
+        frontier = new Frontier(n, fromCol, toCol, Math.min(maxThreads, poolThreads) * HeadlessSolver.FRONTIER_TASKS_PER_THREAD);
+        kernels = new BitboardSolver[poolThreads];
+        remaining = frontier.size();
+        if (mode == SolveMode.ENUMERATE) {
+            int window = Math.min(maxThreads, poolThreads) * SolutionMerger.RUNS_AHEAD_PER_THREAD;
+            merger = new SolutionMerger(n, 0, frontier.size(), true, window, (thread_id, columns) -> {
+                columnCounts.getAndIncrement(columns[0]); // under the merger's lock, in order
+                if (listener != null) listener.onSolution(thread_id, columns);
+            });
+        }
+    }
+
+    /**
+     * Searches one task on the given worker; returns false if it was stopped by cancel().
+     * A listener that throws fails the session.
+     */
+    boolean runTask(int task, int worker) {
+        BitboardSolver kernel;
+        synchronized (this) {
+            if (kernels[worker] == null) {
+                kernels[worker] = new BitboardSolver(n);
+                if (cancelled) kernels[worker].requestStop();
+            }
+            kernel = kernels[worker];
+        }
+        SolverEvents.SubtreeTask event = new SolverEvents.SubtreeTask();
+        event.begin();
+        long start = System.nanoTime();
+        long before = kernel.getNodes();
+        long found;
+        try {
+            found = frontier.solveTask(task, kernel, mode, worker, merger != null ? merger.run(task) : null,
+                    new int[frontier.getDepth()]);
+        } catch (RuntimeException e) {
+            failure = e;
+            cancel();
+            return false;
+        }
+        long taskNodes = kernel.getNodes() - before;
+        nodes.add(taskNodes);
+        busyNanos.add(System.nanoTime() - start);
+        if (found < 0) return false;
+        if (mode == SolveMode.COUNT) columnCounts.addAndGet(frontier.getFirstColumn(task), found);
+        else merger.finish(task);
+        tasksDone.increment();
+        event.end();
+        if (event.shouldCommit()) {
+            SolverEvents.commitTask(event, n, task, frontier.getPrefix(task, null), frontier.getDepth(), taskNodes,
+                    mode == SolveMode.COUNT ? found : -1, worker);
+        }
+        return true;
+    }
+
+    // Called by the pool, under its lock
+    void started(int running) {
+        if (startedAt < 0) startedAt = System.nanoTime();
+        peakRunning = Math.max(peakRunning, running);
+    }
+
+    // Called by the pool once the last task is done, or the last running one returned after cancel()
+    void finish() {
+        finishedAt = System.nanoTime();
+        done.countDown();
+    }
+
+    /**
+     * Stops the session: tasks not started are dropped, running ones stop at their next
+     * node. await() then returns -1. Does nothing once the session is done.
+     */
+    public void cancel() {
+        if (done.getCount() == 0) return;
+        cancelled = true;
+        synchronized (this) {
+            if (kernels != null) {
+                for (BitboardSolver kernel : kernels) {
+                    if (kernel != null) kernel.requestStop();
+                }
+            }
+        }
+        if (pool != null) pool.cancelled(this);
+    }
+
+    /**
+     * Waits for the session and returns its solution count, or -1 if it was cancelled.
+     * An interrupted caller cancels the session. Rethrows what a failing listener threw.
+     */
+    public long await() {
+        if (pool == null) throw new IllegalStateException("Session was not submitted");
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            return -1;
+        }
+        if (failure != null) throw failure;
+        return cancelled ? -1 : HeadlessSolver.sum(getColumnCounts());
+    }
+
+    /**
+     * Same, giving up after timeoutMs: a session still running then is cancelled and -1 returned.
+     */
+    public long await(long timeoutMs) {
+        if (pool == null) throw new IllegalStateException("Session was not submitted");
+        try {
+            if (!done.await(timeoutMs, TimeUnit.MILLISECONDS)) cancel();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+        }
+        return await();
+    }
+
+    /**
+     * Waits up to timeoutMs for the session to finish, without cancelling it if it doesn't.
+     * @return true if it is done
+     */
+    public boolean waitFor(long timeoutMs) throws InterruptedException {
+        return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public SolveMode getMode() {
+        return mode;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    // Solutions per row-0 column so far
+    public long[] getColumnCounts() {
+        long[] counts = new long[n];
+        for (int col = 0; col < n; col++) counts[col] = columnCounts.get(col);
+        return counts;
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    public int getTaskCount() {
+        return frontier != null ? frontier.size() : 0;
+    }
+
+    public long getTasksDone() {
+        return tasksDone.sum();
+    }
+
+    // Submit until the first task started, or -1 if none has
+    public long getQueuedMillis() {
+        long started = startedAt;
+        return started < 0 ? -1 : (started - submittedAt) / 1_000_000;
+    }
+
+    // Submit until done, or until now while running
+    public long getElapsedMillis() {
+        long finished = finishedAt;
+        return ((finished < 0 ? System.nanoTime() : finished) - submittedAt) / 1_000_000;
+    }
+
+    // Worker time spent on this session's tasks, over all workers
+    public long getBusyMillis() {
+        return busyNanos.sum() / 1_000_000;
+    }
+
+    // Most workers on this session at once; never more than its quota
+    public int getPeakThreads() {
+        if (pool == null) return 0;
+        synchronized (pool) {
+            return peakRunning;
+        }
+    }
+
+    // What the pool charges a task when it starts: the mean so far, 1 ms before any has returned
+    double meanTaskNanos() {
+        return timedTasks > 0 ? (double) timedNanos / timedTasks : 1e6;
+    }
+
+    // Tasks are held back while they would be too far ahead of the merger's head
+    boolean hasWaitingTask() {
+        return !cancelled && nextTask < frontier.size() && running < maxThreads && (merger == null || merger.isTurn(nextTask));
+    }
+}
@@ -0,0 +1,158 @@
+package base;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events of the solver, so a recording shows solves, their
+ * subtree tasks, published results and cancellations next to GC and thread
+ * scheduling. Record with e.g. -XX:StartFlightRecording:filename=solve.jfr and
+ * look for the "N-Queens" category.
+ *
+ * The emitters follow the usual JFR pattern: begin(), work, end(), and only fill
+ * in the fields and commit if shouldCommit(), so with recording off (or a task
+ * under the SubtreeTask threshold) an event costs a flag check and nothing is
+ * formatted. None of them take a stack trace.
+ */
+public final class SolverEvents {
+
+    private SolverEvents() {
+    }
+
+    @Name("nqueens.SolveStart")
+    @Label("Solve Start")
+    @Category("N-Queens")
+    @Description("A ThreadManager run was started")
+    @StackTrace(false)
+    public static class SolveStart extends Event {
+        @Label("N")
+        int n;
+        @Label("Mode")
+        String mode;
+        @Label("Engine")
+        String engine;
+        @Label("Threads")
+        @Description("Worker threads, or carrier threads of a virtual-thread run")
+        int threads;
+        @Label("Split")
+        @Description("rows, frontier or virtual")
+        String split;
+        @Label("Tasks")
+        int tasks;
+    }
+
+    @Name("nqueens.Solve")
+    @Label("Solve")
+    @Category("N-Queens")
+    @Description("A ThreadManager run, from startSolving until its last task returned or it was stopped")
+    @StackTrace(false)
+    public static class Solve extends Event {
+        @Label("N")
+        int n;
+        @Label("Mode")
+        String mode;
+        @Label("Engine")
+        String engine;
+        @Label("Threads")
+        int threads;
+        @Label("Split")
+        String split;
+        @Label("Tasks")
+        int tasks;
+        @Label("Solutions")
+        long solutions;
+        @Label("Nodes")
+        long nodes;
+        @Label("Cancelled")
+        boolean cancelled;
+    }
+
+    @Name("nqueens.SubtreeTask")
+    @Label("Subtree Task")
+    @Category("N-Queens")
+    @Description("One row-0 column or frontier task searched by one worker")
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static class SubtreeTask extends Event {
+        @Label("N")
+        int n;
+        @Label("Task")
+        @Description("Row-0 column, or index into the frontier")
+        int task;
+        @Label("Prefix")
+        @Description("Columns of the queens the task starts from, row 0 first")
+        String prefix;
+        @Label("Nodes")
+        long nodes;
+        @Label("Solutions")
+        @Description("Solutions counted, -1 when enumerating")
+        long solutions;
+        @Label("Worker")
+        @Description("thread_id of the SolverThread, -1 for a task on its own virtual thread")
+        int worker;
+    }
+
+    @Name("nqueens.SolutionBatch")
+    @Label("Solution Batch")
+    @Category("N-Queens")
+    @Description("Solutions published at once: a column count reported to the StateManager, or a run the merger released")
+    @StackTrace(false)
+    public static class SolutionBatch extends Event {
+        @Label("Worker")
+        @Description("Reporting thread, -1 for the merger")
+        int worker;
+        @Label("Run")
+        @Description("Row-0 column of a count, or merger run")
+        int run;
+        @Label("Solutions")
+        long solutions;
+        @Label("Held Bytes")
+        @DataAmount
+        @Description("Packed size of a released run, 0 for counts")
+        long heldBytes;
+    }
+
+    @Name("nqueens.SolveCancelled")
+    @Label("Solve Cancelled")
+    @Category("N-Queens")
+    @Description("ThreadManager.stopAll, until the workers had stopped or their join timed out")
+    @StackTrace(false)
+    public static class SolveCancelled extends Event {
+        @Label("N")
+        int n;
+        @Label("Nodes")
+        long nodes;
+        @Label("Still Running")
+        @Description("Workers alive when stopAll gave up waiting")
+        int stillRunning;
+    }
+
+    static void commitTask(SubtreeTask event, int n, int task, int[] prefix, int depth, long nodes, long solutions, int worker) {
+        event.n = n;
+        event.task = task;
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < depth; row++) {
+            if (row > 0) text.append(',');
+            text.append(prefix[row]);
+        }
+        event.prefix = text.toString();
+        event.nodes = nodes;
+        event.solutions = solutions;
+        event.worker = worker;
+        event.commit();
+    }
+
+    static void commitBatch(SolutionBatch event, int worker, int run, long solutions, long heldBytes) {
+        event.worker = worker;
+        event.run = run;
+        event.solutions = solutions;
+        event.heldBytes = heldBytes;
+        event.commit();
+    }
+}
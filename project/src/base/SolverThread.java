@@ -1,5 +1,8 @@
 package base;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 public class SolverThread extends Thread {
 
     private final NQueenSolver solver;
@@ -9,14 +12,55 @@ public class SolverThread extends Thread {
     private final int endCol;
     private final int n;
     private final int thread_id;
+    private final SolveMode mode;
+    private final SubtreeCounter headless; // COUNT and ENUMERATE modes only; a SubtreeSolver for ENUMERATE
+    private final BoardConstraints constraints; // null for an empty board
+    private final Frontier frontier; // claims batches of these tasks instead of a column range, null if not
+    private SolutionMerger merger; // ENUMERATE: orders the output by run (column or task), null to pass it on as found
+    private AtomicInteger columnCursor; // shared by threads that take columns one at a time, null for the fixed range
+    private Runnable onFinished; // called once run() returns, however it returns; null for none
+
+    // Progress accounting: nodes of finished columns, and the solver working on the current one
+    private final AtomicLongArray columnNodes; // index col - startCol, -1 until that column is done
+    private volatile long completedNodes = 0;
+    private volatile NQueenSolver currentSolver;
+    private long headlessNodesBefore = 0; // headless solver's node count when the current column started
 
     // Updated constructor to handle a range of columns
     public SolverThread(int thread_id, int n, int startCol, int endCol, StateManager manager, Object lock) {
+        this(thread_id, n, startCol, endCol, manager, lock, SolveMode.VISUAL);
+    }
+
+    public SolverThread(int thread_id, int n, int startCol, int endCol, StateManager manager, Object lock, SolveMode mode) {
+        this(thread_id, n, startCol, endCol, manager, lock, mode, null,
+                mode != SolveMode.VISUAL ? SubtreeSolver.forSize(n) : null);
+    }
+
+    // headless: this thread's own kernel for COUNT and ENUMERATE; columns are then its branch indices
+    public SolverThread(int thread_id, int n, int startCol, int endCol, StateManager manager, Object lock, SolveMode mode,
+                        BoardConstraints constraints, SubtreeCounter headless) {
+        this(thread_id, n, startCol, endCol, manager, lock, mode, constraints, headless, null);
+    }
+
+    // Frontier worker for COUNT and ENUMERATE: takes batches of the shared frontier until it is used up
+    public SolverThread(int thread_id, int n, Frontier frontier, StateManager manager, Object lock, SolveMode mode,
+                        BitboardSolver headless) {
+        this(thread_id, n, 0, 0, manager, lock, mode, null, headless, frontier);
+    }
+
+    private SolverThread(int thread_id, int n, int startCol, int endCol, StateManager manager, Object lock, SolveMode mode,
+                         BoardConstraints constraints, SubtreeCounter headless, Frontier frontier) {
         this.startCol = startCol;
         this.endCol = endCol;
         this.lock = lock;
         this.n = n;
         this.thread_id = thread_id;
+        this.mode = mode;
+        this.constraints = constraints;
+        this.headless = headless;
+        this.frontier = frontier;
+        this.columnNodes = new AtomicLongArray(endCol - startCol);
+        for (int i = 0; i < columnNodes.length(); i++) columnNodes.set(i, -1);
 
         Board board = new Board(n);
         this.solver = new NQueenSolver(board);
@@ -25,21 +69,139 @@ public class SolverThread extends Thread {
 
     @Override
     public void run() {
-        for (int col = startCol; col < endCol; col++) {
+        try {
+            if (frontier != null) {
+                runFrontier();
+            } else {
+                runColumns();
+            }
+        } finally {
+            if (onFinished != null) onFinished.run();
+        }
+    }
+
+    private void runColumns() {
+        StateManager manager = solver.getManager();
+        for (int col = nextColumn(startCol); col < endCol; col = nextColumn(col + 1)) {
             if (stop || Thread.currentThread().isInterrupted()) break;
+            if (merger != null && !merger.awaitTurn(col)) break;
 
-            Board board = new Board(n, col); // Place first queen at (0, col)
-            NQueenSolver localSolver = new NQueenSolver(board, thread_id);
-            localSolver.setManager(solver.getManager());
-            localSolver.solveFromRow(1);
+            SolverEvents.SubtreeTask event = new SolverEvents.SubtreeTask();
+            event.begin();
+            long count = -1;
+            long nodes;
+            if (constraints != null && (constraints.allowedColumns(0) & (1L << col)) == 0) {
+                nodes = 0; // row-0 square ruled out by the constraints
+                if (merger != null) merger.finish(col);
+            } else if (mode == SolveMode.COUNT) {
+                count = headless.countWithFirstQueen(col);
+                if (headless.isStopRequested()) break; // partial count, don't report it
+                manager.addCount(thread_id, col, count);
+                nodes = headless.getNodes() - headlessNodesBefore;
+            } else if (mode == SolveMode.ENUMERATE) {
+                ((SubtreeSolver) headless).enumerateWithFirstQueen(col, thread_id, merger != null ? merger.run(col) : manager::addColumns);
+                if (headless.isStopRequested()) break; // unfinished run, keep what follows held back
+                if (merger != null) merger.finish(col);
+                nodes = headless.getNodes() - headlessNodesBefore;
+            } else {
+                Board board = new Board(n, col); // Place first queen at (0, col)
+                NQueenSolver localSolver = new NQueenSolver(board, thread_id);
+                localSolver.setManager(manager);
+                localSolver.setConstraints(constraints);
+                currentSolver = localSolver;
+                localSolver.solveFromRow(1);
+                nodes = localSolver.getNodes();
+                currentSolver = null;
+            }
             
             // Check stop flag between columns
             if (stop || Thread.currentThread().isInterrupted()) break;
+
+            columnNodes.set(col - startCol, nodes);
+            completedNodes += nodes;
+            headlessNodesBefore += nodes;
+            event.end();
+            if (event.shouldCommit()) SolverEvents.commitTask(event, n, col, new int[] {col}, 1, nodes, count, thread_id);
         }
     }
 
+    // Counts are reported per row-0 column, once per batch, since a batch rarely spans two columns
+    private void runFrontier() {
+        StateManager manager = solver.getManager();
+        BitboardSolver kernel = (BitboardSolver) headless;
+        SolutionListener listener = manager::addColumns;
+        int[] prefix = new int[frontier.getDepth()];
+        for (int start = frontier.claim(); start >= 0; start = frontier.claim()) {
+            int end = Math.min(start + frontier.getBatchSize(), frontier.size());
+            int col = -1;
+            long count = 0;
+            for (int task = start; task < end; task++) {
+                if (stop || Thread.currentThread().isInterrupted()) return;
+                if (merger != null && !merger.awaitTurn(task)) return;
+                SolverEvents.SubtreeTask event = new SolverEvents.SubtreeTask();
+                event.begin();
+                long before = kernel.getNodes();
+                long found = frontier.solveTask(task, kernel, mode, thread_id,
+                        merger != null ? merger.run(task) : listener, prefix);
+                if (found < 0) return; // stopped: partial count, don't report it
+                if (merger != null) merger.finish(task);
+                event.end();
+                if (event.shouldCommit()) {
+                    SolverEvents.commitTask(event, n, task, frontier.getPrefix(task, prefix), frontier.getDepth(),
+                            kernel.getNodes() - before, mode == SolveMode.COUNT ? found : -1, thread_id);
+                }
+                if (mode != SolveMode.COUNT) continue;
+                int first = frontier.getFirstColumn(task);
+                if (first != col) {
+                    if (col >= 0) manager.addCount(thread_id, col, count);
+                    col = first;
+                    count = 0;
+                }
+                count += found;
+            }
+            if (col >= 0) manager.addCount(thread_id, col, count);
+        }
+    }
+
+    private int nextColumn(int col) {
+        return columnCursor != null ? columnCursor.getAndIncrement() : col;
+    }
+
+    // Set before start(); the merger's runs must be this thread's columns or frontier tasks
+    public void setMerger(SolutionMerger merger) {
+        this.merger = merger;
+    }
+
+    /**
+     * Set before start(): instead of its whole range, the thread takes the next column of the
+     * range from this cursor each time, shared with the other threads of the run. Ordered runs
+     * use it so the columns in flight stay adjacent and the merger holds back little.
+     */
+    public void setColumnCursor(AtomicInteger columnCursor) {
+        this.columnCursor = columnCursor;
+    }
+
+    // Set before start(); ThreadManager uses it to tell when the last worker of a run is done
+    public void setOnFinished(Runnable onFinished) {
+        this.onFinished = onFinished;
+    }
+
     public void requestStop() { 
         stop = true;
+        if (headless != null) headless.requestStop();
         this.interrupt(); // Also interrupt the thread
     }
+
+    // Nodes searched by this thread so far, including the column in progress
+    public long getNodesVisited() {
+        if (headless != null) return headless.getNodes();
+        NQueenSolver current = currentSolver;
+        return completedNodes + (current != null ? current.getNodes() : 0);
+    }
+
+    // Exact node count of a finished column, or -1 if this thread hasn't finished it
+    public long getColumnNodes(int col) {
+        if (col < startCol || col >= endCol) return -1;
+        return columnNodes.get(col - startCol);
+    }
 }
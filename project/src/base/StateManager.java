@@ -1,11 +1,19 @@
 package base;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
 
 public class StateManager {
     public HashMap<Integer, StepBoard> current_states = new HashMap<>(); // thread_id -> StepBoard
     public HashMap<Integer, ArrayList<Solution>> solutions = new HashMap<>();
+    public HashMap<Integer, Long> column_counts = new HashMap<>(); // row-0 column -> solutions (COUNT mode)
+    private long streamed_count = 0; // solutions handed to the listener without being stored (ENUMERATE mode)
+    private SolutionListener listener; // optional sink notified of every solution as it is found
+    private boolean verbose = true; // log each solution to the console
+    private volatile int stepDelay = 0; // milliseconds a visual solver reporting here waits after each step
     
     public StateManager() {
         
@@ -21,17 +29,104 @@ public class StateManager {
         if (!solutions.containsKey(thread_id)) {
             solutions.put(thread_id, new ArrayList<Solution>());
         }
+        solution.thread_id = thread_id;
         solutions.get(thread_id).add(solution);
-        System.out.println("Thread " + thread_id + " found solution #" + solutions.get(thread_id).size() + 
+        if (listener != null) listener.onSolution(thread_id, solution.getColumns());
+        if (verbose) System.out.println("Thread " + thread_id + " found solution #" + solutions.get(thread_id).size() + 
                           " for " + solution.solved_board.getN() + "x" + solution.solved_board.getN() + " board");
         // Disabled printing full board - uncomment to debug
         // solution.printSolution();
     }
     
+    // Headless enumeration: pass the solution on without building a Board
+    public synchronized void addColumns(int thread_id, int[] columns) {
+        streamed_count++;
+        if (listener != null) listener.onSolution(thread_id, columns);
+    }
+    
+    public synchronized void addCount(int thread_id, int col, long count) {
+        column_counts.merge(col, count, Long::sum);
+        SolverEvents.SolutionBatch event = new SolverEvents.SolutionBatch();
+        if (event.shouldCommit()) SolverEvents.commitBatch(event, thread_id, col, count, 0);
+    }
+    
     public ArrayList<Solution> getSolutions(int thread_id) {
         return solutions.get(thread_id);
     }
     
+    /**
+     * Every stored solution in lexicographic order: a k-way merge of the per-thread
+     * lists, each of which is in order because a thread searches its columns in order.
+     * The result doesn't depend on how the columns were split or which thread finished first.
+     */
+    public synchronized List<Solution> getOrderedSolutions() {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> Arrays.compare(a.columns, b.columns));
+        int total = 0;
+        for (ArrayList<Solution> sols : solutions.values()) {
+            total += sols.size();
+            if (!sols.isEmpty()) heads.add(new Cursor(sols));
+        }
+        List<Solution> ordered = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            Cursor head = heads.poll();
+            ordered.add(head.sols.get(head.index));
+            if (head.advance()) heads.add(head);
+        }
+        return ordered;
+    }
+
+    // Position in one thread's solution list, with the current solution's columns for comparing
+    private static class Cursor {
+        final ArrayList<Solution> sols;
+        int index = 0;
+        int[] columns;
+
+        Cursor(ArrayList<Solution> sols) {
+            this.sols = sols;
+            this.columns = sols.get(0).getColumns();
+        }
+
+        boolean advance() {
+            if (++index == sols.size()) return false;
+            columns = sols.get(index).getColumns();
+            return true;
+        }
+    }
+
+    public synchronized int getTotalSolutions() {
+        int total = 0;
+        for (ArrayList<Solution> sols : solutions.values()) {
+            total += sols.size();
+        }
+        return total;
+    }
+    
+    // Solutions found in any mode: stored, streamed or only counted
+    public synchronized long getTotalCount() {
+        long total = streamed_count + getTotalSolutions();
+        for (long count : column_counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+    
+    public void setSolutionListener(SolutionListener listener) {
+        this.listener = listener;
+    }
+    
+    // Pace of this run's animation; visual solvers read it on every step, so it can change while they run
+    public void setStepDelay(int delayMs) {
+        stepDelay = delayMs;
+    }
+
+    public int getStepDelay() {
+        return stepDelay;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+    
     
     
 }
@@ -0,0 +1,18 @@
+package base;
+
+/**
+ * A headless search engine that counts everything below a fixed row-0 queen.
+ * Count-only engines such as BatchSolver implement just this; SubtreeSolver adds
+ * enumeration for the ones that can list what they count.
+ */
+public interface SubtreeCounter {
+
+    long countWithFirstQueen(int firstCol);
+
+    // Search nodes visited so far (approximate while running)
+    long getNodes();
+
+    void requestStop();
+
+    boolean isStopRequested();
+}
@@ -0,0 +1,196 @@
+package base;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs subtree tasks on virtual threads, one thread per task, inside a scope
+ * that owns all of them: join() returns only once every forked task has
+ * finished, so none can outlive the run. cancel() stops them all at once:
+ * tasks not started yet are dropped, and running ones have their kernel's
+ * stop flag set, which the search checks at every node. A task that throws
+ * cancels its siblings, and join() then throws what it threw, so a run cut
+ * short by a failure never looks like one that finished.
+ *
+ * At most maxInFlight virtual threads exist at a time; the other forked tasks
+ * wait in a queue and each finishing task starts the next. The searches are
+ * CPU-bound, so more threads than that would only queue up on the carriers,
+ * and every thread that exists has to be scheduled once more to see a cancel.
+ * The cap is what bounds cancellation latency with a hundred thousand tasks.
+ *
+ * StructuredTaskScope is still a preview API in Java 21, so the scope is a
+ * virtual-thread-per-task executor plus the set of kernels currently running.
+ */
+public class SubtreeScope implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4096;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>(); // forked, no thread yet
+    private final Semaphore slots; // one per virtual thread allowed to exist
+    private final int maxInFlight;
+    private final Set<SubtreeCounter> running = ConcurrentHashMap.newKeySet();
+    private final LongAdder finishedNodes = new LongAdder(); // nodes of tasks that have returned
+    private final LongAdder forked = new LongAdder();
+    private final AtomicLong unfinished = new AtomicLong(); // forked tasks that have not returned or been dropped
+    private volatile boolean cancelled = false;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>(); // first task that threw
+    private volatile long cancelledAt; // System.nanoTime() of the first cancel()
+    private volatile long cancelLatencyNanos = -1; // cancel() until the last task returned
+
+    public SubtreeScope() {
+        this(DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public SubtreeScope(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one task must be allowed in flight");
+        }
+        this.maxInFlight = maxInFlight;
+        this.slots = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Runs body on its own virtual thread with a kernel from the factory, created
+     * only when the task actually starts.
+     */
+    public void fork(Supplier<? extends SubtreeCounter> kernel, Consumer<SubtreeCounter> body) {
+        if (cancelled) return;
+        forked.increment();
+        unfinished.incrementAndGet();
+        waiting.add(() -> {
+            SubtreeCounter solver = kernel.get();
+            running.add(solver);
+            try {
+                if (!cancelled) body.accept(solver); // cancel() may have missed a kernel registered after it looked
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e); // join() rethrows it
+                cancel();
+            } finally {
+                running.remove(solver);
+                finishedNodes.add(solver.getNodes());
+            }
+        });
+        startWaiting();
+    }
+
+    // Gives queued tasks a thread while there are free slots; called after every fork and every finished task
+    private void startWaiting() {
+        while (!waiting.isEmpty() && slots.tryAcquire()) {
+            Runnable task = waiting.poll();
+            if (task == null) {
+                slots.release();
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    if (!cancelled) task.run();
+                } finally {
+                    slots.release();
+                    finished();
+                    if (!cancelled) startWaiting();
+                }
+            });
+        }
+    }
+
+    private void finished() {
+        if (unfinished.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // Stops every task, started or not, without waiting; join() waits for the running ones to return
+    public void cancel() {
+        if (cancelled) return;
+        cancelledAt = System.nanoTime();
+        cancelled = true;
+        for (SubtreeCounter solver : running) {
+            solver.requestStop();
+        }
+        while (waiting.poll() != null) {
+            finished();
+        }
+    }
+
+    /**
+     * Blocks until every forked task has returned or been dropped.
+     * @throws IllegalStateException wrapping the first exception a task threw (an Error is rethrown as is)
+     */
+    public void join() {
+        await();
+        Throwable failed = failure.get();
+        if (failed instanceof Error) throw (Error) failed;
+        if (failed != null) throw new IllegalStateException("Subtree task failed: " + failed, failed);
+    }
+
+    private void await() {
+        synchronized (this) {
+            while (unfinished.get() > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        if (cancelled && cancelLatencyNanos < 0) cancelLatencyNanos = System.nanoTime() - cancelledAt;
+    }
+
+    // Cancels whatever is left, waits for it, and releases the executor; a failure is left for join() and getFailure()
+    @Override
+    public void close() {
+        if (isRunning()) cancel();
+        await();
+        if (!isRunning()) executor.close(); // else interrupted while waiting: leave the executor to the tasks
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // First exception a task threw, or null
+    public Throwable getFailure() {
+        return failure.get();
+    }
+
+    // False once every task forked so far has returned, even if join() was never called
+    public boolean isRunning() {
+        return unfinished.get() > 0;
+    }
+
+    public long getTaskCount() {
+        return forked.sum();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    // Nodes searched by all tasks so far, the running ones included
+    public long getNodes() {
+        long total = finishedNodes.sum();
+        for (SubtreeCounter solver : running) {
+            total += solver.getNodes();
+        }
+        return total;
+    }
+
+    // Time from cancel() until the last task returned, or -1 if the scope was not cancelled or join() has not returned
+    public long getCancelLatencyNanos() {
+        return cancelLatencyNanos;
+    }
+}
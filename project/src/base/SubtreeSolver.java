@@ -0,0 +1,17 @@
+package base;
+
+/**
+ * A headless search engine that explores everything below a fixed row-0 queen.
+ * SolverThread drives one of these in COUNT and ENUMERATE modes, one row-0
+ * column at a time.
+ */
+public interface SubtreeSolver extends SubtreeCounter {
+
+    // The listener may be handed the same array for every solution
+    void enumerateWithFirstQueen(int firstCol, int thread_id, SolutionListener listener);
+
+    // Single-word masks up to 63, multi-word bitsets beyond
+    static SubtreeSolver forSize(int n) {
+        return n <= BitboardSolver.MAX_N ? new BitboardSolver(n) : new WideBitboardSolver(n);
+    }
+}
@@ -0,0 +1,28 @@
+package base;
+
+/**
+ * Superqueens: a queen that also moves like a knight. Square boards with n
+ * pieces only; the first solutions appear at n = 10.
+ */
+public class SuperQueenRule implements AttackRule {
+
+    @Override
+    public String getName() {
+        return "superqueens";
+    }
+
+    @Override
+    public boolean attacks(BoardShape shape, int row1, int col1, int row2, int col2) {
+        int dr = Math.abs(row1 - row2);
+        int dc = Math.abs(col1 - col2);
+        return dr == 0 || dc == 0 || dr == dc || (dr == 1 && dc == 2) || (dr == 2 && dc == 1);
+    }
+
+    @Override
+    public SubtreeSolver createKernel(BoardShape shape) {
+        if (!shape.isClassic()) {
+            throw new IllegalArgumentException("Superqueens need a square board with n pieces");
+        }
+        return new SuperQueenSolver(shape.rows);
+    }
+}
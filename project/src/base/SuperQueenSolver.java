@@ -0,0 +1,95 @@
+package base;
+
+/**
+ * BitboardSolver for superqueens. Besides the column and diagonal masks it
+ * carries the queens of the previous two rows, which rule out the knight
+ * squares of the next row: two columns away one row down, one column away
+ * two rows down.
+ */
+public class SuperQueenSolver implements SubtreeSolver {
+
+    private final int n;
+    private final long all; // n low bits set
+    private final int[] columns; // row -> column of the current placement
+    private volatile boolean stopRequested = false;
+    private long nodes = 0; // recursive calls so far; read unsynchronized for progress reports
+    private SolutionListener listener;
+    private int thread_id;
+
+    public SuperQueenSolver(int n) {
+        if (n < 1 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Superqueen solver supports 1 <= n <= " + BitboardSolver.MAX_N);
+        }
+        this.n = n;
+        this.all = (1L << n) - 1;
+        this.columns = new int[n];
+    }
+
+    @Override
+    public long countWithFirstQueen(int firstCol) {
+        long bit = 1L << firstCol;
+        return count(bit, (bit << 1) & all, bit >>> 1, bit, 0);
+    }
+
+    @Override
+    public void enumerateWithFirstQueen(int firstCol, int thread_id, SolutionListener listener) {
+        this.listener = listener;
+        this.thread_id = thread_id;
+        long bit = 1L << firstCol;
+        columns[0] = firstCol;
+        enumerate(1, bit, (bit << 1) & all, bit >>> 1, bit, 0);
+    }
+
+    // prev: queen of the row above, prev2: queen two rows above
+    private long knight(long prev, long prev2) {
+        return ((prev << 2) | (prev >>> 2) | (prev2 << 1) | (prev2 >>> 1)) & all;
+    }
+
+    private long count(long cols, long ld, long rd, long prev, long prev2) {
+        nodes++;
+        if (cols == all) return 1;
+        if (stopRequested) return 0;
+
+        long total = 0;
+        long free = all & ~(cols | ld | rd | knight(prev, prev2));
+        while (free != 0) {
+            long bit = free & -free;
+            free ^= bit;
+            total += count(cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1, bit, prev);
+        }
+        return total;
+    }
+
+    private void enumerate(int row, long cols, long ld, long rd, long prev, long prev2) {
+        nodes++;
+        if (row == n) {
+            listener.onSolution(thread_id, columns);
+            return;
+        }
+        if (stopRequested) return;
+
+        long free = all & ~(cols | ld | rd | knight(prev, prev2));
+        while (free != 0) {
+            long bit = free & -free;
+            free ^= bit;
+            columns[row] = Long.numberOfTrailingZeros(bit);
+            enumerate(row + 1, cols | bit, ((ld | bit) << 1) & all, (rd | bit) >>> 1, bit, prev);
+            if (stopRequested) return;
+        }
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+}
@@ -0,0 +1,203 @@
+package base;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts a whole range of board sizes as one job on one pool of workers,
+ * instead of one ThreadManager run per size, each waiting on its slowest
+ * worker before the next size can start.
+ *
+ * Every size is split into a breadth-first Frontier with a task count in
+ * proportion to its estimated tree size (the largest gets TASKS_PER_THREAD per
+ * worker, the smallest just their row-0 columns), each task's subtree is sized
+ * with a few Knuth probes (TreeSizeEstimator), and all tasks of all sizes go
+ * into one list, largest estimate first. Workers take tasks from the front
+ * one at a time, so the big subtrees of the largest sizes start first and the
+ * many small ones fill the gaps at the end. A size's result is reported and
+ * cached as soon as its last task is done. Sizes already in the ResultCache
+ * are reported right away and not searched.
+ */
+public class SweepScheduler {
+
+    public static final int TASKS_PER_THREAD = 256; // frontier target per worker for the largest size, as in HeadlessSolver
+    public static final int PROBES_PER_TASK = 8;
+    public static final int PROBES_PER_COLUMN = 64; // for the size estimates that set each frontier's target
+
+    public interface ResultListener {
+        // Called once per size, from the thread that finished it, never from two threads at once
+        void onResult(int n, long[] columnCounts, long elapsedMs);
+    }
+
+    private final int fromN;
+    private final int toN;
+    private final int threads;
+    private final List<BitboardSolver> kernels = new CopyOnWriteArrayList<>(); // every worker's, for stop and nodes
+    private volatile boolean stopRequested = false;
+
+    private long[][] results; // size - fromN -> row-0 column counts, null until that size is done
+    private long[] finishMs; // size - fromN -> ms from the start of run() to its result, -1 until then
+    private long planMs;
+    private long makespanMs;
+    private int taskCount;
+
+    public SweepScheduler(int fromN, int toN, int threads) {
+        if (fromN < 4 || toN > BitboardSolver.MAX_N || fromN > toN) {
+            throw new IllegalArgumentException("Sweep sizes must satisfy 4 <= from <= to <= " + BitboardSolver.MAX_N);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1");
+        }
+        this.fromN = fromN;
+        this.toN = toN;
+        this.threads = threads;
+    }
+
+    /**
+     * Counts every size of the range, reporting each to the listener (may be null) as it
+     * finishes, and returns the row-0 column counts per size (index n - from).
+     * A stopped sweep returns null for the sizes it didn't finish.
+     */
+    public long[][] run(ResultListener listener) {
+        long start = System.nanoTime();
+        int sizes = toN - fromN + 1;
+        results = new long[sizes][];
+        finishMs = new long[sizes];
+        Arrays.fill(finishMs, -1);
+        ResultCache cache = ResultCache.getDefault();
+
+        // Tree size of every size that isn't cached
+        double[] work = new double[sizes]; // 0 = served by the cache
+        double largest = 0;
+        for (int s = 0; s < sizes; s++) {
+            int n = fromN + s;
+            ResultCache.Entry cached = cache.getCounts(ResultCache.Key.classic(n));
+            if (cached != null && cached.columnCounts != null) {
+                finish(s, cached.columnCounts, start, listener);
+                continue;
+            }
+            TreeSizeEstimator estimator = new TreeSizeEstimator(n, n);
+            estimator.probeColumns(0, n, PROBES_PER_COLUMN);
+            work[s] = estimator.estimateTotal();
+            largest = Math.max(largest, work[s]);
+        }
+
+        // One frontier per size, its task target in proportion to its tree
+        Frontier[] frontiers = new Frontier[sizes];
+        AtomicLongArray[] counts = new AtomicLongArray[sizes];
+        AtomicIntegerArray remaining = new AtomicIntegerArray(sizes);
+        int[] firstTask = new int[sizes + 1]; // size index -> its first global task
+        for (int s = 0; s < sizes; s++) {
+            int n = fromN + s;
+            firstTask[s + 1] = firstTask[s];
+            if (work[s] == 0) continue;
+            frontiers[s] = new Frontier(n, (int) Math.ceil(threads * TASKS_PER_THREAD * work[s] / largest));
+            counts[s] = new AtomicLongArray(n);
+            remaining.set(s, frontiers[s].size());
+            firstTask[s + 1] += frontiers[s].size();
+        }
+        taskCount = firstTask[sizes];
+        int[] taskSize = new int[taskCount]; // global task -> size index
+        for (int s = 0; s < sizes; s++) Arrays.fill(taskSize, firstTask[s], firstTask[s + 1], s);
+
+        // Largest estimate first: sort (estimate as float bits, task) keys ascending, take from the end
+        long[] order = new long[taskCount];
+        for (int s = 0; s < sizes; s++) {
+            Frontier f = frontiers[s];
+            if (f == null) continue;
+            TreeSizeEstimator estimator = new TreeSizeEstimator(f.getN(), fromN + s);
+            for (int task = 0; task < f.size(); task++) {
+                float estimate = (float) estimator.estimateFrom(f.getCols(task), f.getLd(task), f.getRd(task),
+                        f.getDepth(), PROBES_PER_TASK);
+                int id = firstTask[s] + task;
+                order[id] = ((long) Float.floatToIntBits(estimate) << 32) | id; // positive floats sort like their bits
+            }
+        }
+        Arrays.sort(order);
+        planMs = (System.nanoTime() - start) / 1_000_000;
+
+        AtomicInteger cursor = new AtomicInteger();
+        int workers = Math.max(1, Math.min(threads, taskCount));
+        Thread[] pool = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            int thread_id = w;
+            pool[w] = new Thread(() -> {
+                BitboardSolver[] own = new BitboardSolver[sizes]; // one kernel per size, made on first use
+                for (int next = cursor.getAndIncrement(); next < taskCount && !stopRequested; next = cursor.getAndIncrement()) {
+                    int id = (int) order[taskCount - 1 - next];
+                    int s = taskSize[id];
+                    int task = id - firstTask[s];
+                    Frontier f = frontiers[s];
+                    if (own[s] == null) {
+                        own[s] = new BitboardSolver(f.getN());
+                        kernels.add(own[s]);
+                        if (stopRequested) own[s].requestStop();
+                    }
+                    long found = f.solveTask(task, own[s], SolveMode.COUNT, thread_id, null, null);
+                    if (found < 0) return; // stopped mid-task
+                    counts[s].addAndGet(f.getFirstColumn(task), found);
+                    if (remaining.decrementAndGet(s) == 0) {
+                        long[] columnCounts = new long[f.getN()];
+                        for (int col = 0; col < columnCounts.length; col++) columnCounts[col] = counts[s].get(col);
+                        cache.put(ResultCache.Key.classic(f.getN()),
+                                new ResultCache.Entry(HeadlessSolver.sum(columnCounts), columnCounts, null));
+                        finish(s, columnCounts, start, listener);
+                    }
+                }
+            }, "sweep-" + w);
+            pool[w].start();
+        }
+        for (Thread t : pool) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                requestStop();
+                break;
+            }
+        }
+        makespanMs = (System.nanoTime() - start) / 1_000_000;
+        return results;
+    }
+
+    private synchronized void finish(int s, long[] columnCounts, long start, ResultListener listener) {
+        results[s] = columnCounts;
+        finishMs[s] = (System.nanoTime() - start) / 1_000_000;
+        if (listener != null) listener.onResult(fromN + s, columnCounts, finishMs[s]);
+    }
+
+    public void requestStop() {
+        stopRequested = true;
+        for (BitboardSolver kernel : kernels) kernel.requestStop();
+    }
+
+    public long getNodes() {
+        long total = 0;
+        for (BitboardSolver kernel : kernels) total += kernel.getNodes();
+        return total;
+    }
+
+    // Time spent building frontiers and estimating tasks before the workers started
+    public long getPlanMillis() {
+        return planMs;
+    }
+
+    // Wall time of the whole sweep, planning included
+    public long getMakespanMillis() {
+        return makespanMs;
+    }
+
+    // Time from the start to n's result, or -1 if it didn't finish
+    public synchronized long getFinishMillis(int n) {
+        return finishMs[n - fromN];
+    }
+
+    // Tasks searched, over all sizes not served by the cache
+    public int getTaskCount() {
+        return taskCount;
+    }
+}
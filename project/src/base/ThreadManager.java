@@ -1,42 +1,122 @@
 package base;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
 public class ThreadManager {
 
-    private final List<SolverThread> threads = new ArrayList<>();
+    private final List<SolverThread> threads = new CopyOnWriteArrayList<>(); // read by progress monitors while solving
     private final Object lock = new Object();
+    private SolveMode mode = SolveMode.VISUAL; // headless callers pick ENUMERATE or COUNT
+    private BoardConstraints constraints; // pre-placed queens and blocked squares, null for an empty board
+    private SearchEngine engine = SearchEngine.BITBOARD; // solver behind COUNT and ENUMERATE
+    private AttackRule rule; // counting variant, null for classic queens
+    private BoardShape shape; // board and piece count of the variant
+    private int frontierTasks = 0; // target task count of a breadth-first frontier, 0 = split on row 0 only
+    private volatile Frontier frontier; // of the current run, null if it splits on row 0
+    private boolean virtualThreads = false; // COUNT and ENUMERATE tasks each on a virtual thread in a SubtreeScope
+    private int maxInFlight = SubtreeScope.DEFAULT_MAX_IN_FLIGHT; // virtual-thread tasks running at once
+    private volatile SubtreeScope scope; // of the current run, null if it uses SolverThreads
+    private volatile AtomicLongArray scopeColumnNodes; // branch -> nodes of a finished column task, -1 before
+    private boolean ordered = false; // ENUMERATE output merged into lexicographic order
+    private volatile SolutionMerger merger; // of the current ordered run, null otherwise
+    private volatile RunEvent runEvent; // JFR Solve event of the current run
 
     public void startSolving(int n, int numThreads, StateManager manager) {
+        startSolving(n, numThreads, manager, 0, rule != null ? shape.getBranches() : n);
+    }
+
+    // Only searches placements whose row-0 queen is in columns [fromCol, toCol)
+    public void startSolving(int n, int numThreads, StateManager manager, int fromCol, int toCol) {
+        SubtreeScope previous = scope;
+        if (previous != null) previous.close(); // a run nobody waited for: stop it and release its executor
         threads.clear();
+        frontier = null;
+        scope = null;
+        scopeColumnNodes = null;
+        merger = null;
+        runEvent = null;
         
-        if (n < 4) {
+        if (rule != null) {
+            if (mode == SolveMode.VISUAL) throw new IllegalArgumentException("Variants have no visual solver");
+            if (ordered && mode == SolveMode.ENUMERATE) throw new IllegalArgumentException("Variants can't be enumerated in order");
+            if (n != shape.rows) throw new IllegalArgumentException("Variant board has " + shape.rows + " rows, not " + n);
+        } else if (n < 4) {
             throw new IllegalArgumentException("Board size must be at least 4");
         }
         
-        if (numThreads > n) {
-            numThreads = n; 
+        if (rule == null && mode != SolveMode.COUNT && engine.isCountOnly()) {
+            throw new IllegalArgumentException("The " + engine.name().toLowerCase() + " engine only counts");
+        }
+        
+        if (constraints != null && constraints.getN() != n) {
+            throw new IllegalArgumentException("Constraints are for a " + constraints.getN() + "x" + constraints.getN() + " board");
+        }
+        
+        int branches = (rule != null) ? shape.getBranches() : n;
+        if (fromCol < 0 || toCol > branches || fromCol >= toCol) {
+            throw new IllegalArgumentException("Invalid column range " + fromCol + ".." + toCol);
+        }
+        
+        boolean useFrontier = frontierTasks > 0 && mode != SolveMode.VISUAL && rule == null && constraints == null
+                && engine == SearchEngine.BITBOARD;
+        boolean merge = ordered && mode == SolveMode.ENUMERATE;
+        // Only the plain bitboard kernels enumerate a subtree in lexicographic order
+        boolean sortedRuns = engine == SearchEngine.BITBOARD && constraints == null;
+        if (virtualThreads && mode != SolveMode.VISUAL) {
+            startScope(n, numThreads, manager, fromCol, toCol, useFrontier, merge, sortedRuns);
+            return;
+        }
+        if (useFrontier) {
+            startFrontier(n, numThreads, manager, fromCol, toCol, merge);
+            return;
+        }
+
+        int span = toCol - fromCol;
+        if (numThreads > span) {
+            numThreads = span; 
         }
         
         if (numThreads < 1) {
             throw new IllegalArgumentException("Number of threads must be at least 1");
         }
         
+        if (merge) {
+            // One run per column; every thread takes the next column when it is done with one
+            merger = new SolutionMerger(n, fromCol, toCol, sortedRuns, 2 * numThreads, manager::addColumns);
+            AtomicInteger cursor = new AtomicInteger(fromCol);
+            RunEvent run = beginRun(n, numThreads, "rows", span, numThreads, manager);
+            for (int i = 0; i < numThreads; i++) {
+                SolverThread t = new SolverThread(i, n, fromCol, toCol, manager, lock, mode, constraints, engine.create(n, constraints));
+                t.setMerger(merger);
+                t.setColumnCursor(cursor);
+                t.setOnFinished(run::taskDone);
+                threads.add(t);
+                t.start();
+            }
+            return;
+        }
+
         // Calculate how many columns each thread should handle
-        int colsPerThread = n / numThreads;
-        int remainingCols = n % numThreads;
+        int colsPerThread = span / numThreads;
+        int remainingCols = span % numThreads;
 
-        int startCol = 0;
+        int startCol = fromCol;
+        RunEvent run = beginRun(n, numThreads, "rows", span, numThreads, manager);
 
         for (int i = 0; i < numThreads; i++) {
             int colsForThisThread = colsPerThread + (i < remainingCols ? 1 : 0);
             int endCol = startCol + colsForThisThread;
 
-            System.out.println("Thread " + i + " assigned columns: " + startCol + " to " + (endCol - 1));
+            if (mode == SolveMode.VISUAL) System.out.println("Thread " + i + " assigned columns: " + startCol + " to " + (endCol - 1));
 
-            SolverThread t = new SolverThread(i, n, startCol, endCol, manager, lock);
+            SubtreeCounter kernel = null;
+            if (mode != SolveMode.VISUAL) kernel = createKernel(n);
+            SolverThread t = new SolverThread(i, n, startCol, endCol, manager, lock, mode, constraints, kernel);
+            t.setOnFinished(run::taskDone);
             threads.add(t);
             t.start();
 
@@ -45,7 +125,230 @@ public class ThreadManager {
     }
 
 
+    // Expands the tree breadth-first and lets every worker claim batches of the resulting tasks
+    private void startFrontier(int n, int numThreads, StateManager manager, int fromCol, int toCol, boolean merge) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1");
+        }
+        Frontier tasks = new Frontier(n, fromCol, toCol, frontierTasks);
+        numThreads = Math.max(1, Math.min(numThreads, tasks.size()));
+        tasks.plan(numThreads);
+        frontier = tasks;
+        if (merge) { // one run per task
+            int window = numThreads * Math.max(SolutionMerger.RUNS_AHEAD_PER_THREAD, 2 * tasks.getBatchSize());
+            merger = new SolutionMerger(n, 0, tasks.size(), true, window, manager::addColumns);
+        }
+        RunEvent run = beginRun(n, numThreads, "frontier", tasks.size(), numThreads, manager);
+        for (int i = 0; i < numThreads; i++) {
+            SolverThread t = new SolverThread(i, n, tasks, manager, lock, mode, new BitboardSolver(n));
+            t.setMerger(merger);
+            t.setOnFinished(run::taskDone);
+            threads.add(t);
+            t.start();
+        }
+    }
+
+    /**
+     * One virtual thread per task: per frontier task when the run uses a frontier, per
+     * branch otherwise. At most maxInFlight of them run at once, on as many carrier
+     * threads as the virtual thread scheduler has (one per processor by default); the
+     * thread count only sizes the merger's window.
+     */
+    private void startScope(int n, int numThreads, StateManager manager, int fromCol, int toCol, boolean useFrontier,
+                            boolean merge, boolean sortedRuns) {
+        SubtreeScope tasks = new SubtreeScope(maxInFlight);
+        int parallelism = Math.min(maxInFlight, Runtime.getRuntime().availableProcessors());
+        SolutionListener listener = manager::addColumns;
+        if (useFrontier) {
+            Frontier f = new Frontier(n, fromCol, toCol, frontierTasks);
+            SolutionMerger ordered = merge
+                    ? new SolutionMerger(n, 0, f.size(), true, numThreads * SolutionMerger.RUNS_AHEAD_PER_THREAD, listener)
+                    : null;
+            frontier = f;
+            merger = ordered;
+            scope = tasks;
+            RunEvent run = beginRun(n, parallelism, "virtual", f.size(), f.size(), manager);
+            for (int task = 0; task < f.size(); task++) {
+                int id = task;
+                tasks.fork(() -> new BitboardSolver(n), kernel -> {
+                    SolverEvents.SubtreeTask event = new SolverEvents.SubtreeTask();
+                    event.begin();
+                    try {
+                        if (ordered != null && !ordered.awaitTurn(id)) return;
+                        SolutionListener sink = ordered != null ? ordered.run(id) : listener;
+                        int[] prefix = new int[f.getDepth()];
+                        long found = f.solveTask(id, (BitboardSolver) kernel, mode, id, sink, prefix);
+                        if (found >= 0 && mode == SolveMode.COUNT) manager.addCount(id, f.getFirstColumn(id), found);
+                        if (found >= 0 && ordered != null) ordered.finish(id);
+                        event.end();
+                        if (found >= 0 && event.shouldCommit()) {
+                            SolverEvents.commitTask(event, n, id, f.getPrefix(id, prefix), f.getDepth(), kernel.getNodes(),
+                                    mode == SolveMode.COUNT ? found : -1, -1);
+                        }
+                    } finally {
+                        run.taskDone();
+                    }
+                });
+            }
+            return;
+        }
+
+        AtomicLongArray columnNodes = new AtomicLongArray(toCol);
+        for (int col = 0; col < toCol; col++) columnNodes.set(col, -1);
+        SolutionMerger ordered = merge ? new SolutionMerger(n, fromCol, toCol, sortedRuns, 2 * numThreads, listener) : null;
+        scopeColumnNodes = columnNodes;
+        merger = ordered;
+        scope = tasks;
+        int forks = 0;
+        for (int col = fromCol; col < toCol; col++) {
+            if (constraints == null || (constraints.allowedColumns(0) & (1L << col)) != 0) forks++;
+        }
+        RunEvent run = beginRun(n, parallelism, "virtual", toCol - fromCol, forks, manager);
+        for (int col = fromCol; col < toCol; col++) {
+            int branch = col;
+            if (constraints != null && (constraints.allowedColumns(0) & (1L << col)) == 0) {
+                columnNodes.set(col, 0); // row-0 square ruled out by the constraints
+                if (ordered != null) ordered.finish(col);
+                continue;
+            }
+            tasks.fork(() -> createKernel(n), kernel -> {
+                SolverEvents.SubtreeTask event = new SolverEvents.SubtreeTask();
+                event.begin();
+                try {
+                    long count = -1;
+                    if (ordered != null && !ordered.awaitTurn(branch)) return;
+                    if (mode == SolveMode.COUNT) {
+                        count = kernel.countWithFirstQueen(branch);
+                        if (kernel.isStopRequested()) return; // partial count, don't report it
+                        manager.addCount(branch, branch, count);
+                    } else {
+                        ((SubtreeSolver) kernel).enumerateWithFirstQueen(branch, branch, ordered != null ? ordered.run(branch) : listener);
+                        if (kernel.isStopRequested()) return;
+                        if (ordered != null) ordered.finish(branch);
+                    }
+                    columnNodes.set(branch, kernel.getNodes());
+                    event.end();
+                    if (event.shouldCommit()) SolverEvents.commitTask(event, n, branch, new int[] {branch}, 1, kernel.getNodes(), count, -1);
+                } finally {
+                    run.taskDone();
+                }
+            });
+        }
+    }
+
+    // One worker's kernel: a SubtreeSolver unless this is a COUNT run, which count-only engines may serve
+    private SubtreeCounter createKernel(int n) {
+        if (rule != null) return rule.createKernel(shape);
+        return mode == SolveMode.COUNT ? engine.createCounter(n, constraints) : engine.create(n, constraints);
+    }
+
+    public void setMode(SolveMode mode) {
+        this.mode = mode;
+    }
+
+    public void setEngine(SearchEngine engine) {
+        this.engine = engine;
+    }
+
+    // Count a variant instead of classic queens; startSolving's n must be shape.rows. Null rule clears it
+    public void setVariant(AttackRule rule, BoardShape shape) {
+        this.rule = rule;
+        this.shape = shape;
+    }
+
+    /**
+     * Classic bitboard COUNT and ENUMERATE runs expand the tree breadth-first until there
+     * are at least this many tasks, instead of handing out whole row-0 columns.
+     * 0 turns it off; other engines, constraints and variants always split on row 0.
+     */
+    public void setFrontierTasks(int targetTasks) {
+        this.frontierTasks = targetTasks;
+    }
+
+    /**
+     * COUNT and ENUMERATE runs fork every task onto its own virtual thread under a
+     * SubtreeScope instead of starting SolverThreads, so stopAll cancels them all at once.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * How many virtual-thread tasks may run at once, SubtreeScope.DEFAULT_MAX_IN_FLIGHT
+     * unless set. The thread count passed to startSolving doesn't limit them; set this to
+     * it to compare a virtual-thread run with a SolverThread run of that many threads.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("At least one task must be allowed in flight");
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * ENUMERATE runs pass their solutions to the StateManager in lexicographic order,
+     * the same on every run whatever the thread count, through a SolutionMerger.
+     * Classic queens only: variant placements (empty rows as -1, columns past n on
+     * wide boards) don't fit the merger's packed form, so startSolving rejects them.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    // Merger of the current or last ordered run, for how much it held back; null otherwise
+    public SolutionMerger getMerger() {
+        return merger;
+    }
+
+    // Scope of the current or last virtual-thread run, for its cancellation latency; null otherwise
+    public SubtreeScope getScope() {
+        return scope;
+    }
+
+    // Task list of the current or last run, for its granularity and memory stats; null if it split on row 0
+    public Frontier getFrontier() {
+        return frontier;
+    }
+
+    // Applies to the next startSolving; null clears them
+    public void setConstraints(BoardConstraints constraints) {
+        this.constraints = (constraints == null || constraints.isEmpty()) ? null : constraints;
+    }
+
+    // Nodes searched by all threads of the current run so far
+    public long getNodesVisited() {
+        Frontier tasks = frontier;
+        long total = tasks != null ? tasks.getBuildNodes() : 0;
+        SubtreeScope current = scope;
+        if (current != null) total += current.getNodes();
+        for (SolverThread t : threads) {
+            total += t.getNodesVisited();
+        }
+        return total;
+    }
+    
+    // Exact node count of a finished row-0 column, or -1 if it is not finished
+    public long getColumnNodes(int col) {
+        Frontier tasks = frontier;
+        if (tasks != null) return tasks.getColumnNodes(col);
+        AtomicLongArray columnNodes = scopeColumnNodes;
+        if (columnNodes != null) return col < columnNodes.length() ? columnNodes.get(col) : -1;
+        for (SolverThread t : threads) {
+            long nodes = t.getColumnNodes(col);
+            if (nodes >= 0) return nodes;
+        }
+        return -1;
+    }
+
     public void stopAll() {
+        SolverEvents.SolveCancelled event = new SolverEvents.SolveCancelled();
+        event.begin();
+        RunEvent run = runEvent;
+        if (run != null) run.cancelled = true;
+        SolutionMerger ordered = merger;
+        if (ordered != null) ordered.cancel(); // workers waiting for their turn give up
+        SubtreeScope current = scope;
+        if (current != null) {
+            current.close(); // every task has returned once this does, no timeout needed
+        }
         for (SolverThread t : threads) {
             t.requestStop();
         }
@@ -58,21 +361,112 @@ public class ThreadManager {
                 Thread.currentThread().interrupt();
             }
         }
+
+        if (run != null) run.end();
+        event.end();
+        if (event.shouldCommit()) {
+            event.n = run != null ? run.event.n : 0;
+            event.nodes = getNodesVisited();
+            for (SolverThread t : threads) {
+                if (t.isAlive()) event.stillRunning++;
+            }
+            event.commit();
+        }
     }
     
+    /**
+     * Blocks until the run is over.
+     * @throws IllegalStateException if a virtual-thread task failed, which cut the run short
+     */
     public void waitForCompletion() {
+        SubtreeScope current = scope;
+        if (current != null) {
+            try {
+                current.join();
+            } catch (RuntimeException | Error e) {
+                RunEvent run = runEvent;
+                if (run != null) {
+                    run.cancelled = true;
+                    run.end();
+                }
+                throw e;
+            } finally {
+                if (!current.isRunning()) current.close(); // only releases the executor by now
+            }
+        }
         // Wait for all threads to complete naturally
         for (SolverThread t : threads) {
             try {
                 t.join(); // Wait indefinitely for thread to complete
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                break;
+                return;
             }
         }
+        RunEvent run = runEvent;
+        if (run != null) {
+            if (current != null && current.isCancelled()) run.cancelled = true; // its dropped tasks never report
+            run.end();
+        }
     }
     
+    // Commits SolveStart and returns the run's Solve event, to be ended once all its tasks have returned
+    private RunEvent beginRun(int n, int threads, String split, int tasks, int liveTasks, StateManager manager) {
+        RunEvent run = new RunEvent(n, threads, split, tasks, liveTasks, manager);
+        runEvent = run;
+        SolverEvents.SolveStart start = new SolverEvents.SolveStart();
+        if (start.shouldCommit()) {
+            start.n = n;
+            start.mode = mode.name();
+            start.engine = run.event.engine;
+            start.threads = threads;
+            start.split = split;
+            start.tasks = tasks;
+            start.commit();
+        }
+        if (liveTasks == 0) run.end();
+        return run;
+    }
+
+    // Solve event of one run: ended by the last of its workers or tasks to return, or by stopAll, whichever is first
+    private final class RunEvent {
+        final SolverEvents.Solve event = new SolverEvents.Solve();
+        final AtomicInteger live;
+        final StateManager manager;
+        volatile boolean cancelled = false;
+        private boolean ended = false;
+
+        RunEvent(int n, int threads, String split, int tasks, int liveTasks, StateManager manager) {
+            this.live = new AtomicInteger(liveTasks);
+            this.manager = manager;
+            event.n = n;
+            event.mode = mode.name();
+            event.engine = rule != null ? rule.getClass().getSimpleName() : engine.name();
+            event.threads = threads;
+            event.split = split;
+            event.tasks = tasks;
+            event.begin();
+        }
+
+        void taskDone() {
+            if (live.decrementAndGet() == 0) end();
+        }
+
+        synchronized void end() {
+            if (ended) return;
+            ended = true;
+            event.end();
+            if (!event.shouldCommit()) return;
+            event.cancelled = cancelled;
+            event.solutions = manager.getTotalCount();
+            event.nodes = getNodesVisited();
+            event.commit();
+        }
+    }
+
     public boolean isRunning() {
+        SubtreeScope current = scope;
+        if (current != null && current.isRunning()) return true;
         for (SolverThread t : threads) {
             if (t.isAlive()) {
                 return true;
@@ -0,0 +1,29 @@
+package base;
+
+/**
+ * Queens on a torus: diagonals wrap around the board edges. Square boards with
+ * n queens only; solutions exist exactly when n is coprime to 6.
+ */
+public class ToroidalQueenRule implements AttackRule {
+
+    @Override
+    public String getName() {
+        return "toroidal";
+    }
+
+    @Override
+    public boolean attacks(BoardShape shape, int row1, int col1, int row2, int col2) {
+        int n = shape.cols;
+        int dr = Math.floorMod(row1 - row2, n);
+        int dc = Math.floorMod(col1 - col2, n);
+        return row1 == row2 || col1 == col2 || dr == dc || dr == Math.floorMod(-dc, n);
+    }
+
+    @Override
+    public SubtreeSolver createKernel(BoardShape shape) {
+        if (!shape.isClassic()) {
+            throw new IllegalArgumentException("Toroidal queens need a square board with n queens");
+        }
+        return new ToroidalSolver(shape.rows);
+    }
+}
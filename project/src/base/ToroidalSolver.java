@@ -0,0 +1,96 @@
+package base;
+
+/**
+ * BitboardSolver for toroidal queens: the diagonal masks rotate within n bits
+ * from row to row instead of shifting off the board edge.
+ */
+public class ToroidalSolver implements SubtreeSolver {
+
+    private final int n;
+    private final long all; // n low bits set
+    private final int[] columns; // row -> column of the current placement
+    private volatile boolean stopRequested = false;
+    private long nodes = 0; // recursive calls so far; read unsynchronized for progress reports
+    private SolutionListener listener;
+    private int thread_id;
+
+    public ToroidalSolver(int n) {
+        if (n < 1 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Toroidal solver supports 1 <= n <= " + BitboardSolver.MAX_N);
+        }
+        this.n = n;
+        this.all = (1L << n) - 1;
+        this.columns = new int[n];
+    }
+
+    @Override
+    public long countWithFirstQueen(int firstCol) {
+        long bit = 1L << firstCol;
+        return count(bit, rotateLeft(bit), rotateRight(bit));
+    }
+
+    @Override
+    public void enumerateWithFirstQueen(int firstCol, int thread_id, SolutionListener listener) {
+        this.listener = listener;
+        this.thread_id = thread_id;
+        long bit = 1L << firstCol;
+        columns[0] = firstCol;
+        enumerate(1, bit, rotateLeft(bit), rotateRight(bit));
+    }
+
+    private long rotateLeft(long mask) {
+        return ((mask << 1) | (mask >>> (n - 1))) & all;
+    }
+
+    private long rotateRight(long mask) {
+        return (mask >>> 1) | ((mask & 1) << (n - 1));
+    }
+
+    private long count(long cols, long ld, long rd) {
+        nodes++;
+        if (cols == all) return 1;
+        if (stopRequested) return 0;
+
+        long total = 0;
+        long free = all & ~(cols | ld | rd);
+        while (free != 0) {
+            long bit = free & -free;
+            free ^= bit;
+            total += count(cols | bit, rotateLeft(ld | bit), rotateRight(rd | bit));
+        }
+        return total;
+    }
+
+    private void enumerate(int row, long cols, long ld, long rd) {
+        nodes++;
+        if (row == n) {
+            listener.onSolution(thread_id, columns);
+            return;
+        }
+        if (stopRequested) return;
+
+        long free = all & ~(cols | ld | rd);
+        while (free != 0) {
+            long bit = free & -free;
+            free ^= bit;
+            columns[row] = Long.numberOfTrailingZeros(bit);
+            enumerate(row + 1, cols | bit, rotateLeft(ld | bit), rotateRight(rd | bit));
+            if (stopRequested) return;
+        }
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+}
@@ -0,0 +1,100 @@
+package base;
+
+import java.util.SplittableRandom;
+
+/**
+ * Knuth's random-probe estimate of backtracking tree size.
+ * A probe walks from the root to a dead end or solution, choosing a random
+ * legal square in each row; with d_i choices at depth i the probe estimates
+ * 1 + d1 + d1*d2 + ... nodes. The mean over many probes is unbiased.
+ *
+ * A node is one call of the recursive search (NQueenSolver.solveFromRow or
+ * BitboardSolver), counted from the row-0 queen down, so estimates compare
+ * directly with the node counts the solvers report.
+ */
+public class TreeSizeEstimator {
+
+    private final int n;
+    private final long all;
+    private final SplittableRandom random;
+    private final double[] sums; // per row-0 column: sum of probe estimates
+    private final long[] probes; // per row-0 column: number of probes
+
+    public TreeSizeEstimator(int n, long seed) {
+        if (n < 1 || n > BitboardSolver.MAX_N) {
+            throw new IllegalArgumentException("Estimator supports 1 <= n <= " + BitboardSolver.MAX_N);
+        }
+        this.n = n;
+        this.all = (1L << n) - 1;
+        this.random = new SplittableRandom(seed);
+        this.sums = new double[n];
+        this.probes = new long[n];
+    }
+
+    // One random descent below the row-0 queen at firstCol
+    public synchronized void probe(int firstCol) {
+        long bit = 1L << firstCol;
+        sums[firstCol] += descend(bit, (bit << 1) & all, bit >>> 1, 1);
+        probes[firstCol]++;
+    }
+
+    /**
+     * Estimated nodes below a partial placement of rows 0..depth-1, given by its
+     * occupancy masks (see Frontier), as the mean of the given number of probes.
+     * Not added to the per-column estimates.
+     */
+    public synchronized double estimateFrom(long cols, long ld, long rd, int depth, int probeCount) {
+        double sum = 0;
+        for (int i = 0; i < probeCount; i++) sum += descend(cols, ld, rd, depth);
+        return sum / probeCount;
+    }
+
+    // One probe's estimate, counting the starting node
+    private double descend(long cols, long ld, long rd, int depth) {
+        double weight = 1;
+        double estimate = 1;
+        for (int row = depth; row < n; row++) {
+            long free = all & ~(cols | ld | rd);
+            int choices = Long.bitCount(free);
+            if (choices == 0) break;
+            weight *= choices;
+            estimate += weight;
+
+            for (int skip = random.nextInt(choices); skip > 0; skip--) {
+                free &= free - 1; // drop the lowest candidate
+            }
+            long bit = free & -free;
+            cols |= bit;
+            ld = ((ld | bit) << 1) & all;
+            rd = (rd | bit) >>> 1;
+        }
+        return estimate;
+    }
+
+    public void probeColumns(int fromCol, int toCol, int probesPerColumn) {
+        for (int i = 0; i < probesPerColumn; i++) {
+            for (int col = fromCol; col < toCol; col++) {
+                probe(col);
+            }
+        }
+    }
+
+    // Estimated nodes in the subtree of the row-0 queen at firstCol (0 before any probe)
+    public synchronized double estimate(int firstCol) {
+        return probes[firstCol] == 0 ? 0 : sums[firstCol] / probes[firstCol];
+    }
+
+    public double estimateTotal() {
+        double total = 0;
+        for (int col = 0; col < n; col++) {
+            total += estimate(col);
+        }
+        return total;
+    }
+
+    public synchronized long getProbeCount() {
+        long total = 0;
+        for (long count : probes) total += count;
+        return total;
+    }
+}
@@ -0,0 +1,95 @@
+package base;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * BatchKernel on the incubating Vector API: each SIMD lane holds one partial
+ * placement, so a 256-bit machine works on 4 placements per instruction and a
+ * 512-bit one on 8. The batch tail that doesn't fill a vector runs scalar.
+ * countTwoRows also expands children in the lanes: every lane takes its lowest
+ * free square per step, masked off once it has none left, so a vector runs as
+ * many steps as its busiest lane has free squares.
+ *
+ * Needs --add-modules jdk.incubator.vector at compile and run time; only
+ * BatchKernel.best() refers to this class, by name.
+ */
+public class VectorBatchKernel implements BatchKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector x" + SPECIES.length();
+    }
+
+    @Override
+    public void computeFree(long[] cols, long[] ld, long[] rd, long[] free, int count, long all) {
+        LongVector mask = LongVector.broadcast(SPECIES, all);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector taken = LongVector.fromArray(SPECIES, cols, i)
+                    .or(LongVector.fromArray(SPECIES, ld, i))
+                    .or(LongVector.fromArray(SPECIES, rd, i));
+            taken.not().and(mask).intoArray(free, i);
+        }
+        for (; i < count; i++) {
+            free[i] = all & ~(cols[i] | ld[i] | rd[i]);
+        }
+    }
+
+    @Override
+    public long countFree(long[] cols, long[] ld, long[] rd, int count, long all) {
+        LongVector mask = LongVector.broadcast(SPECIES, all);
+        LongVector sums = LongVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector taken = LongVector.fromArray(SPECIES, cols, i)
+                    .or(LongVector.fromArray(SPECIES, ld, i))
+                    .or(LongVector.fromArray(SPECIES, rd, i));
+            sums = sums.add(taken.not().and(mask).lanewise(VectorOperators.BIT_COUNT));
+        }
+        long total = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < count; i++) {
+            total += Long.bitCount(all & ~(cols[i] | ld[i] | rd[i]));
+        }
+        return total;
+    }
+
+    @Override
+    public long countTwoRows(long[] cols, long[] ld, long[] rd, int count, long all) {
+        LongVector mask = LongVector.broadcast(SPECIES, all);
+        LongVector sums = LongVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector c = LongVector.fromArray(SPECIES, cols, i);
+            LongVector l = LongVector.fromArray(SPECIES, ld, i);
+            LongVector r = LongVector.fromArray(SPECIES, rd, i);
+            LongVector options = c.or(l).or(r).not().and(mask);
+            VectorMask<Long> live = options.compare(VectorOperators.NE, 0);
+            while (live.anyTrue()) {
+                LongVector bit = options.and(options.neg());
+                LongVector taken = c.or(bit)
+                        .or(l.or(bit).lanewise(VectorOperators.LSHL, 1).and(mask))
+                        .or(r.or(bit).lanewise(VectorOperators.LSHR, 1));
+                sums = sums.add(taken.not().and(mask).lanewise(VectorOperators.BIT_COUNT), live);
+                options = options.lanewise(VectorOperators.XOR, bit);
+                live = options.compare(VectorOperators.NE, 0);
+            }
+        }
+        long total = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < count; i++) {
+            long c = cols[i], l = ld[i], r = rd[i];
+            for (long options = all & ~(c | l | r); options != 0; options &= options - 1) {
+                long bit = options & -options;
+                total += Long.bitCount(all & ~((c | bit) | (((l | bit) << 1) & all) | ((r | bit) >>> 1)));
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,192 @@
+package base;
+
+/**
+ * Backtracking for boards wider than a long: columns and both diagonal
+ * directions are multi-word bitsets, and the next free square of a row is
+ * found a word (64 columns) at a time instead of with Board.isSafe's O(n) scans.
+ *
+ * The bitsets are shared by all depths: placing a queen sets one bit in each,
+ * backtracking clears them again. The search is iterative with per-row arrays
+ * allocated once, so nothing is allocated while searching and deep boards
+ * (n in the thousands) don't need a deep call stack.
+ *
+ * Squares are tried lowest column first, so solutions come out in lexicographic order.
+ */
+public class WideBitboardSolver implements SubtreeSolver {
+
+    private static final int CHECK_INTERVAL = 4096; // nodes between deadline checks
+
+    private final int n;
+    private final int words; // words per row of columns
+    private final long lastMask; // valid columns in the last word
+    private final long[] cols;
+    private final long[] diag; // bit row + col
+    private final long[] anti; // bit col - row + n - 1 (increases with col, like the columns)
+    private final int[] columns; // row -> column of the current placement
+    private final int[] nextCol; // row -> first column still to try
+    private volatile boolean stopRequested = false;
+    private long deadline = Long.MAX_VALUE; // System.nanoTime() after which the search gives up
+    private long nodes = 0;
+
+    public WideBitboardSolver(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Board size must be positive");
+        }
+        this.n = n;
+        this.words = (n + 63) >>> 6;
+        this.lastMask = (n % 64 == 0) ? -1L : (1L << (n % 64)) - 1;
+        this.cols = new long[words];
+        int diagWords = ((2 * n - 1) + 63) / 64 + 1; // one spare word for unaligned reads
+        this.diag = new long[diagWords];
+        this.anti = new long[diagWords];
+        this.columns = new int[n];
+        this.nextCol = new int[n];
+    }
+
+    // Search gives up (as if stopped) once System.nanoTime() passes this value
+    public void setDeadline(long nanoTime) {
+        this.deadline = nanoTime;
+    }
+
+    public void setTimeLimitMillis(long ms) {
+        this.deadline = System.nanoTime() + ms * 1_000_000;
+    }
+
+    @Override
+    public long countWithFirstQueen(int firstCol) {
+        return search(firstCol, -1, null);
+    }
+
+    @Override
+    public void enumerateWithFirstQueen(int firstCol, int thread_id, SolutionListener listener) {
+        search(firstCol, thread_id, listener);
+    }
+
+    /**
+     * Reports up to k solutions in lexicographic order, all row-0 columns, within the time limit.
+     * @return the number of solutions reported
+     */
+    public long findFirst(long k, SolutionListener listener) {
+        long[] found = {0};
+        SolutionListener limited = (thread_id, cols) -> {
+            listener.onSolution(thread_id, cols);
+            if (++found[0] >= k) requestStop();
+        };
+        for (int col = 0; col < n && !stopRequested; col++) {
+            search(col, 0, limited);
+        }
+        return found[0];
+    }
+
+    private long search(int firstCol, int thread_id, SolutionListener listener) {
+        long solutions = 0;
+        place(0, firstCol);
+        if (n == 1) {
+            if (listener != null) listener.onSolution(thread_id, columns);
+            remove(0, firstCol);
+            return 1;
+        }
+
+        int row = 1;
+        nextCol[1] = 0;
+        while (row > 0) {
+            int col = nextFree(row, nextCol[row]);
+            if (col < 0) {
+                row--; // dead end: backtrack
+                if (row > 0) {
+                    remove(row, columns[row]);
+                    nextCol[row] = columns[row] + 1;
+                }
+                continue;
+            }
+
+            // One node per queen tried, the same unit BitboardSolver counts
+            if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline) {
+                stopRequested = true;
+            }
+            if (stopRequested) {
+                // Unwind so the bitsets are clean for the next call
+                for (int r = row - 1; r > 0; r--) remove(r, columns[r]);
+                break;
+            }
+
+            if (row == n - 1) {
+                columns[row] = col;
+                solutions++;
+                if (listener != null) listener.onSolution(thread_id, columns);
+                nextCol[row] = col + 1;
+                continue;
+            }
+
+            place(row, col);
+            row++;
+            nextCol[row] = 0;
+        }
+        remove(0, firstCol);
+        return solutions;
+    }
+
+    // Lowest free column >= from in the given row, or -1
+    private int nextFree(int row, int from) {
+        if (from >= n) return -1;
+        int w = from >>> 6;
+        long free = freeWord(row, w) & (-1L << (from & 63));
+        while (true) {
+            if (free != 0) return (w << 6) + Long.numberOfTrailingZeros(free);
+            if (++w == words) return -1;
+            free = freeWord(row, w);
+        }
+    }
+
+    // Free squares of columns 64w .. 64w+63 in the given row
+    private long freeWord(int row, int w) {
+        int base = w << 6;
+        long taken = cols[w] | window(diag, base + row) | window(anti, base - row + n - 1);
+        long free = ~taken;
+        return (w == words - 1) ? free & lastMask : free;
+    }
+
+    // 64 bits of the bitset starting at bit offset
+    private static long window(long[] bits, int offset) {
+        int word = offset >>> 6;
+        int shift = offset & 63;
+        if (shift == 0) return bits[word];
+        return (bits[word] >>> shift) | (bits[word + 1] << (64 - shift));
+    }
+
+    private void place(int row, int col) {
+        columns[row] = col;
+        cols[col >>> 6] |= 1L << col;
+        int d = row + col;
+        diag[d >>> 6] |= 1L << d;
+        int a = col - row + n - 1;
+        anti[a >>> 6] |= 1L << a;
+    }
+
+    private void remove(int row, int col) {
+        cols[col >>> 6] &= ~(1L << col);
+        int d = row + col;
+        diag[d >>> 6] &= ~(1L << d);
+        int a = col - row + n - 1;
+        anti[a >>> 6] &= ~(1L << a);
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    public int getN() {
+        return n;
+    }
+}
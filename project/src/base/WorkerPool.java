@@ -0,0 +1,153 @@
+package base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed set of worker threads shared by any number of SolveSessions, so one
+ * process can run many independent solves at once without each of them
+ * starting its own threads.
+ *
+ * Scheduling is stride scheduling over tasks: every session has a pass, the
+ * worker time its tasks have taken divided by its priority, and a free worker
+ * takes the next task of the session with the lowest pass among those that
+ * have tasks left and are under their thread quota. A new session starts at
+ * the lowest pass of the sessions already there, so it neither waits behind
+ * them nor gets credit for time it wasn't around. A task is charged the
+ * session's mean task time when it starts and corrected when it ends, so
+ * several workers freeing up at once don't all pick the same session.
+ *
+ * Workers only switch sessions between tasks, so how long a small session can
+ * wait behind a large one is one of the large one's tasks, about
+ * 1 / (FRONTIER_TASKS_PER_THREAD * threads) of its whole search.
+ */
+public class WorkerPool implements AutoCloseable {
+
+    private final Thread[] workers;
+    private final List<SolveSession> sessions = new ArrayList<>(); // submitted and not finished
+    private double virtualTime = 0; // lowest pass of the active sessions, where new ones start
+    private long submitted = 0;
+    private boolean closed = false;
+
+    public WorkerPool(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1");
+        }
+        workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            workers[w] = new Thread(() -> work(worker), "pool-" + w);
+            workers[w].setDaemon(true); // an idle pool must not keep the JVM alive
+            workers[w].start();
+        }
+    }
+
+    /**
+     * Splits the session into tasks and queues it behind nothing: its first task goes
+     * to the next free worker unless another session is further behind on its share.
+     */
+    public SolveSession submit(SolveSession session) {
+        session.plan(this, workers.length);
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Pool is closed");
+            session.pass = virtualTime;
+            session.order = submitted++;
+            sessions.add(session);
+            if (session.remaining == 0 || session.isCancelled()) retire(session);
+            notifyAll();
+        }
+        return session;
+    }
+
+    private void work(int worker) {
+        while (true) {
+            SolveSession session;
+            int task;
+            double charge;
+            synchronized (this) {
+                while ((session = pick()) == null) {
+                    if (closed) return;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                charge = session.meanTaskNanos();
+                task = session.nextTask++;
+                session.running++;
+                session.pass += charge / session.getPriority();
+                session.started(session.running);
+            }
+
+            long start = System.nanoTime();
+            boolean finished = session.runTask(task, worker);
+            long nanos = System.nanoTime() - start;
+
+            synchronized (this) {
+                session.running--;
+                session.pass += (nanos - charge) / session.getPriority();
+                session.timedTasks++;
+                session.timedNanos += nanos;
+                if (finished) session.remaining--;
+                if (session.remaining == 0 || (session.isCancelled() && session.running == 0)) retire(session);
+                notifyAll(); // the session may be back under its quota
+            }
+        }
+    }
+
+    // Runnable session with the lowest pass, or null; called under the lock
+    private SolveSession pick() {
+        SolveSession best = null;
+        double lowest = Double.MAX_VALUE;
+        for (SolveSession session : sessions) {
+            lowest = Math.min(lowest, session.pass);
+            if (!session.hasWaitingTask()) continue;
+            if (best == null || session.pass < best.pass || (session.pass == best.pass && session.order < best.order)) {
+                best = session;
+            }
+        }
+        if (!sessions.isEmpty()) virtualTime = Math.max(virtualTime, lowest);
+        return best;
+    }
+
+    // Called under the lock
+    private void retire(SolveSession session) {
+        if (sessions.remove(session)) session.finish();
+    }
+
+    // From SolveSession.cancel: a session with nothing running is done right away
+    synchronized void cancelled(SolveSession session) {
+        if (session.running == 0) retire(session);
+        notifyAll();
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    // Sessions submitted and not finished
+    public synchronized int getActiveSessions() {
+        return sessions.size();
+    }
+
+    // Cancels every session and stops the workers once their current tasks have returned
+    @Override
+    public void close() {
+        List<SolveSession> active;
+        synchronized (this) {
+            closed = true;
+            active = new ArrayList<>(sessions);
+            notifyAll();
+        }
+        for (SolveSession session : active) session.cancel();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package gui;
+
+import base.SearchEngine;
+import base.SolveMode;
+import base.StateManager;
+import base.ThreadManager;
+
+import java.awt.BasicStroke;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Benchmark tab: runs the selected engines headlessly (COUNT, no animation, no
+ * result cache) for a range of board sizes and thread counts 1, 2, 4 .. max,
+ * and charts nodes/sec, solutions/sec, speedup and parallel efficiency against
+ * the thread count as each point finishes. Speedup is against the same engine
+ * and size on 1 thread. Results can be exported as CSV.
+ */
+class BenchmarkPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    // One benchmarked configuration of ThreadManager
+    private static final class Setup {
+        final String name;
+        final Consumer<ThreadManager> apply;
+
+        Setup(String name, Consumer<ThreadManager> apply) {
+            this.name = name;
+            this.apply = apply;
+        }
+    }
+
+    // One finished run
+    private static final class Point {
+        final String setup;
+        final int n;
+        final int threads;
+        final long ms;
+        final long nodes;
+        final long solutions;
+        final double speedup; // 1-thread time over this time
+        final double efficiency; // speedup per thread
+
+        Point(String setup, int n, int threads, long ms, long nodes, long solutions, double speedup) {
+            this.setup = setup;
+            this.n = n;
+            this.threads = threads;
+            this.ms = ms;
+            this.nodes = nodes;
+            this.solutions = solutions;
+            this.speedup = speedup;
+            this.efficiency = speedup / threads;
+        }
+
+        double nodesPerSecond() {
+            return nodes * 1000.0 / Math.max(1, ms);
+        }
+
+        double solutionsPerSecond() {
+            return solutions * 1000.0 / Math.max(1, ms);
+        }
+    }
+
+    private static final int WARM_UP_N = 12; // largest size of each engine's untimed first run
+    private static final String[] METRICS = {"Nodes/sec", "Solutions/sec", "Speedup", "Efficiency"};
+    private static final String[] COLUMNS = {"Engine", "N", "Threads", "ms", "Nodes", "Solutions", "Nodes/sec",
+            "Solutions/sec", "Speedup", "Efficiency"};
+    private static final Color[] SERIES_COLORS = {new Color(100, 150, 255), new Color(80, 200, 120),
+            new Color(255, 200, 100), new Color(255, 80, 100), new Color(180, 100, 255), new Color(100, 255, 255)};
+
+    // Transient: Swing serialization is not supported here, as for the rest of the window
+    private final transient List<Setup> setups = new ArrayList<>();
+    private final transient List<JCheckBox> setupBoxes = new ArrayList<>();
+    private final transient List<Point> points = new ArrayList<>(); // guarded by the event dispatch thread
+    private final DefaultTableModel table = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JSpinner fromSpinner = GUI.createStyledSpinner(new SpinnerNumberModel(10, 4, 17, 1));
+    private final JSpinner toSpinner = GUI.createStyledSpinner(new SpinnerNumberModel(12, 4, 17, 1));
+    private final JSpinner threadsSpinner = GUI.createStyledSpinner(
+            new SpinnerNumberModel(Math.min(16, Runtime.getRuntime().availableProcessors()), 1, 64, 1));
+    private final JComboBox<String> metricBox = new JComboBox<>(METRICS);
+    private final JLabel statusLabel = GUI.createStyledLabel("Idle");
+    private final JButton startBtn = GUI.createStyledButton("▶ RUN", GUI.ACCENT_GREEN);
+    private final JButton stopBtn = GUI.createStyledButton("⏹ STOP", GUI.ACCENT_RED);
+    private final ScalingChart chart = new ScalingChart();
+
+    private volatile boolean stopRequested = false;
+    private transient volatile ThreadManager current; // manager of the run in progress, null between runs
+    private volatile String currentLabel = "";
+    private volatile long currentStart;
+    private transient Thread worker;
+    private final Timer liveTimer = new Timer(250, e -> updateLiveStatus());
+
+    BenchmarkPanel() {
+        setups.add(new Setup("Bitboard rows", m -> m.setEngine(SearchEngine.BITBOARD)));
+        setups.add(new Setup("Bitboard frontier", m -> {
+            m.setEngine(SearchEngine.BITBOARD);
+            m.setFrontierTasks(256 * Runtime.getRuntime().availableProcessors());
+        }));
+        setups.add(new Setup("Virtual threads", m -> {
+            m.setEngine(SearchEngine.BITBOARD);
+            m.setFrontierTasks(256 * Runtime.getRuntime().availableProcessors());
+            m.setVirtualThreads(true);
+        }));
+        setups.add(new Setup("Dancing links", m -> m.setEngine(SearchEngine.DANCING_LINKS)));
+        setups.add(new Setup("Batch", m -> m.setEngine(SearchEngine.BATCH)));
+
+        setLayout(new BorderLayout(10, 10));
+        setBackground(GUI.BG_COLOR);
+
+        // Controls: engines, sizes, threads, actions
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 8));
+        controls.setBackground(GUI.PANEL_BG);
+        controls.setBorder(new EmptyBorder(6, 6, 6, 6));
+        for (Setup setup : setups) {
+            JCheckBox box = new JCheckBox(setup.name, setups.indexOf(setup) < 2); // the two bitboard splits by default
+            box.setBackground(GUI.PANEL_BG);
+            box.setForeground(GUI.TEXT_COLOR);
+            setupBoxes.add(box);
+            controls.add(box);
+        }
+        controls.add(GUI.createStyledLabel("N from:"));
+        controls.add(fromSpinner);
+        controls.add(GUI.createStyledLabel("to:"));
+        controls.add(toSpinner);
+        controls.add(GUI.createStyledLabel("Max threads:"));
+        controls.add(threadsSpinner);
+        JButton exportBtn = GUI.createStyledButton("⭳ CSV", GUI.ACCENT_BLUE);
+        startBtn.addActionListener(e -> startBenchmark());
+        stopBtn.addActionListener(e -> stopBenchmark());
+        exportBtn.addActionListener(e -> exportCsv());
+        stopBtn.setEnabled(false);
+        controls.add(startBtn);
+        controls.add(stopBtn);
+        controls.add(exportBtn);
+        add(controls, BorderLayout.NORTH);
+
+        // Chart above the table of every finished point
+        JPanel chartPanel = new JPanel(new BorderLayout(5, 5));
+        chartPanel.setBackground(GUI.BG_COLOR);
+        JPanel chartHeader = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 4));
+        chartHeader.setBackground(GUI.BG_COLOR);
+        chartHeader.add(GUI.createStyledLabel("Chart:"));
+        metricBox.addActionListener(e -> chart.repaint());
+        chartHeader.add(metricBox);
+        chartPanel.add(chartHeader, BorderLayout.NORTH);
+        chartPanel.add(chart, BorderLayout.CENTER);
+
+        JTable results = new JTable(table);
+        results.setBackground(GUI.PANEL_BG);
+        results.setForeground(GUI.TEXT_COLOR);
+        results.setFont(new Font("Consolas", Font.PLAIN, 12));
+        JScrollPane tableScroll = new JScrollPane(results);
+        tableScroll.getViewport().setBackground(GUI.PANEL_BG);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, chartPanel, tableScroll);
+        split.setResizeWeight(0.65);
+        split.setBorder(null);
+        add(split, BorderLayout.CENTER);
+
+        statusLabel.setBorder(new EmptyBorder(4, 10, 6, 10));
+        add(statusLabel, BorderLayout.SOUTH);
+    }
+
+    private void startBenchmark() {
+        if (worker != null && worker.isAlive()) return;
+        int from = (int) fromSpinner.getValue();
+        int to = (int) toSpinner.getValue();
+        int maxThreads = (int) threadsSpinner.getValue();
+        List<Setup> selected = new ArrayList<>();
+        for (int i = 0; i < setups.size(); i++) {
+            if (setupBoxes.get(i).isSelected()) selected.add(setups.get(i));
+        }
+        if (selected.isEmpty() || from > to) {
+            statusLabel.setText("Pick at least one engine and N from <= to");
+            return;
+        }
+
+        points.clear();
+        table.setRowCount(0);
+        chart.repaint();
+        stopRequested = false;
+        startBtn.setEnabled(false);
+        stopBtn.setEnabled(true);
+        liveTimer.start();
+        worker = new Thread(() -> runBenchmark(selected, from, to, threadCounts(maxThreads)), "benchmark");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // 1, 2, 4 .. up to max, and max itself
+    private static List<Integer> threadCounts(int max) {
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < max; t *= 2) counts.add(t);
+        counts.add(max);
+        return counts;
+    }
+
+    private void runBenchmark(List<Setup> selected, int from, int to, List<Integer> threadCounts) {
+        try {
+            for (Setup setup : selected) {
+                // Untimed, so the first point isn't measured on a cold JIT
+                if (runOnce(setup, Math.min(to, WARM_UP_N), threadCounts.get(threadCounts.size() - 1), "warm-up") == null) return;
+                for (int n = from; n <= to; n++) {
+                    long singleMs = -1;
+                    for (int threads : threadCounts) {
+                        long[] run = runOnce(setup, n, threads, "");
+                        if (run == null) return;
+                        if (singleMs < 0) singleMs = run[0]; // threads start at 1
+                        Point point = new Point(setup.name, n, threads, run[0], run[1], run[2], (double) singleMs / run[0]);
+                        SwingUtilities.invokeLater(() -> addPoint(point));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            SwingUtilities.invokeLater(() -> statusLabel.setText("Benchmark failed: " + e.getMessage()));
+            stopRequested = true;
+        } finally {
+            current = null;
+            SwingUtilities.invokeLater(this::benchmarkFinished);
+        }
+    }
+
+    // {ms, nodes, solutions} of one COUNT run, or null if the benchmark was stopped
+    private long[] runOnce(Setup setup, int n, int threads, String note) {
+        if (stopRequested) return null;
+        ThreadManager manager = new ThreadManager();
+        manager.setMode(SolveMode.COUNT);
+        setup.apply.accept(manager);
+        manager.setMaxInFlight(threads); // so the virtual-thread setup runs no more tasks at once than the others have threads
+        StateManager state = new StateManager();
+        state.setVerbose(false);
+        currentLabel = setup.name + ", N = " + n + ", " + threads + " threads" + (note.isEmpty() ? "" : " (" + note + ")");
+        currentStart = System.nanoTime();
+        current = manager;
+        manager.startSolving(n, threads, state);
+        manager.waitForCompletion();
+        current = null;
+        if (stopRequested) return null;
+        long ms = Math.max(1, (System.nanoTime() - currentStart) / 1_000_000);
+        return new long[] {ms, manager.getNodesVisited(), state.getTotalCount()};
+    }
+
+    private void stopBenchmark() {
+        stopRequested = true;
+        ThreadManager manager = current;
+        if (manager == null) return;
+        // stopAll joins the workers for up to a second each: not on the event dispatch thread
+        Thread stopper = new Thread(manager::stopAll, "benchmark-stop");
+        stopper.setDaemon(true);
+        stopper.start();
+    }
+
+    private void benchmarkFinished() {
+        liveTimer.stop();
+        startBtn.setEnabled(true);
+        stopBtn.setEnabled(false);
+        if (!statusLabel.getText().startsWith("Benchmark failed")) {
+            statusLabel.setText((stopRequested ? "Stopped after " : "Done: ") + points.size() + " runs");
+        }
+    }
+
+    private void addPoint(Point point) {
+        points.add(point);
+        table.addRow(new Object[] {point.setup, point.n, point.threads, point.ms, point.nodes, point.solutions,
+                String.format("%.3g", point.nodesPerSecond()), String.format("%.3g", point.solutionsPerSecond()),
+                String.format("%.2f", point.speedup), String.format("%.2f", point.efficiency)});
+        chart.repaint();
+    }
+
+    // Live rate of the run in progress, from the nodes its threads have searched so far
+    private void updateLiveStatus() {
+        ThreadManager manager = current;
+        if (manager == null) return;
+        double seconds = Math.max(1e-3, (System.nanoTime() - currentStart) / 1e9);
+        statusLabel.setText(String.format("⚡ %s: %.1f s, %.3g nodes/sec", currentLabel, seconds,
+                manager.getNodesVisited() / seconds));
+    }
+
+    private void exportCsv() {
+        if (points.isEmpty()) {
+            statusLabel.setText("Nothing to export yet");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("nqueens-benchmark.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("engine,n,threads,ms,nodes,solutions,nodes_per_sec,solutions_per_sec,speedup,efficiency");
+            for (Point p : points) {
+                out.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%.1f,%.1f,%.4f,%.4f", p.setup, p.n, p.threads,
+                        p.ms, p.nodes, p.solutions, p.nodesPerSecond(), p.solutionsPerSecond(), p.speedup, p.efficiency));
+            }
+            statusLabel.setText("Exported " + points.size() + " runs to " + file);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not write " + file + ": " + e.getMessage(),
+                    "Export failed", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private double metric(Point p) {
+        switch (metricBox.getSelectedIndex()) {
+            case 1: return p.solutionsPerSecond();
+            case 2: return p.speedup;
+            case 3: return p.efficiency;
+            default: return p.nodesPerSecond();
+        }
+    }
+
+    /**
+     * Line chart of the selected metric against thread count, one line per engine and N.
+     * Thread counts are spaced evenly (they double), the y axis starts at 0.
+     */
+    private class ScalingChart extends JPanel {
+
+        private static final long serialVersionUID = 1L;
+
+        ScalingChart() {
+            setBackground(GUI.PANEL_BG);
+            setPreferredSize(new Dimension(800, 360));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int left = 80, right = 180, top = 20, bottom = 40; // margins; the legend goes on the right
+            int width = getWidth() - left - right;
+            int height = getHeight() - top - bottom;
+            if (width <= 0 || height <= 0) return;
+
+            // Series in order of appearance, and the thread counts on the x axis
+            Map<String, List<Point>> series = new LinkedHashMap<>();
+            List<Integer> xs = new ArrayList<>();
+            double maxY = 0;
+            for (Point p : points) {
+                series.computeIfAbsent(p.setup + " N=" + p.n, k -> new ArrayList<>()).add(p);
+                if (!xs.contains(p.threads)) xs.add(p.threads);
+                maxY = Math.max(maxY, metric(p));
+            }
+            xs.sort(null);
+            boolean ratio = metricBox.getSelectedIndex() >= 2;
+            if (ratio) maxY = Math.max(maxY, metricBox.getSelectedIndex() == 3 ? 1 : xs.isEmpty() ? 1 : xs.get(xs.size() - 1));
+            if (maxY <= 0) maxY = 1;
+
+            // Axes, y grid and labels
+            g2d.setFont(new Font("Arial", Font.PLAIN, 11));
+            for (int i = 0; i <= 4; i++) {
+                int y = top + height - height * i / 4;
+                g2d.setColor(new Color(60, 65, 85));
+                g2d.drawLine(left, y, left + width, y);
+                g2d.setColor(GUI.TEXT_COLOR);
+                String label = ratio ? String.format("%.2f", maxY * i / 4) : String.format("%.3g", maxY * i / 4);
+                g2d.drawString(label, left - 8 - g2d.getFontMetrics().stringWidth(label), y + 4);
+            }
+            g2d.drawLine(left, top, left, top + height);
+            g2d.drawLine(left, top + height, left + width, top + height);
+            for (int i = 0; i < xs.size(); i++) {
+                int x = xFor(i, xs.size(), left, width);
+                String label = xs.get(i) + (i == xs.size() - 1 ? " threads" : "");
+                g2d.drawString(label, x - 6, top + height + 18);
+            }
+            if (series.isEmpty()) {
+                g2d.drawString("Pick engines and sizes, then run", left + 20, top + 30);
+                return;
+            }
+
+            // One line per series, and its legend entry
+            int index = 0;
+            for (Map.Entry<String, List<Point>> entry : series.entrySet()) {
+                Color color = SERIES_COLORS[index % SERIES_COLORS.length];
+                g2d.setColor(color);
+                g2d.setStroke(new BasicStroke(2f));
+                int lastX = -1, lastY = -1;
+                for (Point p : entry.getValue()) {
+                    int x = xFor(xs.indexOf(p.threads), xs.size(), left, width);
+                    int y = top + height - (int) (height * metric(p) / maxY);
+                    g2d.fillOval(x - 3, y - 3, 6, 6);
+                    if (lastX >= 0) g2d.drawLine(lastX, lastY, x, y);
+                    lastX = x;
+                    lastY = y;
+                }
+                int legendY = top + 14 + index * 16;
+                if (legendY < top + height) {
+                    g2d.fillRect(left + width + 15, legendY - 9, 10, 10);
+                    g2d.setColor(GUI.TEXT_COLOR);
+                    g2d.drawString(entry.getKey(), left + width + 30, legendY);
+                }
+                index++;
+            }
+            g2d.setStroke(new BasicStroke(1f));
+        }
+
+        private int xFor(int i, int count, int left, int width) {
+            return count <= 1 ? left + width / 2 : left + width * i / (count - 1);
+        }
+    }
+}
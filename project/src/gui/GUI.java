@@ -30,18 +30,25 @@ public class GUI extends JFrame {
     private volatile boolean stopRequested = false; // Flag to signal threads to stop
     private int delay = 10; // Milliseconds delay for both algorithm steps and UI updates (minimum 1ms)
     private JSpinner delaySpinner; // Spinner control for adjusting animation speed
+    private JSpinner sizeSpinner; // Spinner control for board size
+    private JSpinner threadsSpinner; // Spinner control for thread count
+    private Long knownTotal; // Solution count for this board size from the result cache (null if never solved)
+    private volatile ProgressTracker progressTracker; // Percent-complete and ETA estimate for the current run
+    private JTextField constraintsField; // Text field for pre-placed queens and blocked squares
+    private BoardConstraints constraints; // Constraints of the current solve (null = empty board)
     
     // Semaphore for controlling concurrent access to solving operation
-    private final Semaphore solvingSemaphore = new Semaphore(1); // Only one solving operation at a time
+    // Per window: other windows (see submitSolve) solve side by side, each with its own managers and delay
+    private final Semaphore solvingSemaphore = new Semaphore(1); // Only one solving operation at a time in this window
     
     // Color scheme constants for consistent UI appearance
-    private static final Color BG_COLOR = new Color(20, 25, 35); // Dark background color
-    private static final Color PANEL_BG = new Color(30, 35, 50); // Panel background color
-    private static final Color ACCENT_BLUE = new Color(100, 150, 255); // Blue accent for UI elements
-    private static final Color ACCENT_GREEN = new Color(80, 200, 120); // Green accent for start/success
+    static final Color BG_COLOR = new Color(20, 25, 35); // Dark background color
+    static final Color PANEL_BG = new Color(30, 35, 50); // Panel background color
+    static final Color ACCENT_BLUE = new Color(100, 150, 255); // Blue accent for UI elements
+    static final Color ACCENT_GREEN = new Color(80, 200, 120); // Green accent for start/success
     private static final Color ACCENT_PURPLE = new Color(180, 100, 255); // Purple accent for variety
-    private static final Color ACCENT_RED = new Color(255, 80, 100); // Red accent for stop/danger
-    private static final Color TEXT_COLOR = new Color(230, 230, 240); // Light text color
+    static final Color ACCENT_RED = new Color(255, 80, 100); // Red accent for stop/danger
+    static final Color TEXT_COLOR = new Color(230, 230, 240); // Light text color
     private static final Color PLACE_GLOW = new Color(80, 255, 120); // Green glow for placing queens
     private static final Color REMOVE_GLOW = new Color(255, 80, 80); // Red glow for removing queens (backtracking)
     
@@ -60,12 +67,14 @@ public class GUI extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // Exit application when window closes
         setBackground(BG_COLOR); // Set background color
         
-        // Main layout using BorderLayout for organized component placement
-        setLayout(new BorderLayout(10, 10)); // 10px gaps between regions
+        // Main layout: the animated solver and the benchmark dashboard on separate tabs
+        setLayout(new BorderLayout()); // Tabs fill the window
+        JPanel solverTab = new JPanel(new BorderLayout(10, 10)); // 10px gaps between regions
+        solverTab.setBackground(BG_COLOR); // Match background color
         
         // Control Panel at top - contains start/stop buttons and configuration controls
         controlPanel = createControlPanel(); // Create the control panel
-        add(controlPanel, BorderLayout.NORTH); // Position at top
+        solverTab.add(controlPanel, BorderLayout.NORTH); // Position at top
         
         // Center: Boards display - shows all thread boards in a grid
         mainBoardsPanel = new JPanel(); // Create container for board panels
@@ -80,11 +89,11 @@ public class GUI extends JFrame {
         boardsScroll.setBorder(null); // Remove default border
         boardsScroll.getVerticalScrollBar().setUnitIncrement(16); // Smooth scrolling speed
         boardsScroll.getHorizontalScrollBar().setUnitIncrement(16); // Smooth horizontal scrolling
-        add(boardsScroll, BorderLayout.CENTER); // Position in center
+        solverTab.add(boardsScroll, BorderLayout.CENTER); // Position in center
         
         // Right panel: Solutions and stats - displays all found solutions
         JPanel rightPanel = createRightPanel(); // Create the solutions panel
-        add(rightPanel, BorderLayout.EAST); // Position on right side
+        solverTab.add(rightPanel, BorderLayout.EAST); // Position on right side
         
         // Stats area at bottom - displays summary statistics
         statsArea = new JTextArea(3, 20); // Create text area for stats (3 rows, 20 cols)
@@ -93,7 +102,13 @@ public class GUI extends JFrame {
         statsArea.setForeground(TEXT_COLOR); // Set text color
         statsArea.setFont(new Font("Consolas", Font.BOLD, 12)); // Use monospace font for alignment
         statsArea.setBorder(new EmptyBorder(10, 10, 10, 10)); // Add padding
-        add(statsArea, BorderLayout.SOUTH); // Position at bottom
+        solverTab.add(statsArea, BorderLayout.SOUTH); // Position at bottom
+        
+        // Tabs: the animated solve, and headless runs charted against thread count
+        JTabbedPane tabs = new JTabbedPane(); // One tab per view
+        tabs.addTab("Solver", solverTab); // Animated multi-threaded solve
+        tabs.addTab("Benchmark", new BenchmarkPanel()); // Scaling dashboard with CSV export
+        add(tabs, BorderLayout.CENTER); // Fill the window
         
         // Center window on screen
         setLocationRelativeTo(null); // Center the window relative to screen
@@ -117,15 +132,25 @@ public class GUI extends JFrame {
         // Board size configuration spinner
         JLabel sizeLabel = createStyledLabel("Board Size:"); // Label for board size
         SpinnerNumberModel sizeModel = new SpinnerNumberModel(8, 4, 16, 1); // Model: default=8, min=4, max=16, step=1
-        JSpinner sizeSpinner = createStyledSpinner(sizeModel); // Create styled spinner
+        sizeSpinner = createStyledSpinner(sizeModel); // Create styled spinner
         sizeSpinner.addChangeListener(e -> boardSize = (int) sizeSpinner.getValue()); // Update boardSize when changed
         
         // Thread count configuration spinner
         JLabel threadsLabel = createStyledLabel("Threads:"); // Label for thread count
         SpinnerNumberModel threadsModel = new SpinnerNumberModel(4, 1, 16, 1); // Model: default=4, min=1, max=16, step=1
-        JSpinner threadsSpinner = createStyledSpinner(threadsModel); // Create styled spinner
+        threadsSpinner = createStyledSpinner(threadsModel); // Create styled spinner
         threadsSpinner.addChangeListener(e -> numThreads = (int) threadsSpinner.getValue()); // Update numThreads when changed
         
+        // Completion constraints input (pre-placed queens and blocked squares)
+        JLabel constraintsLabel = createStyledLabel("Constraints:"); // Label for constraints field
+        constraintsField = new JTextField(16); // Empty = plain board
+        constraintsField.setToolTipText("queens=r:c,r:c blocked=r:c,r:c (0-based, leave empty for a plain board)"); // Explain the format
+        constraintsField.setBackground(PANEL_BG); // Match background color
+        constraintsField.setForeground(TEXT_COLOR); // Set text color
+        constraintsField.setCaretColor(TEXT_COLOR); // Set cursor color
+        constraintsField.setFont(new Font("Arial", Font.PLAIN, 13)); // Set font
+        constraintsField.setPreferredSize(new Dimension(200, 35)); // Same height as the spinners
+        
         // Animation delay input (controls both algorithm and UI refresh rate)
         JLabel delayLabel = createStyledLabel("Animation Delay (ms):"); // Label for delay control
         SpinnerNumberModel delayModel = new SpinnerNumberModel(10, 1, 1000, 5); // Model: default=10ms, min=1ms, max=1000ms, step=5ms
@@ -172,7 +197,7 @@ public class GUI extends JFrame {
             }
             
             // Update algorithm step delay to match user selection
-            NQueenSolver.setStepDelay(delay); // Set delay for algorithm execution
+            stateManager.setStepDelay(delay); // Set delay for this window's algorithm execution
             
             // Update UI refresh timer if currently running
             if (updateTimer != null && updateTimer.isRunning()) { // Check if timer exists and is active
@@ -192,6 +217,8 @@ public class GUI extends JFrame {
         mainPanel.add(sizeSpinner); // Add board size spinner
         mainPanel.add(threadsLabel); // Add threads label
         mainPanel.add(threadsSpinner); // Add threads spinner
+        mainPanel.add(constraintsLabel); // Add constraints label
+        mainPanel.add(constraintsField); // Add constraints field
         mainPanel.add(delayLabel); // Add delay label
         mainPanel.add(delaySpinner); // Add delay spinner
         mainPanel.add(delayStatusLabel); // Add delay status label
@@ -241,7 +268,7 @@ public class GUI extends JFrame {
      * @param text The text to display in the label
      * @return JLabel with styling applied
      */
-    private JLabel createStyledLabel(String text) {
+    static JLabel createStyledLabel(String text) {
         JLabel label = new JLabel(text); // Create label with text
         label.setForeground(TEXT_COLOR); // Set text color
         label.setFont(new Font("Arial", Font.BOLD, 14)); // Set font and size
@@ -253,7 +280,7 @@ public class GUI extends JFrame {
      * @param model The number model for the spinner
      * @return JSpinner with styling applied
      */
-    private JSpinner createStyledSpinner(SpinnerNumberModel model) {
+    static JSpinner createStyledSpinner(SpinnerNumberModel model) {
         JSpinner spinner = new JSpinner(model); // Create spinner with model
         spinner.setPreferredSize(new Dimension(80, 35)); // Set spinner size
         JComponent editor = spinner.getEditor(); // Get the spinner's editor component
@@ -275,7 +302,7 @@ public class GUI extends JFrame {
      * @param color The button background color
      * @return JButton with styling and hover effects
      */
-    private JButton createStyledButton(String text, Color color) {
+    static JButton createStyledButton(String text, Color color) {
         JButton button = new JButton(text); // Create button with text
         button.setBackground(color); // Set background color
         button.setForeground(Color.WHITE); // Set text color to white
@@ -315,11 +342,21 @@ public class GUI extends JFrame {
             return; // Prevent starting if already running
         }
         
+        // Read the constraints before clearing anything, so a typo leaves the last run on screen
+        try {
+            String text = constraintsField.getText().trim(); // Raw constraints text
+            constraints = text.isEmpty() ? null : BoardConstraints.parse(boardSize, text); // Parse for the current board size
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Invalid constraints", JOptionPane.ERROR_MESSAGE); // Show what is wrong
+            solvingSemaphore.release(); // Release permit before returning
+            return; // Don't start with bad input
+        }
+        
         isRunning = true; // Set running flag to true
         stopRequested = false; // Clear stop request flag
         
         // Set algorithm delay to match user selection
-        NQueenSolver.setStepDelay(delay); // Configure step delay for algorithm
+        stateManager.setStepDelay(delay); // Configure step delay for this window's algorithm
         
         // Print debug information to console
         System.out.println("==========================================="); // Separator
@@ -327,6 +364,7 @@ public class GUI extends JFrame {
         System.out.println("Board Size: " + boardSize + "x" + boardSize); // Display board dimensions
         System.out.println("Number of Threads: " + numThreads); // Display thread count
         System.out.println("Animation Delay: " + delay + "ms"); // Display animation speed
+        if (constraints != null) System.out.println("Constraints: " + constraints); // Display constraints if any
         System.out.println("==========================================="); // Separator
         
         // CLEAR EVERYTHING - FRESH START (remove all previous data)
@@ -335,6 +373,7 @@ public class GUI extends JFrame {
         solutionsPanel.removeAll(); // Remove all solution previews
         stateManager.current_states.clear(); // Clear current board states
         stateManager.solutions.clear(); // Clear found solutions
+        knownTotal = ResultCache.getDefault().getCount(ResultCache.Key.of(boardSize, constraints)); // Look up the total from earlier runs
         
         // Force UI to update and show cleared state
         solutionsPanel.revalidate(); // Recalculate solutions panel layout
@@ -360,7 +399,12 @@ public class GUI extends JFrame {
         // Start solving in background thread to avoid blocking UI
         new Thread(() -> { // Create and start background thread
             try {
+                threadManager.setConstraints(constraints); // Pre-placed queens and blocked squares, if any
+                // The tree size estimate assumes an empty board, so constrained runs get no progress bar
+                ProgressTracker monitor = constraints == null ? new ProgressTracker(threadManager, boardSize) : null; // Estimate the search tree size before starting
                 threadManager.startSolving(boardSize, threadsToUse, stateManager); // Start all worker threads solving
+                if (monitor != null) monitor.start(); // Keep refining the estimate while the threads work
+                progressTracker = monitor; // Let the stats bar show progress
                 
                 // Wait for all threads to complete their work
                 threadManager.waitForCompletion(); // Block until all threads finish
@@ -378,6 +422,8 @@ public class GUI extends JFrame {
                         System.out.println("==========================================="); // Separator
                         System.out.println("✓ All threads completed successfully!"); // Success message
                         System.out.println("Total solutions found: " + totalSolutions); // Display total count
+                        cacheCompletedRun(); // Remember the full solution set for later runs
+                        System.out.println(ResultCache.getDefault().getStats()); // Display cache hit/miss counters
                         System.out.println("==========================================="); // Separator
                         stopSolving(true); // Auto-complete stop (pass true to indicate auto-completion)
                     }
@@ -397,6 +443,59 @@ public class GUI extends JFrame {
         updateTimer.start(); // Start the timer to trigger updateUI() periodically
     }
     
+    /**
+     * Stores the solutions of a completed run in the result cache
+     * The cache keeps solution sets in lexicographic order, the order of getOrderedSolutions
+     */
+    private void cacheCompletedRun() {
+        PackedSolutions packed = new PackedSolutions(boardSize); // Compact copy of all solutions
+        long[] columnCounts = new long[boardSize]; // Solutions per first-row column
+        for (Solution sol : stateManager.getOrderedSolutions()) { // Merged across threads
+            int[] columns = sol.getColumns(); // Row -> column form
+            packed.add(columns); // Add to the packed set
+            columnCounts[columns[0]]++; // Count by first-row column
+        }
+        ResultCache.getDefault().put(ResultCache.Key.of(boardSize, constraints), new ResultCache.Entry(packed.size(), columnCounts, packed)); // Save to memory and disk
+        knownTotal = (long) packed.size(); // Show it as known from now on
+    }
+    
+    /**
+     * Starts a solve requested by another launch of the application (command socket)
+     * @param n Board size requested by the caller
+     * @param threads Thread count requested by the caller
+     */
+    public void submitSolve(int n, int threads) {
+        submitSolve(n, threads, null); // Plain board
+    }
+    
+    /**
+     * Starts a solve requested by another launch of the application (command socket)
+     * If this window is already solving, the request runs side by side in a new window
+     * @param n Board size requested by the caller
+     * @param threads Thread count requested by the caller
+     * @param requested Pre-placed queens and blocked squares, or null for a plain board
+     * @throws IllegalArgumentException if n or threads is outside what the spinners allow
+     */
+    public void submitSolve(int n, int threads, BoardConstraints requested) {
+        if (n < 4 || n > 16) throw new IllegalArgumentException("GUI board size must be between 4 and 16"); // Same range as sizeSpinner
+        if (threads < 1 || threads > 16) throw new IllegalArgumentException("GUI thread count must be between 1 and 16"); // Same range as threadsSpinner
+        SwingUtilities.invokeLater(() -> { // Spinners may only be touched on the UI thread
+            if (isRunning) { // Busy: solve in a window of its own instead of dropping the request
+                GUI other = new GUI(); // Own state manager, thread manager and step delay
+                other.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // Closing it leaves this window running
+                other.setLocation(getX() + 40, getY() + 40); // Offset so both windows show
+                other.setVisible(true); // Show the new window
+                other.submitSolve(n, threads, requested); // Same checks, run in the new window
+                return;
+            }
+            sizeSpinner.setValue(n); // Also updates boardSize through the change listener
+            threadsSpinner.setValue(threads); // Also updates numThreads through the change listener
+            constraintsField.setText(requested == null ? "" : requested.toString()); // Parsed again by startSolving
+            toFront(); // Show the window that is doing the work
+            startSolving(); // Same path as pressing START
+        });
+    }
+    
     /**
      * Stops the solving process (called by stop button)
      * Delegates to stopSolving(boolean) with false parameter
@@ -420,16 +519,17 @@ public class GUI extends JFrame {
         
         stopRequested = true; // Set flag to signal threads to stop
         isRunning = false; // Clear running flag
+        if (progressTracker != null) { // If a progress estimate is running
+            progressTracker.stop(); // Stop refining it
+            progressTracker = null; // Clear monitor reference
+        }
         
         // Stop all threads if manually stopped (not if auto-completed)
         if (!autoComplete) { // If manually stopped
             threadManager.stopAll(); // Stop all worker threads
             System.out.println("✓ All threads stopped successfully."); // Success message
             System.out.println("==========================================="); // Separator
-            
-            // Release semaphore when manually stopped (auto-complete releases in finally block)
-            solvingSemaphore.release(); // Release the semaphore permit
-            System.out.println("🔓 Semaphore released - ready for next solve operation");
+            // The solving thread releases the semaphore once waitForCompletion returns; releasing here too would allow two runs
         }
         
         // Stop UI update timer
@@ -498,22 +598,13 @@ public class GUI extends JFrame {
         
         solutionsPanel.removeAll(); // Clear existing solution displays
         
-        // Collect all solutions from all threads into a single list
-        java.util.List<java.util.Map.Entry<Integer, Solution>> allSolutions = new ArrayList<>(); // List to hold all solutions
-        for (Integer threadId : stateManager.solutions.keySet()) { // For each thread that has solutions
-            ArrayList<Solution> sols = stateManager.solutions.get(threadId); // Get this thread's solutions
-            if (sols != null) { // If solutions exist
-                for (Solution sol : sols) { // For each solution
-                    allSolutions.add(new java.util.AbstractMap.SimpleEntry<>(threadId, sol)); // Add with thread ID
-                }
-            }
-        }
+        // Merge the threads' solutions into lexicographic order, so numbering is the same on every run
+        java.util.List<Solution> allSolutions = stateManager.getOrderedSolutions(); // Sorted across all threads
         
         // Show ALL solutions with mini previews
         for (int i = 0; i < allSolutions.size(); i++) { // For each solution
-            java.util.Map.Entry<Integer, Solution> entry = allSolutions.get(i); // Get solution entry
-            int threadId = entry.getKey(); // Get thread ID that found this solution
-            Solution sol = entry.getValue(); // Get solution object
+            Solution sol = allSolutions.get(i); // Get solution object
+            int threadId = sol.thread_id; // Thread that found this solution
             
             SolutionMiniPanel miniPanel = new SolutionMiniPanel(sol, threadId, i + 1); // Create mini preview panel
             solutionsPanel.add(miniPanel); // Add panel to display
@@ -536,13 +627,24 @@ public class GUI extends JFrame {
             if (sols != null) totalSolutions += sols.size(); // Add solution count
         }
         
+        // Progress and ETA while running
+        String progressText = ""; // Empty when not running
+        ProgressTracker monitor = progressTracker; // Read once, the solving thread may replace it
+        if (isRunning && monitor != null) { // If a run is in progress
+            SolveProgress progress = monitor.snapshot(); // Nodes searched vs. expected tree size
+            progressText = String.format("  |  📈 %.1f%%  ⏱ ETA %s", // Percent and remaining time
+                progress.getFraction() * 100, SolveProgress.formatDuration(progress.getEtaMs()));
+        }
+        
         // Format and display statistics string
         statsArea.setText(String.format( // Set text with formatted string
-            "  🎯 Total Solutions: %d  |  📊 Threads: %d  |  🔷 Board: %dx%d  |  %s", // Format template
+            "  🎯 Total Solutions: %d  |  📊 Threads: %d  |  🔷 Board: %dx%d  |  %s%s%s", // Format template
             totalSolutions, // Total solutions found
             threadBoardPanels.size(), // Number of active threads
             boardSize, boardSize, // Board dimensions
-            isRunning ? "⚡ RUNNING..." : "⏸ STOPPED" // Current status
+            isRunning ? "⚡ RUNNING..." : "⏸ STOPPED", // Current status
+            progressText, // Percent complete and ETA
+            knownTotal != null ? "  |  📚 Known total: " + knownTotal : "" // Total from the result cache, if any
         ));
     }
     
@@ -559,6 +661,7 @@ public class GUI extends JFrame {
         private int animationFrame = 0; // Current animation frame for pulsing effects
         private int changedRow = -1; // Row of the most recently changed queen
         private int changedCol = -1; // Column of the most recently changed queen
+        private final BoardConstraints boardConstraints = constraints; // Constraints of the solve this panel belongs to
         
         /**
          * Constructor for BoardPanel
@@ -649,6 +752,18 @@ public class GUI extends JFrame {
                     }
                     g2d.fillRect(x, y, cellSize, cellSize); // Fill cell with color
                     
+                    // Mark constrained squares
+                    if (boardConstraints != null && boardConstraints.isBlocked(row, col)) { // If no queen may go here
+                        g2d.setColor(new Color(120, 40, 50)); // Dark red for blocked
+                        g2d.fillRect(x, y, cellSize, cellSize); // Fill blocked cell
+                        g2d.setColor(ACCENT_RED); // Red cross
+                        g2d.drawLine(x + 4, y + 4, x + cellSize - 4, y + cellSize - 4); // First stroke of the cross
+                        g2d.drawLine(x + cellSize - 4, y + 4, x + 4, y + cellSize - 4); // Second stroke of the cross
+                    } else if (boardConstraints != null && boardConstraints.getQueen(row) == col) { // If a queen is pre-placed here
+                        g2d.setColor(new Color(255, 200, 80)); // Gold outline for fixed queens
+                        g2d.drawRect(x + 2, y + 2, cellSize - 4, cellSize - 4); // Outline the fixed square
+                    }
+                    
                     // Draw queen if present at this position
                     if (currentState[row][col] == 1) { // If queen is present
                         // Check if this is the queen that just changed (for special glow effect)
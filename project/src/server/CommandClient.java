@@ -0,0 +1,40 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Forwards a request to the running instance and echoes its result lines.
+ */
+public class CommandClient {
+
+    /**
+     * @return the process exit status, or -1 if no instance is listening
+     */
+    public static int forward(SolveRequest request, int port) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println(request.toLine());
+
+            int status = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith("ERROR")) status = 1;
+            }
+            return status;
+        } catch (ConnectException e) {
+            return -1;
+        } catch (IOException e) {
+            System.out.println("Lost connection to the running instance: " + e.getMessage());
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package server;
+
+import base.WorkerPool;
+import gui.GUI;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Accept loop of the running instance. Every later launch connects here,
+ * sends one request line and reads the result lines until the socket closes,
+ * so repeated solves run on this already warmed-up JVM. Classic counts and
+ * solves of every client run as sessions on one shared WorkerPool.
+ */
+public class CommandServer {
+
+    private final ServerSocket serverSocket;
+    private volatile GUI gui; // null when running headless (Main serve)
+    private final WorkerPool pool = new WorkerPool(Runtime.getRuntime().availableProcessors()); // shared by all clients
+
+    public CommandServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    public void setGui(GUI gui) {
+        this.gui = gui;
+    }
+
+    // Returns once the server socket is closed
+    public void acceptForever() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                Thread handler = new Thread(() -> handle(client), "command-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return;
+                System.out.println("Command server could not accept a client: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try (Socket socket = client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)))) {
+            String line = in.readLine();
+            if (line == null) return; // plain connection probe, nothing to do
+
+            SolveRequest request;
+            try {
+                request = SolveRequest.parse(line);
+            } catch (IllegalArgumentException e) {
+                out.println("ERROR " + e.getMessage());
+                return;
+            }
+            System.out.println("Forwarded request: " + request);
+            RequestRunner.run(request, out, gui, pool);
+        } catch (IOException e) {
+            System.out.println("Command client disconnected: " + e.getMessage());
+        }
+    }
+}
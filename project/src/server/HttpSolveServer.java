@@ -0,0 +1,385 @@
+package server;
+
+import base.BitboardSolver;
+import base.HeadlessSolver;
+import base.PackedSolutions;
+import base.ResultCache;
+import base.SolutionListener;
+import base.SolveMode;
+import base.SolveSession;
+import base.WorkerPool;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Embedded HTTP/JSON front end for the solver, for callers that don't go through the GUI.
+ *
+ *   GET /count?n=12[&threads=4][&priority=1]         {"n":12,"count":14200,"columns":[...]}
+ *   GET /first?n=12&k=10[&threads=4]                 the lexicographically first k solutions
+ *   GET /enumerate?n=12&offset=0&limit=100[&threads=4]
+ *                                                    one page in lexicographic order, sent chunked
+ *
+ * Every solve runs as a session on one WorkerPool shared by all requests, so many
+ * small requests get through while a large one is running; threads caps the workers
+ * a request may use at once and priority sets a count's share against the others.
+ * Pages and first-k solutions are ENUMERATE sessions, cancelled as soon as they have
+ * what they need. Identical counts and first-k requests that arrive while one is
+ * being solved wait for that solve instead of starting their own. Counts come from
+ * the ResultCache, and a cached full solution set also answers /first and /enumerate
+ * without solving; partial enumerations aren't cached.
+ *
+ * Every solve is stopped after -Dnqueens.http.time.limit.ms (default 5 minutes),
+ * so a request for a board far too large can't hold workers forever; the caller
+ * gets a 500 error. A page also stops as soon as its client goes away.
+ */
+public class HttpSolveServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_K = 10_000;
+    private static final int MAX_PAGE = 1_000_000;
+    public static final long DEFAULT_TIME_LIMIT_MS = 5 * 60_000;
+
+    private final HttpServer server;
+    private final int defaultThreads = Runtime.getRuntime().availableProcessors();
+    private final long timeLimitMs = Long.getLong("nqueens.http.time.limit.ms", DEFAULT_TIME_LIMIT_MS);
+    private final WorkerPool pool = new WorkerPool(defaultThreads); // shared by every request
+    // request key -> in-flight result, so concurrent identical requests share one solve
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> results = new ConcurrentHashMap<>();
+
+    public HttpSolveServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newCachedThreadPool()); // handlers block while workers solve
+        server.createContext("/count", exchange -> handle(exchange, this::count));
+        server.createContext("/first", exchange -> handle(exchange, this::first));
+        server.createContext("/enumerate", exchange -> handle(exchange, this::enumerate));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("HTTP solve service listening on port " + server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(0);
+        pool.close();
+    }
+
+    private interface Endpoint {
+        void serve(HttpExchange exchange, Map<String, String> query) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendJson(exchange, 405, "{\"error\":\"Only GET is supported\"}");
+                return;
+            }
+            try {
+                endpoint.serve(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                sendJson(exchange, 400, "{\"error\":\"" + escape(e.getMessage()) + "\"}");
+            } catch (RuntimeException e) {
+                if (exchange.getResponseCode() != -1) throw e; // a page already under way: just cut it off
+                sendJson(exchange, 500, "{\"error\":\"" + escape(String.valueOf(e.getMessage())) + "\"}");
+            }
+        }
+    }
+
+    private void count(HttpExchange exchange, Map<String, String> query) throws IOException {
+        int n = intParam(query, "n", -1, 4, BitboardSolver.MAX_N);
+        int threads = intParam(query, "threads", defaultThreads, 1, 1024);
+        int priority = intParam(query, "priority", SolveSession.DEFAULT_PRIORITY, 1, 1000);
+
+        long start = System.nanoTime();
+        long[] counts = columnCounts(n, threads, priority);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"n\":").append(n)
+            .append(",\"count\":").append(sum(counts))
+            .append(",\"columns\":[");
+        for (int col = 0; col < n; col++) {
+            if (col > 0) json.append(',');
+            json.append(counts[col]);
+        }
+        json.append("],\"elapsedMs\":").append(elapsedMs).append('}');
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void first(HttpExchange exchange, Map<String, String> query) throws IOException {
+        int n = intParam(query, "n", -1, 4, BitboardSolver.MAX_N);
+        int k = intParam(query, "k", 1, 1, MAX_K);
+        int threads = intParam(query, "threads", defaultThreads, 1, 1024);
+
+        int[][] solutions = firstSolutions(n, k, threads);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"n\":").append(n).append(",\"k\":").append(k).append(",\"solutions\":[");
+        for (int i = 0; i < solutions.length; i++) {
+            if (i > 0) json.append(',');
+            appendColumns(json, solutions[i]);
+        }
+        json.append("]}");
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void enumerate(HttpExchange exchange, Map<String, String> query) throws IOException {
+        int n = intParam(query, "n", -1, 4, BitboardSolver.MAX_N);
+        long offset = longParam(query, "offset", 0);
+        int limit = intParam(query, "limit", 100, 0, MAX_PAGE);
+        int threads = intParam(query, "threads", defaultThreads, 1, 1024);
+
+        // Per-column counts (shared with /count) let the page skip whole row-0 columns
+        long[] counts = columnCounts(n, threads, SolveSession.DEFAULT_PRIORITY);
+        long total = sum(counts);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0); // length 0 = chunked
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            out.write("{\"n\":" + n + ",\"total\":" + total + ",\"offset\":" + offset + ",\"solutions\":[");
+            PackedSolutions cached = ResultCache.getDefault().getSolutions(ResultCache.Key.classic(n));
+            if (cached != null && limit > 0) {
+                // The cached set is already lexicographic: copy the slice straight out
+                PageWriter page = new PageWriter(out, 0, limit);
+                int[] columns = new int[n];
+                for (long i = offset; i < cached.size() && page.failure == null && page.done.getCount() > 0; i++) {
+                    page.onSolution(-1, cached.get((int) i, columns));
+                }
+                if (page.failure != null) throw page.failure;
+            } else if (cached == null && offset < total && limit > 0) {
+                int fromCol = 0;
+                long skip = offset;
+                while (skip >= counts[fromCol]) {
+                    skip -= counts[fromCol];
+                    fromCol++;
+                }
+                int toCol = fromCol;
+                long needed = skip + limit;
+                while (toCol < n && needed > 0) {
+                    needed -= counts[toCol];
+                    toCol++;
+                }
+
+                // The session passes its solutions on in lexicographic order, so the
+                // page can be written as it is found
+                PageWriter page = new PageWriter(out, skip, limit);
+                SolveSession session = new SolveSession(n, SolveMode.ENUMERATE);
+                session.setMaxThreads(threads);
+                session.setColumns(fromCol, toCol);
+                session.setListener(page);
+                boolean finished = runUntil(session, page.done, timeLimitMs);
+                if (page.failure != null) throw page.failure;
+                if (!finished) throw new IllegalStateException("Page of n = " + n + " timed out after " + timeLimitMs + " ms");
+            }
+            out.write("]}");
+        }
+    }
+
+    /**
+     * Writes solutions skip+1 .. skip+limit of the stream as JSON arrays.
+     */
+    private static class PageWriter implements SolutionListener {
+        final CountDownLatch done = new CountDownLatch(1);
+        private final Writer out;
+        private final long skip;
+        private final int limit;
+        private long seen = 0;
+        private int written = 0;
+        IOException failure;
+
+        PageWriter(Writer out, long skip, int limit) {
+            this.out = out;
+            this.skip = skip;
+            this.limit = limit;
+        }
+
+        @Override
+        public void onSolution(int thread_id, int[] columns) {
+            if (seen++ < skip || written >= limit) return;
+            try {
+                StringBuilder json = new StringBuilder();
+                if (written > 0) json.append(',');
+                appendColumns(json, columns);
+                out.write(json.toString());
+            } catch (IOException e) {
+                failure = e; // client went away
+                done.countDown();
+                return;
+            }
+            if (++written == limit) done.countDown();
+        }
+    }
+
+    private long[] columnCounts(int n, int threads, int priority) {
+        // ResultCache keeps finished counts, so only in-flight solves are shared here. A count
+        // only joins one with the same quota and share, or a high-priority request would
+        // wait on a low-priority session.
+        return shared("count:" + n + ":" + threads + ":" + priority, () -> HeadlessSolver.countByColumn(n, pool, threads, priority, timeLimitMs));
+    }
+
+    // The same as the start of /enumerate, so it doesn't matter whether the set is cached
+    private int[][] firstSolutions(int n, int k, int threads) {
+        PackedSolutions cached = ResultCache.getDefault().getSolutions(ResultCache.Key.classic(n));
+        if (cached != null) {
+            int[][] solutions = new int[Math.min(k, cached.size())][];
+            for (int i = 0; i < solutions.length; i++) solutions[i] = cached.get(i, null);
+            return solutions;
+        }
+        return shared("first:" + n + ":" + k + ":" + threads, () -> {
+            List<int[]> found = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(1);
+            SolveSession session = new SolveSession(n, SolveMode.ENUMERATE);
+            session.setMaxThreads(threads);
+            session.setListener((thread_id, columns) -> {
+                if (found.size() < k) {
+                    found.add(columns.clone());
+                    if (found.size() == k) done.countDown();
+                }
+            });
+            if (!runUntil(session, done, timeLimitMs)) {
+                throw new IllegalStateException("First " + k + " solutions of n = " + n + " timed out after " + timeLimitMs + " ms");
+            }
+            return found.toArray(new int[0][]); // complete once done was counted down
+        });
+    }
+
+    /**
+     * Returns the result for key, computing it at most once no matter how many
+     * callers ask concurrently. Nothing is remembered once the computation is done;
+     * callers that joined it get its exception if it failed.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T shared(String key, Supplier<T> solve) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = results.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+        try {
+            T value = solve.get();
+            results.remove(key, mine);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            results.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Submits the session and waits until it finishes or the caller has what it needs,
+     * then cancels what is left of it and waits for its running tasks to stop.
+     * @return false if timeLimitMs ran out first
+     */
+    private boolean runUntil(SolveSession session, CountDownLatch done, long timeLimitMs) {
+        pool.submit(session);
+        Thread watcher = new Thread(() -> {
+            try {
+                session.waitFor(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                return;
+            }
+            done.countDown();
+        }, "session-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        try {
+            return done.await(timeLimitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            session.cancel();
+            session.await(); // no worker is still in the listener once this returns
+        }
+    }
+
+    private static void appendColumns(StringBuilder json, int[] columns) {
+        json.append('[');
+        for (int row = 0; row < columns.length; row++) {
+            if (row > 0) json.append(',');
+            json.append(columns[row]);
+        }
+        json.append(']');
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) total += count;
+        return total;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                      URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int fallback, int min, int max) {
+        long value = longParam(query, name, fallback);
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max);
+        }
+        return (int) value;
+    }
+
+    private static long longParam(Map<String, String> query, String name, long fallback) {
+        String text = query.get(name);
+        if (text == null) {
+            if (fallback < 0) throw new IllegalArgumentException("Missing parameter: " + name);
+            return fallback;
+        }
+        try {
+            long value = Long.parseLong(text);
+            if (value < 0) throw new IllegalArgumentException(name + " must not be negative");
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + text);
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
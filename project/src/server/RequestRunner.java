@@ -0,0 +1,249 @@
+package server;
+
+import base.CompletionSolver;
+import base.ConstructiveSolver;
+import base.HeadlessSolver;
+import base.LexicographicIndex;
+import base.MinConflictsSolver;
+import base.RandomSolutionSampler;
+import base.SearchEngine;
+import base.SolutionListener;
+import base.SolutionVerifier;
+import base.SolveSession;
+import base.SweepScheduler;
+import base.WideBitboardSolver;
+import base.WorkerPool;
+import base.SolveProgress;
+import gui.GUI;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Executes a SolveRequest and writes the result lines to the given writer.
+ * Used both by the command socket (warm instance) and by a local CLI run.
+ *
+ * Output lines:
+ *   SOLUTION c0 c1 ... c(n-1)   column of the queen in each row (solve, place, construct, first, complete, sample, nth)
+ *   RANK k                      1-based lexicographic position of the given solution (rank)
+ *   SWEEP n total elapsedMs     one board size of a sweep, as soon as it is done, with its time from the start (sweep)
+ *   VERIFIED true|false         independent check of a single solution (place, construct)
+ *   PROGRESS text              percent done and ETA, about once a second while solving
+ *   TIMEOUT                     the time limit ran out before k solutions were found (first)
+ *   INFEASIBLE                  propagation proved there is no completion before searching (complete)
+ *   COUNT total
+ *   DONE elapsedMs
+ *   OK message                  (gui / show)
+ *   ERROR message
+ */
+public class RequestRunner {
+
+    /**
+     * @return 0 on success, 1 if an ERROR line was written
+     */
+    public static int run(SolveRequest request, PrintWriter out, GUI gui) {
+        return run(request, out, gui, null);
+    }
+
+    /**
+     * Same, with classic counts and solves (no constraints, bitboard engine) run as
+     * sessions on the given pool, so that clients of one instance share its workers
+     * fairly instead of each starting threads of its own; null solves them on
+     * ThreadManager workers, as a one-off local run does.
+     * @return 0 on success, 1 if an ERROR line was written
+     */
+    public static int run(SolveRequest request, PrintWriter out, GUI gui, WorkerPool pool) {
+        int status = 0;
+        try {
+            switch (request.command) {
+                case SOLVE:
+                case COUNT:
+                    runHeadless(request, out, pool);
+                    break;
+                case PLACE:
+                    runPlacement(request, out);
+                    break;
+                case CONSTRUCT:
+                    runConstruction(request, out);
+                    break;
+                case FIRST:
+                    runFirst(request, out);
+                    break;
+                case COMPLETE:
+                    runCompletion(request, out);
+                    break;
+                case SAMPLE:
+                    runSampling(request, out);
+                    break;
+                case NTH:
+                case RANK:
+                    runIndexed(request, out);
+                    break;
+                case SWEEP:
+                    runSweep(request, out);
+                    break;
+                case GUI:
+                    if (gui == null) throw new IllegalStateException("The running instance has no window");
+                    gui.submitSolve(request.n, request.threads, request.constraints);
+                    out.println("OK Solving " + request.n + "x" + request.n + " in the running window");
+                    break;
+                case SHOW:
+                    if (gui == null) throw new IllegalStateException("The running instance has no window");
+                    SwingUtilities.invokeLater(gui::toFront);
+                    out.println("OK");
+                    break;
+            }
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            out.println("ERROR " + e.getMessage());
+            status = 1;
+        }
+        out.flush();
+        return status;
+    }
+
+    private static void runPlacement(SolveRequest request, PrintWriter out) {
+        long start = System.nanoTime();
+        MinConflictsSolver solver = new MinConflictsSolver(request.n, System.nanoTime());
+        int[] cols = solver.solve();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        StringBuilder line = new StringBuilder("SOLUTION");
+        for (int col : cols) line.append(' ').append(col);
+        out.println(line);
+        out.println("VERIFIED " + SolutionVerifier.isValid(cols));
+        out.println("DONE " + elapsedMs);
+    }
+
+    private static void runConstruction(SolveRequest request, PrintWriter out) throws IOException {
+        if (!ConstructiveSolver.hasSolution(request.n)) {
+            throw new IllegalArgumentException("No solution exists for n = " + request.n);
+        }
+        long start = System.nanoTime();
+        out.print("SOLUTION ");
+        ConstructiveSolver.write(request.n, out); // streamed, no array
+        out.println();
+        boolean valid = SolutionVerifier.isValid(request.n, row -> ConstructiveSolver.columnOf(request.n, row));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        out.println("VERIFIED " + valid);
+        out.println("DONE " + elapsedMs);
+    }
+
+    private static void runFirst(SolveRequest request, PrintWriter out) {
+        if (request.n < 1) throw new IllegalArgumentException("Board size must be positive");
+        long start = System.nanoTime();
+        WideBitboardSolver solver = new WideBitboardSolver(request.n); // works for any n, no 63 limit
+        solver.setTimeLimitMillis(request.timeLimitMs);
+        long found = solver.findFirst(request.limit, (thread_id, cols) -> {
+            StringBuilder line = new StringBuilder("SOLUTION");
+            for (int col : cols) line.append(' ').append(col);
+            out.println(line);
+        });
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        if (found < request.limit && solver.isStopRequested()) out.println("TIMEOUT");
+        out.println("COUNT " + found);
+        out.println("DONE " + elapsedMs);
+    }
+
+    private static void runCompletion(SolveRequest request, PrintWriter out) {
+        long start = System.nanoTime();
+        CompletionSolver solver = new CompletionSolver(request.constraints);
+        long found = 0;
+        if (!solver.isFeasible()) {
+            out.println("INFEASIBLE");
+        } else {
+            found = solver.findFirst(1, (thread_id, cols) -> {
+                StringBuilder line = new StringBuilder("SOLUTION");
+                for (int col : cols) line.append(' ').append(col);
+                out.println(line);
+            });
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        out.println("COUNT " + found);
+        out.println("DONE " + elapsedMs);
+    }
+
+    private static void runSampling(SolveRequest request, PrintWriter out) {
+        long start = System.nanoTime();
+        long drawn = RandomSolutionSampler.sample(request.n, request.limit, request.threads, System.nanoTime(), (thread_id, cols) -> {
+            StringBuilder line = new StringBuilder("SOLUTION");
+            for (int col : cols) line.append(' ').append(col);
+            out.println(line);
+        });
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        out.println("COUNT " + drawn);
+        out.println("DONE " + elapsedMs);
+    }
+
+    // Random access by position; the index (and its memoized counts) is shared across requests
+    private static void runIndexed(SolveRequest request, PrintWriter out) {
+        long start = System.nanoTime();
+        LexicographicIndex index = LexicographicIndex.forSize(request.n);
+        long count = 0;
+        if (request.command == SolveRequest.Command.RANK) {
+            out.println("RANK " + (index.rank(request.solution) + 1));
+        } else {
+            long first = request.position - 1;
+            if (first >= index.size()) {
+                throw new IllegalArgumentException("There are only " + index.size() + " solutions for n = " + request.n);
+            }
+            long end = Math.min(index.size(), first + request.limit);
+            for (long k = first; k < end; k++, count++) {
+                StringBuilder line = new StringBuilder("SOLUTION");
+                for (int col : index.unrank(k)) line.append(' ').append(col);
+                out.println(line);
+            }
+            out.println("COUNT " + count);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        out.println("DONE " + elapsedMs);
+    }
+
+    private static void runSweep(SolveRequest request, PrintWriter out) {
+        SweepScheduler sweep = new SweepScheduler(request.n, (int) request.limit, request.threads);
+        sweep.run((n, columnCounts, elapsedMs) -> {
+            out.println("SWEEP " + n + " " + HeadlessSolver.sum(columnCounts) + " " + elapsedMs);
+            out.flush();
+        });
+        out.println("DONE " + sweep.getMakespanMillis());
+    }
+
+    private static void runHeadless(SolveRequest request, PrintWriter out, WorkerPool pool) {
+        long start = System.nanoTime();
+        Consumer<SolveProgress> progress = snapshot -> {
+            out.println("PROGRESS " + snapshot);
+            out.flush();
+        };
+        // checkError flushes and tells whether a write failed: the client hung up, so stop solving for it
+        BooleanSupplier clientGone = out::checkError;
+        boolean pooled = pool != null && request.constraints == null && request.rule == null
+                && request.engine == SearchEngine.BITBOARD;
+        long total;
+        if (request.command == SolveRequest.Command.SOLVE) {
+            // Stream each solution as soon as it is found (or replay the cached set)
+            SolutionListener lines = (thread_id, cols) -> {
+                StringBuilder line = new StringBuilder("SOLUTION");
+                for (int col : cols) line.append(' ').append(col);
+                out.println(line);
+            };
+            total = pooled
+                    ? HeadlessSolver.enumerate(request.n, pool, request.threads, lines, progress, clientGone)
+                    : HeadlessSolver.enumerate(request.n, request.threads, request.constraints, lines, progress, clientGone);
+        } else if (pooled) {
+            total = HeadlessSolver.sum(HeadlessSolver.countByColumn(request.n, pool, request.threads, SolveSession.DEFAULT_PRIORITY,
+                    progress, clientGone));
+        } else if (request.rule != null) {
+            total = HeadlessSolver.sum(HeadlessSolver.countVariant(request.rule, request.shape, request.threads, clientGone));
+        } else {
+            total = HeadlessSolver.sum(HeadlessSolver.countByColumn(request.n, request.threads, request.constraints, request.engine,
+                    progress, clientGone));
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        out.println("COUNT " + total);
+        out.println("DONE " + elapsedMs);
+    }
+}
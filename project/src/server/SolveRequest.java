@@ -0,0 +1,287 @@
+package server;
+
+import base.AttackRule;
+import base.BoardConstraints;
+import base.BoardShape;
+import base.SearchEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A solve request as typed on the command line or sent over the command socket.
+ * On the wire a request is a single line: COMMAND [n] [threads], FIRST n k seconds, SAMPLE n k threads,
+ * NTH n k count, RANK n c0 ... c(n-1) or SWEEP from to threads.
+ * SOLVE, COUNT, COMPLETE and GUI also take completion constraints anywhere after n,
+ * as queens=r:c,... and blocked=r:c,... (see BoardConstraints).
+ * COUNT also takes engine=bitboard|dlx|batch|mitm to pick the search engine, and counts variants
+ * with rule=queens|toroidal|superqueens, cols=m (n x m board) and k=pieces.
+ */
+public class SolveRequest {
+
+    public enum Command {
+        SOLVE, // enumerate and print every solution, in lexicographic order
+        COUNT, // print only the number of solutions
+        PLACE, // print one solution for large n, found by min-conflicts local search
+        CONSTRUCT, // print one solution from the closed-form construction, no search
+        FIRST, // print the first k solutions in lexicographic order, any n, time-bounded
+        COMPLETE, // print one completion of a board with pre-placed queens and blocked squares
+        SAMPLE, // print k random solutions, close to uniform, for n too large to enumerate
+        NTH,   // print the solutions at lexicographic positions k, k+1, ... without enumerating the ones before
+        RANK,  // print the lexicographic position of a given solution
+        SWEEP, // count every size of a range as one job on one pool of workers
+        GUI,   // start an animated solve in the running window
+        SHOW   // bring the running window to the front
+    }
+
+    public static final String USAGE =
+            "Usage: Main                       open the GUI\n" +
+            "       Main gui <n> [threads]     open the GUI and start solving\n" +
+            "       Main solve <n> [threads]   print every solution\n" +
+            "       Main count <n> [threads]   print the number of solutions\n" +
+            "       Main place <n>             print one solution, for n up to millions\n" +
+            "       Main construct <n>         print one solution from the n mod 6 construction, O(n)\n" +
+            "       Main first <n> [k] [sec]   print the first k solutions, giving up after sec seconds\n" +
+            "       Main sample <n> [k] [threads]\n" +
+            "                                  print k random solutions, close to uniformly distributed\n" +
+            "       Main nth <n> <k> [count]    print count solutions from the k-th in lexicographic order (1-based)\n" +
+            "       Main rank <n> c0 ... c(n-1)\n" +
+            "                                  print the lexicographic position of a solution (1-based)\n" +
+            "       Main sweep <from> <to> [threads]\n" +
+            "                                  count every n in the range on one shared pool, largest tasks first\n" +
+            "       Main complete <n> queens=r:c,... [blocked=r:c,...]\n" +
+            "                                  print one completion of a partly filled board\n" +
+            "       (solve, count and gui also accept queens=... and blocked=... after n)\n" +
+            "       (count also accepts engine=dlx|batch|mitm to cross-check with another engine,\n" +
+            "        and rule=toroidal|superqueens, or cols=<m> k=<queens> for k queens on n x m)\n" +
+            "       Main serve                 keep a headless instance running for later requests\n" +
+            "       Main http [port]           run the HTTP/JSON solve service (default port " + HttpSolveServer.DEFAULT_PORT + ")";
+
+    public final Command command;
+    public final int n;
+    public final int threads;
+    public final long limit; // FIRST, SAMPLE and NTH: number of solutions wanted; SWEEP: last board size
+    public final long position; // NTH: 1-based lexicographic position of the first solution
+    public final int[] solution; // RANK: row -> column of the solution to locate
+    public final long timeLimitMs; // FIRST: give up after this long
+    public final BoardConstraints constraints; // null = plain board
+    public final SearchEngine engine; // COUNT: which engine solves it
+    public final AttackRule rule; // COUNT: counting variant, null for classic queens
+    public final BoardShape shape; // COUNT: board and piece count of the variant
+
+    public SolveRequest(Command command, int n, int threads) {
+        this(command, n, threads, 0, 0, null);
+    }
+
+    public SolveRequest(Command command, int n, int threads, BoardConstraints constraints) {
+        this(command, n, threads, 0, 0, constraints);
+    }
+
+    public SolveRequest(Command command, int n, int threads, long limit, long timeLimitMs, BoardConstraints constraints) {
+        this(command, n, threads, limit, timeLimitMs, constraints, SearchEngine.BITBOARD);
+    }
+
+    public SolveRequest(Command command, int n, int threads, long limit, long timeLimitMs, BoardConstraints constraints,
+                        SearchEngine engine) {
+        this(command, n, threads, limit, timeLimitMs, constraints, engine, null, null);
+    }
+
+    // NTH: count solutions starting at the 1-based position
+    public static SolveRequest nth(int n, long position, long count) {
+        return new SolveRequest(Command.NTH, n, 1, count, 0, null, SearchEngine.BITBOARD, null, null, position, null);
+    }
+
+    // RANK: position of the solution given as row -> column
+    public static SolveRequest rank(int[] solution) {
+        return new SolveRequest(Command.RANK, solution.length, 1, 0, 0, null, SearchEngine.BITBOARD, null, null, 0, solution.clone());
+    }
+
+    // Counts a variant: rule on the given shape, with n = shape.rows
+    public SolveRequest(int threads, AttackRule rule, BoardShape shape) {
+        this(Command.COUNT, shape.rows, threads, 0, 0, null, SearchEngine.BITBOARD, rule, shape);
+    }
+
+    private SolveRequest(Command command, int n, int threads, long limit, long timeLimitMs, BoardConstraints constraints,
+                         SearchEngine engine, AttackRule rule, BoardShape shape) {
+        this(command, n, threads, limit, timeLimitMs, constraints, engine, rule, shape, 0, null);
+    }
+
+    private SolveRequest(Command command, int n, int threads, long limit, long timeLimitMs, BoardConstraints constraints,
+                         SearchEngine engine, AttackRule rule, BoardShape shape, long position, int[] solution) {
+        this.command = command;
+        this.n = n;
+        this.threads = threads;
+        this.limit = limit;
+        this.timeLimitMs = timeLimitMs;
+        this.constraints = constraints;
+        this.engine = engine;
+        this.rule = rule;
+        this.shape = shape;
+        this.position = position;
+        this.solution = solution;
+    }
+
+    // Returns null for a plain launch with no arguments
+    public static SolveRequest fromArgs(String[] args) {
+        if (args.length == 0) return null;
+        return parse(String.join(" ", args));
+    }
+
+    public static SolveRequest parse(String line) {
+        // Constraint tokens (name=value) may appear anywhere; the rest are positional
+        List<String> positional = new ArrayList<>();
+        StringBuilder constraintText = new StringBuilder();
+        SearchEngine engine = null;
+        String ruleName = null;
+        String cols = null;
+        String pieces = null;
+        for (String part : line.trim().split("\\s+")) {
+            if (part.startsWith("engine=")) engine = SearchEngine.parse(part.substring("engine=".length()));
+            else if (part.startsWith("rule=")) ruleName = part.substring("rule=".length());
+            else if (part.startsWith("cols=")) cols = part.substring("cols=".length());
+            else if (part.startsWith("k=")) pieces = part.substring("k=".length());
+            else if (part.contains("=")) constraintText.append(part).append(' ');
+            else positional.add(part);
+        }
+        if (positional.isEmpty()) throw new IllegalArgumentException("Missing command");
+        String[] parts = positional.toArray(new String[0]);
+        Command command;
+        try {
+            command = Command.valueOf(parts[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown command: " + parts[0]);
+        }
+        if (constraintText.length() > 0 && command != Command.SOLVE && command != Command.COUNT
+                && command != Command.COMPLETE && command != Command.GUI) {
+            throw new IllegalArgumentException(parts[0] + " does not take constraints");
+        }
+        boolean variant = ruleName != null || cols != null || pieces != null;
+        if ((engine != null || variant) && command != Command.COUNT) {
+            throw new IllegalArgumentException(parts[0] + " does not take an engine or a variant");
+        }
+        if (variant && (engine != null || constraintText.length() > 0)) {
+            throw new IllegalArgumentException("Variants can't be combined with engine= or constraints");
+        }
+        if (command == Command.SHOW) {
+            return new SolveRequest(command, 0, 0);
+        }
+        if (command == Command.FIRST) {
+            if (parts.length < 2 || parts.length > 4) {
+                throw new IllegalArgumentException("Expected: " + parts[0] + " <n> [k] [seconds]");
+            }
+            int n = parseNumber(parts[1], "board size");
+            long k = parts.length > 2 ? parseNumber(parts[2], "solution count") : 1;
+            long seconds = parts.length > 3 ? parseNumber(parts[3], "time limit") : 10;
+            if (k < 1) throw new IllegalArgumentException("Solution count must be at least 1");
+            if (seconds < 1) throw new IllegalArgumentException("Time limit must be at least 1 second");
+            return new SolveRequest(command, n, 1, k, seconds * 1000, null);
+        }
+        if (command == Command.SAMPLE) {
+            if (parts.length < 2 || parts.length > 4) {
+                throw new IllegalArgumentException("Expected: " + parts[0] + " <n> [k] [threads]");
+            }
+            int n = parseNumber(parts[1], "board size");
+            long k = parts.length > 2 ? parseNumber(parts[2], "sample count") : 1;
+            int threads = parts.length > 3
+                    ? parseNumber(parts[3], "thread count")
+                    : Runtime.getRuntime().availableProcessors();
+            return new SolveRequest(command, n, threads, k, 0, null);
+        }
+        if (command == Command.SWEEP) {
+            if (parts.length < 3 || parts.length > 4) {
+                throw new IllegalArgumentException("Expected: " + parts[0] + " <from> <to> [threads]");
+            }
+            int from = parseNumber(parts[1], "board size");
+            int to = parseNumber(parts[2], "board size");
+            int threads = parts.length > 3
+                    ? parseNumber(parts[3], "thread count")
+                    : Runtime.getRuntime().availableProcessors();
+            return new SolveRequest(command, from, threads, to, 0, null);
+        }
+        if (command == Command.NTH) {
+            if (parts.length < 3 || parts.length > 4) {
+                throw new IllegalArgumentException("Expected: " + parts[0] + " <n> <k> [count]");
+            }
+            int n = parseNumber(parts[1], "board size");
+            long k = parseLong(parts[2], "position");
+            long count = parts.length > 3 ? parseNumber(parts[3], "solution count") : 1;
+            if (k < 1) throw new IllegalArgumentException("Positions start at 1");
+            return nth(n, k, count);
+        }
+        if (command == Command.RANK) {
+            if (parts.length < 2 || parts.length != parseNumber(parts[1], "board size") + 2) {
+                throw new IllegalArgumentException("Expected: " + parts[0] + " <n> c0 ... c(n-1)");
+            }
+            int[] solution = new int[parts.length - 2];
+            for (int row = 0; row < solution.length; row++) {
+                solution[row] = parseNumber(parts[row + 2], "column");
+            }
+            return rank(solution);
+        }
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Expected: " + parts[0] + " <n> [threads]");
+        }
+        int n = parseNumber(parts[1], "board size");
+        int threads = parts.length == 3
+                ? parseNumber(parts[2], "thread count")
+                : Runtime.getRuntime().availableProcessors();
+        BoardConstraints constraints = null;
+        if (constraintText.length() > 0) {
+            constraints = BoardConstraints.parse(n, constraintText.toString());
+        } else if (command == Command.COMPLETE) {
+            constraints = new BoardConstraints(n); // nothing pre-placed: any solution will do
+        }
+        if (variant) {
+            int width = cols != null ? parseNumber(cols, "column count") : n;
+            int k = pieces != null ? parseNumber(pieces, "queen count") : Math.min(n, width);
+            return new SolveRequest(threads, AttackRule.forName(ruleName != null ? ruleName : "queens"), new BoardShape(n, width, k));
+        }
+        return new SolveRequest(command, n, threads, 0, 0, constraints, engine != null ? engine : SearchEngine.BITBOARD);
+    }
+
+    private static int parseNumber(String text, String what) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + what + ": " + text);
+        }
+    }
+
+    private static long parseLong(String text, String what) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + what + ": " + text);
+        }
+    }
+
+    public boolean isHeadless() {
+        return command == Command.SOLVE || command == Command.COUNT || command == Command.PLACE
+                || command == Command.CONSTRUCT || command == Command.FIRST || command == Command.COMPLETE
+                || command == Command.SAMPLE || command == Command.NTH || command == Command.RANK
+                || command == Command.SWEEP;
+    }
+
+    public String toLine() {
+        if (command == Command.SHOW) return command.name();
+        if (command == Command.FIRST) return command.name() + " " + n + " " + limit + " " + (timeLimitMs / 1000);
+        if (command == Command.SAMPLE) return command.name() + " " + n + " " + limit + " " + threads;
+        if (command == Command.SWEEP) return command.name() + " " + n + " " + limit + " " + threads;
+        if (command == Command.NTH) return command.name() + " " + n + " " + position + " " + limit;
+        if (command == Command.RANK) {
+            StringBuilder line = new StringBuilder(command.name() + " " + n);
+            for (int col : solution) line.append(' ').append(col);
+            return line.toString();
+        }
+        String line = command.name() + " " + n + " " + threads;
+        if (constraints != null && !constraints.isEmpty()) line += " " + constraints;
+        if (engine != SearchEngine.BITBOARD) line += " engine=" + engine.name().toLowerCase();
+        if (rule != null) line += " rule=" + rule.getName() + " cols=" + shape.cols + " k=" + shape.pieces;
+        return line;
+    }
+
+    @Override
+    public String toString() {
+        return toLine();
+    }
+}